@@ -0,0 +1,25 @@
+package com.github.fjbaldon.attendex.platform.admin;
+
+import com.github.fjbaldon.attendex.platform.analytics.AnalyticsFacade;
+import com.github.fjbaldon.attendex.platform.analytics.ReconciliationReportDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/analytics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('STEWARD')")
+class AdminAnalyticsController {
+
+    private final AnalyticsFacade analyticsFacade;
+
+    // Runs synchronously; the report lists how many rows of each read model had drifted
+    @PostMapping("/reconcile")
+    public ResponseEntity<ReconciliationReportDto> reconcileReadModels() {
+        return ResponseEntity.ok(analyticsFacade.reconcileReadModels());
+    }
+}
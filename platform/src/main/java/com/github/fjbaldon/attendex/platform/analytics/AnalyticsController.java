@@ -1,15 +1,20 @@
 package com.github.fjbaldon.attendex.platform.analytics;
 
-import com.github.fjbaldon.attendex.platform.capture.EventStatsDto;
 import com.github.fjbaldon.attendex.platform.common.security.CustomUserDetails;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/insights")
@@ -45,12 +50,33 @@ class AnalyticsController {
     }
 
     @GetMapping("/events/{eventId}/stats")
+    @PreAuthorize("hasRole('SCANNER') or hasRole('ORGANIZER')")
     public ResponseEntity<EventStatsDto> getEventStats(
             @PathVariable Long eventId,
             @AuthenticationPrincipal CustomUserDetails user) {
         return ResponseEntity.ok(analyticsFacade.getEventStats(user.getOrganizationId(), eventId));
     }
 
+    // Pushes entry counters as they change instead of being polled; see LiveEventCounters
+    @GetMapping(value = "/events/{eventId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('SCANNER') or hasRole('ORGANIZER')")
+    public SseEmitter streamLiveCounters(
+            @PathVariable Long eventId,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return analyticsFacade.subscribeToLiveCounters(user.getOrganizationId(), eventId);
+    }
+
+    @GetMapping("/events/{eventId}/timeline")
+    public ResponseEntity<TimelineDto> getTimeline(
+            @PathVariable Long eventId,
+            @RequestParam(required = false) Long sessionId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "300") int maxPoints,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return ResponseEntity.ok(analyticsFacade.getTimeline(user.getOrganizationId(), eventId, sessionId, from, to, maxPoints));
+    }
+
     @GetMapping("/attendees/{attendeeId}/history")
     public ResponseEntity<AttendeeHistoryDto> getAttendeeHistory(
             @PathVariable Long attendeeId,
@@ -58,6 +84,20 @@ class AnalyticsController {
         return ResponseEntity.ok(analyticsFacade.getAttendeeHistory(user.getOrganizationId(), attendeeId));
     }
 
+    @GetMapping("/attendees/leaderboards/lowest-attendance")
+    public ResponseEntity<List<AttendeeLeaderboardEntryDto>> getLowestAttendance(
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return ResponseEntity.ok(analyticsFacade.getLowestAttendance(user.getOrganizationId(), limit));
+    }
+
+    @GetMapping("/attendees/leaderboards/most-late")
+    public ResponseEntity<List<AttendeeLeaderboardEntryDto>> getMostLate(
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return ResponseEntity.ok(analyticsFacade.getMostLate(user.getOrganizationId(), limit));
+    }
+
     @PostMapping("/events/{eventId}/cohort")
     public ResponseEntity<CohortStatsDto> getCohortStats(
             @PathVariable Long eventId,
@@ -74,4 +114,22 @@ class AnalyticsController {
             @AuthenticationPrincipal CustomUserDetails user) {
         return ResponseEntity.ok(analyticsFacade.getCohortAttendees(user.getOrganizationId(), eventId, request, pageable));
     }
+
+    @PostMapping("/events/{eventId}/cohort/scroll")
+    public ResponseEntity<CohortAttendeeSliceDto> scrollCohortList(
+            @PathVariable Long eventId,
+            @RequestBody CohortStatsRequest request,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return ResponseEntity.ok(analyticsFacade.getCohortAttendeesAfter(user.getOrganizationId(), eventId, request, afterId, size));
+    }
+
+    @PostMapping("/events/{eventId}/pivot")
+    public ResponseEntity<AttendancePivotDto> getAttendancePivot(
+            @PathVariable Long eventId,
+            @RequestBody AttendancePivotRequest request,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return ResponseEntity.ok(analyticsFacade.getAttendancePivot(user.getOrganizationId(), eventId, request));
+    }
 }
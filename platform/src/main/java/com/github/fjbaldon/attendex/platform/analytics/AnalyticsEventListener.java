@@ -3,38 +3,60 @@ package com.github.fjbaldon.attendex.platform.analytics;
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeBatchDeletedEvent;
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeCreatedEvent;
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeDeletedEvent;
+import com.github.fjbaldon.attendex.platform.attendee.AttendeesChangedEvent;
+import com.github.fjbaldon.attendex.platform.attendee.AttendeesImportedEvent;
 import com.github.fjbaldon.attendex.platform.attendee.AttributeDeletedEvent;
-import com.github.fjbaldon.attendex.platform.capture.EntryCreatedEvent;
+import com.github.fjbaldon.attendex.platform.capture.EntriesCapturedEvent;
+import com.github.fjbaldon.attendex.platform.capture.EntriesRevisedEvent;
 import com.github.fjbaldon.attendex.platform.event.EventCreatedEvent;
+import com.github.fjbaldon.attendex.platform.event.EventUpdatedEvent;
 import com.github.fjbaldon.attendex.platform.event.RosterEntryAddedEvent;
+import com.github.fjbaldon.attendex.platform.event.RosterEntryRemovedEvent;
 import com.github.fjbaldon.attendex.platform.organization.ScannerCreatedEvent;
 import lombok.RequiredArgsConstructor;
 import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 class AnalyticsEventListener {
 
     private final OrganizationSummaryRepository orgSummaryRepository;
     private final EventSummaryRepository eventSummaryRepository;
-    private final SessionSummaryRepository sessionSummaryRepository;
-    private final ScannerSummaryRepository scannerSummaryRepository;
     private final AttributeBreakdownRepository attributeBreakdownRepository;
+    private final SummaryCounterBuffer summaryCounterBuffer;
+    private final CohortIndex cohortIndex;
+    private final AttendeeSummaryUpdater attendeeSummaryUpdater;
+    private final AttendancePivotCache attendancePivotCache;
+    private final LiveEventCounters liveEventCounters;
+
+    // Buffered and flushed in bulk; see SummaryCounterBuffer. Nothing may follow addEntries here: a failure after
+    // it would leave the publication incomplete, and its republication would count the buffered deltas twice
+    @ApplicationModuleListener
+    public void onEntriesCapturedCount(EntriesCapturedEvent event) {
+        event.events().forEach(summaryCounterBuffer::addEntries);
+    }
 
+    // Live totals are additive too, so like the buffer they get a listener that nothing can fail after
     @ApplicationModuleListener
-    public void onEntryCreated(EntryCreatedEvent event) {
-        // 1. Update Event Total
-        eventSummaryRepository.incrementEntryCount(event.eventId());
+    public void onEntriesCapturedLive(EntriesCapturedEvent event) {
+        event.events().forEach(liveEventCounters::onEntriesCaptured);
+    }
 
-        // 2. Update Session Total
-        if (event.sessionId() != null) {
-            sessionSummaryRepository.incrementCount(event.sessionId(), event.eventId());
+    @ApplicationModuleListener
+    public void onEntriesCaptured(EntriesCapturedEvent event) {
+        for (EntriesCapturedEvent.EventDelta delta : event.events()) {
+            cohortIndex.onEntriesCaptured(delta.eventId(), delta.attendeeIds(), delta.attendeeIdsBySessionId());
         }
+    }
 
-        // 3. Update Scanner Total
-        if (event.scannerId() != null) {
-            scannerSummaryRepository.incrementCount(event.scannerId(), event.eventId());
+    // Its own publication, so a failed refresh is retried without replaying the in-memory updates above
+    @ApplicationModuleListener
+    public void onEntriesCapturedRefreshAttendees(EntriesCapturedEvent event) {
+        for (EntriesCapturedEvent.EventDelta delta : event.events()) {
+            attendeeSummaryUpdater.refreshAttendees(delta.eventId(), delta.attendeeIds());
         }
     }
 
@@ -50,12 +72,55 @@ class AnalyticsEventListener {
     @ApplicationModuleListener
     public void onRosterEntryAdded(RosterEntryAddedEvent event) {
         eventSummaryRepository.incrementRosterCount(event.eventId());
+        cohortIndex.onRosterEntryAdded(event.eventId(), event.attendeeId());
+        attendancePivotCache.evictEvent(event.eventId());
+        attendeeSummaryUpdater.refreshAttendees(event.eventId(), List.of(event.attendeeId()));
+    }
+
+    @ApplicationModuleListener
+    public void onRosterEntryRemoved(RosterEntryRemovedEvent event) {
+        eventSummaryRepository.decrementRosterCount(event.eventId());
+        cohortIndex.onRosterEntryRemoved(event.eventId(), event.attendeeId());
+        attendancePivotCache.evictEvent(event.eventId());
+        attendeeSummaryUpdater.refreshAttendees(event.eventId(), List.of(event.attendeeId()));
+    }
+
+    @ApplicationModuleListener
+    public void onEventUpdated(EventUpdatedEvent event) {
+        // Sessions may have been added, moved or removed, or the whole event deleted
+        attendeeSummaryUpdater.refreshEvents(List.of(event.eventId()));
+        attendancePivotCache.evictEvent(event.eventId());
+    }
+
+    @ApplicationModuleListener
+    public void onEntriesRevised(EntriesRevisedEvent event) {
+        // Entries moved between sessions or changed punctuality; presence is rebuilt from scratch
+        cohortIndex.invalidateEvent(event.eventId());
+        attendeeSummaryUpdater.refreshEvents(List.of(event.eventId()));
+        attendancePivotCache.evictEvent(event.eventId());
+        liveEventCounters.onEntriesRevised(event.eventId());
     }
 
     @ApplicationModuleListener
     public void onAttendeeCreated(AttendeeCreatedEvent event) {
         orgSummaryRepository.insertIfNotExists(event.organizationId());
         orgSummaryRepository.incrementAttendeeCount(event.organizationId());
+        cohortIndex.invalidateOrganization(event.organizationId());
+    }
+
+    @ApplicationModuleListener
+    public void onAttendeesChanged(AttendeesChangedEvent event) {
+        cohortIndex.invalidateOrganization(event.organizationId());
+        attendancePivotCache.evictOrganization(event.organizationId());
+    }
+
+    @ApplicationModuleListener
+    public void onAttendeesImported(AttendeesImportedEvent event) {
+        // Reactivated attendees count again; the soft delete decremented them
+        orgSummaryRepository.insertIfNotExists(event.organizationId());
+        orgSummaryRepository.incrementAttendeeCountBy(event.organizationId(), event.created() + event.reactivated());
+        cohortIndex.invalidateOrganization(event.organizationId());
+        attendancePivotCache.evictOrganization(event.organizationId());
     }
 
     @ApplicationModuleListener
@@ -67,15 +132,22 @@ class AnalyticsEventListener {
     @ApplicationModuleListener
     public void onAttendeeDeleted(AttendeeDeletedEvent event) {
         orgSummaryRepository.decrementAttendeeCount(event.organizationId());
+        cohortIndex.invalidateOrganization(event.organizationId());
+        attendancePivotCache.evictOrganization(event.organizationId());
     }
 
     @ApplicationModuleListener
     public void onAttendeeBatchDeleted(AttendeeBatchDeletedEvent event) {
         orgSummaryRepository.decrementAttendeeCountBy(event.organizationId(), event.count());
+        cohortIndex.invalidateOrganization(event.organizationId());
+        attendancePivotCache.evictOrganization(event.organizationId());
     }
 
     @ApplicationModuleListener
     public void onAttributeDeleted(AttributeDeletedEvent event) {
         attributeBreakdownRepository.deleteStatsForAttribute(event.organizationId(), event.attributeName());
+        attributeBreakdownRepository.removeAttributeFromCountedAttendees(event.organizationId(), event.attributeName());
+        cohortIndex.invalidateOrganization(event.organizationId());
+        attendancePivotCache.evictOrganization(event.organizationId());
     }
 }
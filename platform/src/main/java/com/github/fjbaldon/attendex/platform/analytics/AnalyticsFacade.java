@@ -3,32 +3,45 @@ package com.github.fjbaldon.attendex.platform.analytics;
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeDto;
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeFacade;
 import com.github.fjbaldon.attendex.platform.capture.CaptureFacade;
-import com.github.fjbaldon.attendex.platform.capture.EntryDetailsDto;
-import com.github.fjbaldon.attendex.platform.capture.EntryEventStatusDto;
-import com.github.fjbaldon.attendex.platform.capture.EventStatsDto;
-import com.github.fjbaldon.attendex.platform.event.EventDto;
 import com.github.fjbaldon.attendex.platform.event.EventFacade;
+import com.github.fjbaldon.attendex.platform.event.SessionDetailsDto;
 import com.github.fjbaldon.attendex.platform.organization.OrganizationFacade;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsFacade {
 
+    private static final int[] TIMELINE_BUCKET_MINUTES = {1, 2, 5, 10, 15, 30, 60, 120, 180, 360, 720, 1440};
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+    private static final int MAX_PIVOT_DIMENSIONS = 3;
+
     private final AttributeBreakdownRepository attributeBreakdownRepository;
     private final OrganizationSummaryRepository organizationSummaryRepository;
     private final EventSummaryRepository eventSummaryRepository;
+    private final SessionSummaryRepository sessionSummaryRepository;
+    private final ScannerSummaryRepository scannerSummaryRepository;
+    private final EntryTimeseriesRepository entryTimeseriesRepository;
+    private final ReadModelReconciler readModelReconciler;
+    private final CohortIndex cohortIndex;
+    private final CohortAttendeeRepository cohortAttendeeRepository;
+    private final AttendeeSummaryRepository attendeeSummaryRepository;
+    private final AttendancePivotRepository attendancePivotRepository;
+    private final AttendancePivotCache attendancePivotCache;
+    private final LiveEventCounters liveEventCounters;
 
     private final CaptureFacade captureFacade;
     private final OrganizationFacade organizationFacade;
@@ -56,6 +69,11 @@ public class AnalyticsFacade {
         return eventSummaryRepository.findById(eventId).map(this::toDto);
     }
 
+    // Not transactional: every chunk of events commits its corrections on its own
+    public ReconciliationReportDto reconcileReadModels() {
+        return readModelReconciler.reconcile();
+    }
+
     @Transactional(readOnly = true)
     public long countTotalOrganizations() {
         return organizationSummaryRepository.count();
@@ -80,28 +98,90 @@ public class AnalyticsFacade {
 
     @Transactional(readOnly = true)
     public EventStatsDto getEventStats(Long organizationId, Long eventId) {
-        return captureFacade.getEventStats(organizationId, eventId);
+        // Served entirely from the read models: three primary-key lookups instead of aggregates over capture_entry
+        EventSummary summary = eventSummaryRepository.findById(eventId)
+                .filter(s -> s.getOrganizationId().equals(organizationId))
+                .orElseThrow(() -> new EntityNotFoundException("Event not found."));
+        double rate = (summary.getRosterCount() > 0)
+                ? ((double) summary.getEntryCount() / summary.getRosterCount()) * 100
+                : 0.0;
+
+        List<SessionSummary> sessions = sessionSummaryRepository.findAllByEventId(eventId);
+        Map<Long, String> sessionNames = eventFacade.getSessionNamesByIds(
+                sessions.stream().map(SessionSummary::getSessionId).collect(Collectors.toSet()));
+        List<EventStatsDto.StatItem> sessionStats = sessions.stream()
+                .map(s -> new EventStatsDto.StatItem(sessionNames.getOrDefault(s.getSessionId(), "Unknown"), s.getEntryCount()))
+                .collect(Collectors.toList());
+
+        List<ScannerSummary> scanners = scannerSummaryRepository.findAllByIdEventId(eventId);
+        Map<Long, String> scannerEmails = organizationFacade.getScannerEmailsByIds(
+                scanners.stream().map(s -> s.getId().getScannerId()).collect(Collectors.toSet()));
+        List<EventStatsDto.StatItem> scannerStats = scanners.stream()
+                .map(s -> new EventStatsDto.StatItem(scannerEmails.getOrDefault(s.getId().getScannerId(), "Unknown"), s.getEntryCount()))
+                .collect(Collectors.toList());
+
+        return new EventStatsDto(
+                summary.getEntryCount(),
+                summary.getRosterCount(),
+                rate,
+                summary.getFirstScanAt(),
+                summary.getLastScanAt(),
+                sessionStats,
+                scannerStats
+        );
     }
 
     @Transactional(readOnly = true)
-    public CohortStatsDto getCohortStats(Long organizationId, Long eventId, CohortStatsRequest request) {
-        // 1. Get filtered attendee IDs based on attributes
-        List<Long> attributeMatchingIds = attendeeFacade.findAttendeeIdsByAttributes(organizationId, request.filters());
-        if (attributeMatchingIds.isEmpty()) return new CohortStatsDto(0, 0, 0, 0.0);
-
-        // 2. Get Roster IDs for the event
-        Set<Long> rosterIds = eventFacade.findAllAttendeeIdsForEvent(eventId);
+    public TimelineDto getTimeline(Long organizationId, Long eventId, Long sessionId, Instant from, Instant to, int maxPoints) {
+        eventSummaryRepository.findById(eventId)
+                .filter(s -> s.getOrganizationId().equals(organizationId))
+                .orElseThrow(() -> new EntityNotFoundException("Event not found."));
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException("maxPoints must be positive.");
+        }
 
-        // 3. Intersect: Find attendees who match the profile AND are in the roster
-        List<Long> actualCohortIds = attributeMatchingIds.stream()
-                .filter(rosterIds::contains)
+        List<SessionDetailsDto> schedule = eventFacade.findSessionSchedules(Set.of(eventId)).getOrDefault(eventId, List.of());
+        Map<Long, String> sessionNames = eventFacade.getSessionNamesByIds(
+                schedule.stream().map(SessionDetailsDto::sessionId).collect(Collectors.toSet()));
+        List<TimelineDto.SessionMarker> markers = schedule.stream()
+                .filter(session -> sessionId == null || session.sessionId().equals(sessionId))
+                .sorted(Comparator.comparing(SessionDetailsDto::targetTime))
+                .map(session -> new TimelineDto.SessionMarker(
+                        session.sessionId(), sessionNames.getOrDefault(session.sessionId(), "Unknown"), session.targetTime()))
                 .collect(Collectors.toList());
 
-        if (actualCohortIds.isEmpty()) return new CohortStatsDto(0, 0, 0, 0.0);
+        // Without an explicit range the timeline spans every minute that has arrivals
+        Optional<EntryTimeseriesRepository.Range> scanned = entryTimeseriesRepository.findRange(eventId, sessionId);
+        Instant start = from != null ? from : scanned.map(EntryTimeseriesRepository.Range::firstBucket).orElse(null);
+        Instant end = to != null ? to : scanned.map(range -> range.lastBucket().plus(1, ChronoUnit.MINUTES)).orElse(null);
+        if (start == null || end == null || !start.isBefore(end)) {
+            return new TimelineDto(eventId, sessionId, 1, List.of(), markers);
+        }
+
+        int bucketMinutes = bucketMinutesFor(Duration.between(start, end), maxPoints);
+        List<TimelineDto.Point> points = entryTimeseriesRepository.findBuckets(eventId, sessionId, start, end, bucketMinutes);
+        return new TimelineDto(eventId, sessionId, bucketMinutes, points, markers);
+    }
 
-        // 4. Count how many of these are present
-        long present = captureFacade.countPresentFromList(eventId, request.sessionId(), actualCohortIds);
-        long total = actualCohortIds.size();
+    // Smallest readable bucket width that keeps the range within maxPoints buckets
+    private static int bucketMinutesFor(Duration range, int maxPoints) {
+        long minutes = Math.max(1, range.toMinutes());
+        for (int width : TIMELINE_BUCKET_MINUTES) {
+            if (minutes <= (long) width * maxPoints) {
+                return width;
+            }
+        }
+        long days = (minutes + (long) maxPoints * 1440 - 1) / ((long) maxPoints * 1440);
+        return (int) Math.min(days * 1440, Integer.MAX_VALUE);
+    }
+
+    public CohortStatsDto getCohortStats(Long organizationId, Long eventId, CohortStatsRequest request) {
+        // Bitmap ANDs over the cohort index; no attendee IDs leave the process
+        Roaring64Bitmap cohort = cohortIndex.findCohort(organizationId, eventId, request.filters());
+        long total = cohort.getLongCardinality();
+        if (total == 0) return new CohortStatsDto(0, 0, 0, 0.0);
+
+        long present = cohortIndex.countPresent(eventId, request.sessionId(), cohort);
         long absent = total - present;
         double rate = (double) present / total * 100.0;
 
@@ -110,137 +190,162 @@ public class AnalyticsFacade {
 
     @Transactional(readOnly = true)
     public Page<CohortAttendeeDto> getCohortAttendees(Long organizationId, Long eventId, CohortStatsRequest request, Pageable pageable) {
-        // 1. Get the Target Population (Cohort IDs)
-        List<Long> attributeMatchingIds = attendeeFacade.findAttendeeIdsByAttributes(organizationId, request.filters());
-        Set<Long> rosterIds = eventFacade.findAllAttendeeIdsForEvent(eventId);
-
-        List<Long> cohortIds = attributeMatchingIds.stream()
-                .filter(rosterIds::contains)
-                .collect(Collectors.toList());
+        // The rows and the total come from one query, so they always agree
+        return cohortAttendeeRepository.findPage(organizationId, eventId, request.sessionId(), request.filters(), pageable);
+    }
 
-        if (cohortIds.isEmpty()) return Page.empty(pageable);
+    @Transactional(readOnly = true)
+    public CohortAttendeeSliceDto getCohortAttendeesAfter(Long organizationId, Long eventId, CohortStatsRequest request, Long afterId, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive.");
+        }
+        // One extra row tells whether another page follows
+        List<CohortAttendeeDto> attendees = cohortAttendeeRepository.findAfter(
+                organizationId, eventId, request.sessionId(), request.filters(), afterId, size + 1);
+        if (attendees.size() <= size) {
+            return new CohortAttendeeSliceDto(attendees, null);
+        }
+        List<CohortAttendeeDto> page = attendees.subList(0, size);
+        return new CohortAttendeeSliceDto(List.copyOf(page), page.getLast().id());
+    }
 
-        // 2. Pagination in Memory (since ID list is filtered in memory)
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), cohortIds.size());
+    @Transactional(readOnly = true)
+    public AttendeeHistoryDto getAttendeeHistory(Long organizationId, Long attendeeId) {
+        AttendeeDto attendee = attendeeFacade.findAttendeeById(attendeeId, organizationId)
+                .orElseThrow(() -> new EntityNotFoundException("Attendee not found"));
 
-        if (start > cohortIds.size()) return Page.empty(pageable);
+        // Served from the attendee summary read model: per-event counts and per-session rows of this attendee only
+        Optional<AttendeeSummaryRepository.Totals> totals = attendeeSummaryRepository.findTotals(attendeeId);
+        List<AttendeeHistoryItemDto> history = attendeeSummaryRepository.findHistory(attendeeId, Instant.now());
 
-        List<Long> pagedIds = cohortIds.subList(start, end);
-        List<AttendeeDto> attendeeDetails = attendeeFacade.findAttendeesByIds(pagedIds);
+        int totalSessions = totals.map(AttendeeSummaryRepository.Totals::sessionsTotal).orElse(0);
+        int attendedSessions = totals.map(AttendeeSummaryRepository.Totals::sessionsAttended).orElse(0);
+        double rate = (totalSessions == 0) ? 0.0 : ((double) attendedSessions / totalSessions) * 100;
 
-        // 3. Check Presence
-        List<EntryDetailsDto> entries;
-        if (request.sessionId() != null) {
-            // Find entries specifically for this session
-            entries = captureFacade.findEntriesForSession(organizationId, request.sessionId(), pagedIds);
-        } else {
-            // Find entries for the whole event (sessionId = null, intent = null)
-            // FIXED: Added 5th argument (null for intent)
-            entries = captureFacade.findFilteredEntries(organizationId, eventId, null, null, pagedIds);
-        }
+        return new AttendeeHistoryDto(
+                attendee,
+                history.size(),
+                attendedSessions,
+                totals.map(AttendeeSummaryRepository.Totals::sessionsAbsent).orElse(0),
+                rate,
+                history
+        );
+    }
 
-        Map<Long, EntryDetailsDto> entryMap = entries.stream()
-                .filter(e -> e.attendee() != null && e.attendee().id() != null)
-                .collect(Collectors.toMap(e -> e.attendee().id(), Function.identity(), (e1, e2) -> e1));
-
-        List<CohortAttendeeDto> dtos = attendeeDetails.stream().map(a -> {
-            EntryDetailsDto entry = entryMap.get(a.id());
-            boolean isPresent = entry != null;
-            return new CohortAttendeeDto(
-                    a.id(),
-                    a.identity(),
-                    a.firstName(),
-                    a.lastName(),
-                    isPresent ? "PRESENT" : "ABSENT",
-                    isPresent ? entry.scanTimestamp() : null,
-                    a.attributes()
-            );
-        }).collect(Collectors.toList());
-
-        return new PageImpl<>(dtos, pageable, cohortIds.size());
+    @Transactional(readOnly = true)
+    public List<AttendeeLeaderboardEntryDto> getLowestAttendance(Long organizationId, int limit) {
+        return attendeeSummaryRepository.findLowestAttendance(organizationId, checkLeaderboardLimit(limit));
     }
 
     @Transactional(readOnly = true)
-    public AttendeeHistoryDto getAttendeeHistory(Long organizationId, Long attendeeId) {
-        AttendeeDto attendee = attendeeFacade.findAttendeeById(attendeeId, organizationId)
-                .orElseThrow(() -> new EntityNotFoundException("Attendee not found"));
+    public List<AttendeeLeaderboardEntryDto> getMostLate(Long organizationId, int limit) {
+        return attendeeSummaryRepository.findMostLate(organizationId, checkLeaderboardLimit(limit));
+    }
 
-        List<EventDto> events = eventFacade.findEventsForAttendee(attendeeId);
-        List<EntryEventStatusDto> entries = captureFacade.getEntryStatusesForAttendee(attendeeId);
-
-        Map<Long, EntryEventStatusDto> entryMap = entries.stream()
-                .filter(e -> e.sessionId() != null)
-                .collect(Collectors.toMap(EntryEventStatusDto::sessionId, Function.identity(), (e1, e2) -> e1));
-
-        List<AttendeeHistoryItemDto> history = new ArrayList<>();
-        int totalSessionsGlobal = 0;
-        int attendedSessionsGlobal = 0;
-        int realAbsentSessionsGlobal = 0;
-        Instant now = Instant.now();
-
-        for (EventDto event : events) {
-            List<SessionHistoryItemDto> sessionHistory = new ArrayList<>();
-            int eventSessionsCompleted = 0;
-
-            for (var session : event.sessions()) {
-                EntryEventStatusDto entry = entryMap.get(session.id());
-                String status;
-                Instant scanTime = null;
-
-                if (entry != null) {
-                    status = "PUNCTUAL".equals(entry.punctuality()) ? "PRESENT" : entry.punctuality();
-                    scanTime = entry.scanTimestamp();
-                    eventSessionsCompleted++;
-                    attendedSessionsGlobal++;
-                } else {
-                    Instant sessionRelevanceEnd = session.targetTime().plus(4, java.time.temporal.ChronoUnit.HOURS);
-                    if (event.endDate().isBefore(sessionRelevanceEnd)) {
-                        sessionRelevanceEnd = event.endDate();
-                    }
-
-                    if (now.isAfter(sessionRelevanceEnd)) {
-                        status = "ABSENT";
-                        realAbsentSessionsGlobal++;
-                    } else {
-                        status = "PENDING";
-                    }
-                }
+    private static int checkLeaderboardLimit(int limit) {
+        if (limit < 1 || limit > MAX_LEADERBOARD_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LEADERBOARD_SIZE + ".");
+        }
+        return limit;
+    }
 
-                totalSessionsGlobal++;
+    @Transactional(readOnly = true)
+    public AttendancePivotDto getAttendancePivot(Long organizationId, Long eventId, AttendancePivotRequest request) {
+        EventSummary summary = eventSummaryRepository.findById(eventId)
+                .filter(s -> s.getOrganizationId().equals(organizationId))
+                .orElseThrow(() -> new EntityNotFoundException("Event not found."));
+        List<AttendancePivotRequest.Dimension> dimensions = checkPivotDimensions(request);
+
+        // Served from the cache while the event has seen no new entries or roster changes
+        AttendancePivotCache.Watermark watermark = AttendancePivotCache.Watermark.of(summary);
+        Optional<AttendancePivotDto> cached = attendancePivotCache.find(eventId, dimensions, watermark);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
 
-                sessionHistory.add(new SessionHistoryItemDto(
-                        session.id(),
-                        session.activityName(),
-                        session.intent(),
-                        session.targetTime(),
-                        status,
-                        scanTime
-                ));
+        List<AttendancePivotRepository.Row> rows = attendancePivotRepository.findPivot(eventId, dimensions);
+        Map<Long, String> sessionNames = eventFacade.getSessionNamesByIds(
+                pivotIds(rows, dimensions, AttendancePivotRequest.DimensionType.SESSION));
+        Map<Long, String> scannerEmails = organizationFacade.getScannerEmailsByIds(
+                pivotIds(rows, dimensions, AttendancePivotRequest.DimensionType.SCANNER));
+
+        List<AttendancePivotDto.Cell> cells = new ArrayList<>(rows.size());
+        for (AttendancePivotRepository.Row row : rows) {
+            List<AttendancePivotDto.Coordinate> coordinates = new ArrayList<>();
+            boolean entriesOnly = false;
+            for (int i = 0; i < dimensions.size(); i++) {
+                if (!row.isGroupedBy(i, dimensions.size())) {
+                    continue;
+                }
+                AttendancePivotRequest.DimensionType type = dimensions.get(i).type();
+                String value = row.values().get(i);
+                String label = switch (type) {
+                    case SESSION -> value == null ? "Unscheduled" : sessionNames.getOrDefault(Long.valueOf(value), "Unknown");
+                    case SCANNER -> value == null ? "Unknown" : scannerEmails.getOrDefault(Long.valueOf(value), "Unknown");
+                    case ATTRIBUTE, PUNCTUALITY -> value;
+                };
+                entriesOnly |= type != AttendancePivotRequest.DimensionType.ATTRIBUTE;
+                coordinates.add(new AttendancePivotDto.Coordinate(i, value, label));
             }
+            // Roster rows have no session, punctuality or scanner; grouped by one, they only form an empty null cell
+            if (entriesOnly && row.entryCount() == 0) {
+                continue;
+            }
+            cells.add(new AttendancePivotDto.Cell(
+                    coordinates, entriesOnly ? null : row.rosterCount(), row.attendeeCount(), row.entryCount()));
+        }
 
-            sessionHistory.sort(Comparator.comparing(SessionHistoryItemDto::targetTime));
+        AttendancePivotDto pivot = new AttendancePivotDto(eventId, dimensions, cells);
+        attendancePivotCache.put(organizationId, watermark, pivot);
+        return pivot;
+    }
 
-            history.add(new AttendeeHistoryItemDto(
-                    event.id(),
-                    event.name(),
-                    event.startDate(),
-                    eventSessionsCompleted,
-                    event.sessions().size(),
-                    sessionHistory
-            ));
-        }
+    public SseEmitter subscribeToLiveCounters(Long organizationId, Long eventId) {
+        eventSummaryRepository.findById(eventId)
+                .filter(s -> s.getOrganizationId().equals(organizationId))
+                .orElseThrow(() -> new EntityNotFoundException("Event not found."));
+        return liveEventCounters.subscribe(eventId);
+    }
 
-        double rate = (totalSessionsGlobal == 0) ? 0.0 : ((double) attendedSessionsGlobal / totalSessionsGlobal) * 100;
+    private static List<AttendancePivotRequest.Dimension> checkPivotDimensions(AttendancePivotRequest request) {
+        List<AttendancePivotRequest.Dimension> dimensions = request.dimensions();
+        if (dimensions == null || dimensions.isEmpty() || dimensions.size() > MAX_PIVOT_DIMENSIONS) {
+            throw new IllegalArgumentException("A pivot needs between 1 and " + MAX_PIVOT_DIMENSIONS + " dimensions.");
+        }
+        for (AttendancePivotRequest.Dimension dimension : dimensions) {
+            if (dimension == null || dimension.type() == null) {
+                throw new IllegalArgumentException("Every pivot dimension needs a type.");
+            }
+            if (dimension.type() == AttendancePivotRequest.DimensionType.ATTRIBUTE
+                    && (dimension.attribute() == null || dimension.attribute().isBlank())) {
+                throw new IllegalArgumentException("Attribute dimensions need an attribute name.");
+            }
+        }
+        // Attribute names only matter for attribute dimensions
+        List<AttendancePivotRequest.Dimension> normalized = dimensions.stream()
+                .map(d -> d.type() == AttendancePivotRequest.DimensionType.ATTRIBUTE
+                        ? d : new AttendancePivotRequest.Dimension(d.type(), null))
+                .toList();
+        if (new HashSet<>(normalized).size() != normalized.size()) {
+            throw new IllegalArgumentException("Pivot dimensions must be distinct.");
+        }
+        return normalized;
+    }
 
-        return new AttendeeHistoryDto(
-                attendee,
-                events.size(),
-                attendedSessionsGlobal,
-                realAbsentSessionsGlobal,
-                rate,
-                history
-        );
+    private static Set<Long> pivotIds(List<AttendancePivotRepository.Row> rows, List<AttendancePivotRequest.Dimension> dimensions,
+                                      AttendancePivotRequest.DimensionType type) {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            if (dimensions.get(i).type() != type) {
+                continue;
+            }
+            for (AttendancePivotRepository.Row row : rows) {
+                if (row.values().get(i) != null) {
+                    ids.add(Long.valueOf(row.values().get(i)));
+                }
+            }
+        }
+        return ids;
     }
 
     private OrganizationSummaryDto toDto(OrganizationSummary summary) {
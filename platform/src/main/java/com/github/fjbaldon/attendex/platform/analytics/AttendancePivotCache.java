@@ -0,0 +1,61 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Computed pivots keyed by event and dimensions. Each one remembers the event summary's entry watermark it
+ * was computed at and is only served while the watermark is unchanged, so new entries invalidate it without
+ * any listener. Changes the watermark does not capture evict explicitly: revised entries, attendee attributes
+ * and deletions, and roster changes, since a removal and an addition leave the roster count as it was.
+ */
+@Component
+class AttendancePivotCache {
+
+    private final LinkedHashMap<Key, Cached> entries;
+
+    AttendancePivotCache(@Value("${app.analytics.pivot-cache.max-entries:500}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    record Watermark(long entryCount, long rosterCount, Instant lastScanAt) {
+
+        static Watermark of(EventSummary summary) {
+            return new Watermark(summary.getEntryCount(), summary.getRosterCount(), summary.getLastScanAt());
+        }
+    }
+
+    synchronized Optional<AttendancePivotDto> find(Long eventId, List<AttendancePivotRequest.Dimension> dimensions, Watermark watermark) {
+        Cached cached = entries.get(new Key(eventId, dimensions));
+        return cached != null && cached.watermark.equals(watermark) ? Optional.of(cached.pivot) : Optional.empty();
+    }
+
+    synchronized void put(Long organizationId, Watermark watermark, AttendancePivotDto pivot) {
+        entries.put(new Key(pivot.eventId(), pivot.dimensions()), new Cached(organizationId, watermark, pivot));
+    }
+
+    synchronized void evictEvent(Long eventId) {
+        entries.keySet().removeIf(key -> key.eventId.equals(eventId));
+    }
+
+    synchronized void evictOrganization(Long organizationId) {
+        entries.values().removeIf(cached -> cached.organizationId.equals(organizationId));
+    }
+
+    private record Key(Long eventId, List<AttendancePivotRequest.Dimension> dimensions) {
+    }
+
+    private record Cached(Long organizationId, Watermark watermark, AttendancePivotDto pivot) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import java.util.List;
+
+// Every combination of the requested dimensions, including the subtotals and the grand total
+public record AttendancePivotDto(
+        Long eventId,
+        List<AttendancePivotRequest.Dimension> dimensions,
+        List<Cell> cells
+) {
+    public record Cell(
+            List<Coordinate> coordinates, // Only the dimensions this cell is grouped by; empty for the grand total
+            Long rosterCount, // Rostered attendees; null when grouped by a dimension that only entries have
+            long attendeeCount, // Distinct attendees with at least one entry
+            long entryCount
+    ) {
+    }
+
+    public record Coordinate(
+            int dimension, // Index into dimensions
+            String value, // Null for entries without a session or attendees without the attribute
+            String label
+    ) {
+    }
+}
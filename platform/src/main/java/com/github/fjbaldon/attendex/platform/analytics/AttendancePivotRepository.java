@@ -0,0 +1,90 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes an attendance pivot of one event in a single statement: the roster and the event's entries are
+ * stacked into one row set, projected onto the requested dimensions and aggregated with GROUP BY CUBE, so
+ * every subtotal comes out of the same scan. Roster rows only contribute to the roster count, and only for
+ * active attendees, as in the cohort index.
+ */
+@Repository
+@RequiredArgsConstructor
+class AttendancePivotRepository {
+
+    // Dimension columns are spliced in from a fixed set of expressions; attribute names are bound
+    private static final String PIVOT = """
+            SELECT %1$s, GROUPING(%1$s) AS grouping_mask,
+                   COUNT(DISTINCT attendee_id) FILTER (WHERE entry_id IS NULL) AS roster_count,
+                   COUNT(DISTINCT attendee_id) FILTER (WHERE entry_id IS NOT NULL) AS attendee_count,
+                   COUNT(entry_id) AS entry_count
+            FROM (
+                SELECT b.attendee_id, b.entry_id, %2$s
+                FROM (
+                    SELECT r.attendee_id, NULL::bigint AS entry_id, a.attributes, NULL::bigint AS session_id,
+                           NULL::varchar AS punctuality, NULL::bigint AS scanner_id
+                    FROM event_roster_entry r
+                    JOIN attendee_attendee a ON a.id = r.attendee_id
+                    WHERE r.event_id = ? AND a.deleted_at IS NULL
+                    UNION ALL
+                    SELECT c.attendee_id, c.id, c.snapshot_attributes, c.session_id, c.punctuality, c.scanner_id
+                    FROM capture_entry c
+                    WHERE c.event_id = ?
+                ) b
+            ) x
+            GROUP BY CUBE (%1$s)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    record Row(List<String> values, int groupingMask, long rosterCount, long attendeeCount, long entryCount) {
+
+        // GROUPING() sets the bit of an aggregated-away column, the first column being the highest bit
+        boolean isGroupedBy(int dimension, int dimensionCount) {
+            return (groupingMask & (1 << (dimensionCount - 1 - dimension))) == 0;
+        }
+    }
+
+    List<Row> findPivot(Long eventId, List<AttendancePivotRequest.Dimension> dimensions) {
+        List<String> columns = new ArrayList<>();
+        List<String> projections = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            AttendancePivotRequest.Dimension dimension = dimensions.get(i);
+            String column = "d" + i;
+            columns.add(column);
+            projections.add(switch (dimension.type()) {
+                case ATTRIBUTE -> {
+                    params.add(dimension.attribute());
+                    yield "b.attributes ->> ? AS " + column;
+                }
+                case SESSION -> "b.session_id::text AS " + column;
+                case PUNCTUALITY -> "b.punctuality AS " + column;
+                case SCANNER -> "b.scanner_id::text AS " + column;
+            });
+        }
+        params.add(eventId);
+        params.add(eventId);
+
+        String sql = PIVOT.formatted(String.join(", ", columns), String.join(", ", projections));
+        int count = dimensions.size();
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(rs.getString("d" + i));
+            }
+            return new Row(
+                    values,
+                    rs.getInt("grouping_mask"),
+                    rs.getLong("roster_count"),
+                    rs.getLong("attendee_count"),
+                    rs.getLong("entry_count")
+            );
+        }, params.toArray());
+    }
+}
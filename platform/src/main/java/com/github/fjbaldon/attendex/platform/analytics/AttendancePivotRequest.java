@@ -0,0 +1,20 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import java.util.List;
+
+public record AttendancePivotRequest(
+        List<Dimension> dimensions // One to three, in output order
+) {
+    public enum DimensionType {
+        ATTRIBUTE, // Attendee attribute as snapshotted on the entry; roster members without entries use their current value
+        SESSION,
+        PUNCTUALITY,
+        SCANNER
+    }
+
+    public record Dimension(
+            DimensionType type,
+            String attribute // Attribute name, for ATTRIBUTE dimensions only
+    ) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+public record AttendeeLeaderboardEntryDto(
+        Long attendeeId,
+        String identity,
+        String firstName,
+        String lastName,
+        int eventsTotal,
+        int sessionsTotal,
+        int sessionsAttended,
+        int sessionsLate,
+        int sessionsAbsent,
+        Double attendanceRate // Over attended and absent sessions; null until one is decided
+) {
+}
@@ -0,0 +1,324 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Recomputes analytics_attendee_summary rows, and the analytics_attendee_session rows behind them, from the
+ * roster, sessions and entries, scoped to a set of (event, attendee) pairs or to whole events, and writes
+ * back only the rows that differ. The refresh statements return the attendees whose rows changed, whose
+ * totals are then refreshed the same way.
+ */
+@Repository
+@RequiredArgsConstructor
+class AttendeeSummaryRepository {
+
+    // Appended to a `pairs` CTE of (event_id, attendee_id); mirrors the statuses of the attendee history
+    private static final String REFRESH_PAIRS = """
+            , expected AS (
+                SELECT p.event_id, p.attendee_id, ev.organization_id,
+                       COUNT(s.id) AS sessions_total,
+                       COUNT(c.id) AS sessions_attended,
+                       COUNT(c.id) FILTER (WHERE c.punctuality = 'LATE') AS sessions_late,
+                       COUNT(s.id) FILTER (WHERE c.id IS NULL
+                           AND LEAST(s.target_time + INTERVAL '4 hours', ev.end_date) < now()) AS sessions_absent
+                FROM pairs p
+                JOIN event_roster_entry r ON r.event_id = p.event_id AND r.attendee_id = p.attendee_id
+                JOIN event_event ev ON ev.id = p.event_id AND ev.deleted_at IS NULL
+                LEFT JOIN event_session s ON s.event_id = p.event_id
+                LEFT JOIN capture_entry c ON c.session_id = s.id AND c.attendee_id = p.attendee_id
+                GROUP BY p.event_id, p.attendee_id, ev.organization_id
+            ), upserted AS (
+                INSERT INTO analytics_attendee_summary (attendee_id, event_id, organization_id, sessions_total,
+                                                        sessions_attended, sessions_late, sessions_absent)
+                SELECT attendee_id, event_id, organization_id, sessions_total, sessions_attended, sessions_late, sessions_absent
+                FROM expected
+                ON CONFLICT (attendee_id, event_id) DO UPDATE
+                    SET sessions_total = EXCLUDED.sessions_total,
+                        sessions_attended = EXCLUDED.sessions_attended,
+                        sessions_late = EXCLUDED.sessions_late,
+                        sessions_absent = EXCLUDED.sessions_absent
+                    WHERE (analytics_attendee_summary.sessions_total, analytics_attendee_summary.sessions_attended,
+                           analytics_attendee_summary.sessions_late, analytics_attendee_summary.sessions_absent)
+                          IS DISTINCT FROM (EXCLUDED.sessions_total, EXCLUDED.sessions_attended,
+                                            EXCLUDED.sessions_late, EXCLUDED.sessions_absent)
+                RETURNING attendee_id
+            ), removed AS (
+                DELETE FROM analytics_attendee_summary t
+                USING pairs p
+                WHERE t.event_id = p.event_id AND t.attendee_id = p.attendee_id
+                  AND NOT EXISTS (SELECT 1 FROM expected x WHERE x.event_id = t.event_id AND x.attendee_id = t.attendee_id)
+                RETURNING t.attendee_id
+            )
+            SELECT attendee_id FROM upserted
+            UNION ALL
+            SELECT attendee_id FROM removed
+            """;
+
+    // Appended to the same `pairs` CTE; keeps analytics_attendee_session in step with the summary rows
+    private static final String REFRESH_SESSIONS = """
+            , expected AS (
+                SELECT p.attendee_id, s.id AS session_id, p.event_id, s.activity_name, s.intent, s.target_time,
+                       LEAST(s.target_time + INTERVAL '4 hours', ev.end_date) AS closes_at,
+                       c.punctuality, c.scan_timestamp AS scan_time
+                FROM pairs p
+                JOIN event_roster_entry r ON r.event_id = p.event_id AND r.attendee_id = p.attendee_id
+                JOIN event_event ev ON ev.id = p.event_id AND ev.deleted_at IS NULL
+                JOIN event_session s ON s.event_id = p.event_id
+                LEFT JOIN capture_entry c ON c.session_id = s.id AND c.attendee_id = p.attendee_id
+            ), upserted AS (
+                INSERT INTO analytics_attendee_session (attendee_id, session_id, event_id, activity_name, intent,
+                                                        target_time, closes_at, punctuality, scan_time)
+                SELECT attendee_id, session_id, event_id, activity_name, intent, target_time, closes_at, punctuality, scan_time
+                FROM expected
+                ON CONFLICT (attendee_id, session_id) DO UPDATE
+                    SET event_id = EXCLUDED.event_id,
+                        activity_name = EXCLUDED.activity_name,
+                        intent = EXCLUDED.intent,
+                        target_time = EXCLUDED.target_time,
+                        closes_at = EXCLUDED.closes_at,
+                        punctuality = EXCLUDED.punctuality,
+                        scan_time = EXCLUDED.scan_time
+                    WHERE (analytics_attendee_session.activity_name, analytics_attendee_session.intent,
+                           analytics_attendee_session.target_time, analytics_attendee_session.closes_at,
+                           analytics_attendee_session.punctuality, analytics_attendee_session.scan_time)
+                          IS DISTINCT FROM (EXCLUDED.activity_name, EXCLUDED.intent, EXCLUDED.target_time,
+                                            EXCLUDED.closes_at, EXCLUDED.punctuality, EXCLUDED.scan_time)
+                RETURNING 1
+            )
+            DELETE FROM analytics_attendee_session t
+            USING pairs p
+            WHERE t.event_id = p.event_id AND t.attendee_id = p.attendee_id
+              AND NOT EXISTS (SELECT 1 FROM expected x WHERE x.attendee_id = t.attendee_id AND x.session_id = t.session_id)
+            """;
+
+    private static final String PAIRS_FROM_ARRAYS = """
+            WITH pairs AS (
+                SELECT DISTINCT event_id, attendee_id FROM unnest(?::bigint[], ?::bigint[]) AS p(event_id, attendee_id)
+            )
+            """;
+
+    // Current roster plus rows left over from attendees who were removed or events that were deleted
+    private static final String PAIRS_FROM_EVENTS = """
+            WITH pairs AS (
+                SELECT event_id, attendee_id FROM event_roster_entry WHERE event_id = ANY(?)
+                UNION
+                SELECT event_id, attendee_id FROM analytics_attendee_summary WHERE event_id = ANY(?)
+            )
+            """;
+
+    private static final String REFRESH_TOTALS = """
+            WITH expected AS (
+                SELECT attendee_id, MIN(organization_id) AS organization_id, COUNT(*) AS events_total,
+                       SUM(sessions_total) AS sessions_total, SUM(sessions_attended) AS sessions_attended,
+                       SUM(sessions_late) AS sessions_late, SUM(sessions_absent) AS sessions_absent
+                FROM analytics_attendee_summary
+                WHERE attendee_id = ANY(?)
+                GROUP BY attendee_id
+            ), upserted AS (
+                INSERT INTO analytics_attendee_totals (attendee_id, organization_id, events_total, sessions_total,
+                                                       sessions_attended, sessions_late, sessions_absent)
+                SELECT attendee_id, organization_id, events_total, sessions_total, sessions_attended, sessions_late, sessions_absent
+                FROM expected
+                ON CONFLICT (attendee_id) DO UPDATE
+                    SET events_total = EXCLUDED.events_total,
+                        sessions_total = EXCLUDED.sessions_total,
+                        sessions_attended = EXCLUDED.sessions_attended,
+                        sessions_late = EXCLUDED.sessions_late,
+                        sessions_absent = EXCLUDED.sessions_absent
+                RETURNING 1
+            )
+            DELETE FROM analytics_attendee_totals t
+            WHERE t.attendee_id = ANY(?)
+              AND NOT EXISTS (SELECT 1 FROM expected x WHERE x.attendee_id = t.attendee_id)
+            """;
+
+    // Events with a session whose relevance window closed in the interval; their absences just changed
+    private static final String FIND_EVENTS_WITH_SESSIONS_CLOSED = """
+            SELECT DISTINCT s.event_id
+            FROM event_session s
+            JOIN event_event ev ON ev.id = s.event_id AND ev.deleted_at IS NULL
+            WHERE LEAST(s.target_time + INTERVAL '4 hours', ev.end_date) >= ?
+              AND LEAST(s.target_time + INTERVAL '4 hours', ev.end_date) < ?
+            """;
+
+    private static final String FIND_EVENT_ROWS = """
+            SELECT event_id, sessions_total, sessions_attended, sessions_late, sessions_absent
+            FROM analytics_attendee_summary
+            WHERE attendee_id = ?
+            """;
+
+    // Events newest first, each followed by its sessions in schedule order; an event without sessions has one row
+    private static final String FIND_HISTORY = """
+            SELECT t.event_id, ev.name AS event_name, ev.start_date, t.sessions_total, t.sessions_attended,
+                   s.session_id, s.activity_name, s.intent, s.target_time, s.closes_at, s.punctuality, s.scan_time
+            FROM analytics_attendee_summary t
+            JOIN event_event ev ON ev.id = t.event_id AND ev.deleted_at IS NULL
+            LEFT JOIN analytics_attendee_session s ON s.attendee_id = t.attendee_id AND s.event_id = t.event_id
+            WHERE t.attendee_id = ?
+            ORDER BY ev.start_date DESC, t.event_id, s.target_time, s.session_id
+            """;
+
+    private static final String FIND_TOTALS = """
+            SELECT events_total, sessions_total, sessions_attended, sessions_late, sessions_absent, attendance_rate
+            FROM analytics_attendee_totals
+            WHERE attendee_id = ?
+            """;
+
+    private static final String FIND_LOWEST_ATTENDANCE = """
+            SELECT t.attendee_id, a.identity, a.first_name, a.last_name, t.events_total, t.sessions_total,
+                   t.sessions_attended, t.sessions_late, t.sessions_absent, t.attendance_rate
+            FROM analytics_attendee_totals t
+            JOIN attendee_attendee a ON a.id = t.attendee_id AND a.deleted_at IS NULL
+            WHERE t.organization_id = ? AND t.attendance_rate IS NOT NULL
+            ORDER BY t.attendance_rate, t.attendee_id
+            LIMIT ?
+            """;
+
+    private static final String FIND_MOST_LATE = """
+            SELECT t.attendee_id, a.identity, a.first_name, a.last_name, t.events_total, t.sessions_total,
+                   t.sessions_attended, t.sessions_late, t.sessions_absent, t.attendance_rate
+            FROM analytics_attendee_totals t
+            JOIN attendee_attendee a ON a.id = t.attendee_id AND a.deleted_at IS NULL
+            WHERE t.organization_id = ? AND t.sessions_late > 0
+            ORDER BY t.sessions_late DESC, t.attendee_id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    record EventRow(Long eventId, int sessionsTotal, int sessionsAttended, int sessionsLate, int sessionsAbsent) {
+    }
+
+    record Totals(int eventsTotal, int sessionsTotal, int sessionsAttended, int sessionsLate, int sessionsAbsent, Double attendanceRate) {
+    }
+
+    // Parallel arrays of (event, attendee) pairs; returns the attendees whose rows changed
+    List<Long> refreshPairs(Long[] eventIds, Long[] attendeeIds) {
+        PreparedStatementSetter pairs = ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", eventIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", attendeeIds));
+        };
+        jdbcTemplate.update(PAIRS_FROM_ARRAYS + REFRESH_SESSIONS, pairs);
+        return jdbcTemplate.query(PAIRS_FROM_ARRAYS + REFRESH_PAIRS, pairs, (rs, rowNum) -> rs.getLong(1));
+    }
+
+    // The session rows go first: PAIRS_FROM_EVENTS reads the summary rows the second statement may delete
+    List<Long> refreshEvents(Collection<Long> eventIds) {
+        jdbcTemplate.update(PAIRS_FROM_EVENTS + REFRESH_SESSIONS, ps -> bindIds(ps, eventIds, 2));
+        return jdbcTemplate.query(PAIRS_FROM_EVENTS + REFRESH_PAIRS, ps -> bindIds(ps, eventIds, 2),
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    void refreshTotals(Collection<Long> attendeeIds) {
+        jdbcTemplate.update(REFRESH_TOTALS, ps -> bindIds(ps, attendeeIds, 2));
+    }
+
+    List<Long> findEventsWithSessionsClosedBetween(Instant from, Instant to) {
+        return jdbcTemplate.queryForList(FIND_EVENTS_WITH_SESSIONS_CLOSED, Long.class,
+                from.atOffset(ZoneOffset.UTC), to.atOffset(ZoneOffset.UTC));
+    }
+
+    List<EventRow> findEventRows(Long attendeeId) {
+        return jdbcTemplate.query(FIND_EVENT_ROWS, (rs, rowNum) -> new EventRow(
+                rs.getLong("event_id"),
+                rs.getInt("sessions_total"),
+                rs.getInt("sessions_attended"),
+                rs.getInt("sessions_late"),
+                rs.getInt("sessions_absent")
+        ), attendeeId);
+    }
+
+    /**
+     * The attendee's events with the status of each session at {@code now}: the punctuality of its entry
+     * (PUNCTUAL shown as PRESENT), otherwise ABSENT once the session's window has closed, else PENDING.
+     */
+    List<AttendeeHistoryItemDto> findHistory(Long attendeeId, Instant now) {
+        Map<Long, AttendeeHistoryItemDto> history = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_HISTORY, rs -> {
+            Long eventId = rs.getLong("event_id");
+            AttendeeHistoryItemDto event = history.get(eventId);
+            if (event == null) {
+                event = new AttendeeHistoryItemDto(
+                        eventId,
+                        rs.getString("event_name"),
+                        rs.getObject("start_date", OffsetDateTime.class).toInstant(),
+                        rs.getInt("sessions_attended"),
+                        rs.getInt("sessions_total"),
+                        new ArrayList<>()
+                );
+                history.put(eventId, event);
+            }
+
+            long sessionId = rs.getLong("session_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            String punctuality = rs.getString("punctuality");
+            OffsetDateTime scanTime = rs.getObject("scan_time", OffsetDateTime.class);
+            String status = punctuality != null ? ("PUNCTUAL".equals(punctuality) ? "PRESENT" : punctuality)
+                    : now.isAfter(rs.getObject("closes_at", OffsetDateTime.class).toInstant()) ? "ABSENT" : "PENDING";
+            event.sessions().add(new SessionHistoryItemDto(
+                    sessionId,
+                    rs.getString("activity_name"),
+                    rs.getString("intent"),
+                    rs.getObject("target_time", OffsetDateTime.class).toInstant(),
+                    status,
+                    scanTime != null ? scanTime.toInstant() : null
+            ));
+        }, attendeeId);
+        return new ArrayList<>(history.values());
+    }
+
+    Optional<Totals> findTotals(Long attendeeId) {
+        return jdbcTemplate.query(FIND_TOTALS, (rs, rowNum) -> new Totals(
+                rs.getInt("events_total"),
+                rs.getInt("sessions_total"),
+                rs.getInt("sessions_attended"),
+                rs.getInt("sessions_late"),
+                rs.getInt("sessions_absent"),
+                rs.getObject("attendance_rate", Double.class)
+        ), attendeeId).stream().findFirst();
+    }
+
+    List<AttendeeLeaderboardEntryDto> findLowestAttendance(Long organizationId, int limit) {
+        return jdbcTemplate.query(FIND_LOWEST_ATTENDANCE, leaderboardRowMapper(), organizationId, limit);
+    }
+
+    List<AttendeeLeaderboardEntryDto> findMostLate(Long organizationId, int limit) {
+        return jdbcTemplate.query(FIND_MOST_LATE, leaderboardRowMapper(), organizationId, limit);
+    }
+
+    private static RowMapper<AttendeeLeaderboardEntryDto> leaderboardRowMapper() {
+        return (rs, rowNum) -> new AttendeeLeaderboardEntryDto(
+                rs.getLong("attendee_id"),
+                rs.getString("identity"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getInt("events_total"),
+                rs.getInt("sessions_total"),
+                rs.getInt("sessions_attended"),
+                rs.getInt("sessions_late"),
+                rs.getInt("sessions_absent"),
+                rs.getObject("attendance_rate", Double.class)
+        );
+    }
+
+    // The same ID array bound to each of the statement's first `count` parameters
+    private static void bindIds(PreparedStatement ps, Collection<Long> ids, int count) throws SQLException {
+        var array = ps.getConnection().createArrayOf("bigint", ids.toArray());
+        for (int i = 1; i <= count; i++) {
+            ps.setArray(i, array);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps analytics_attendee_summary, its per-session rows and analytics_attendee_totals current. Listeners
+ * hand over the (event, attendee) pairs or whole events a change touched; those rows are recomputed from
+ * the source tables, and then the totals of every attendee whose rows changed. Absences also change with time
+ * alone, so a sweep refreshes events whose sessions have just closed.
+ */
+@Component
+@Slf4j
+class AttendeeSummaryUpdater {
+
+    // Windows that closed while no instance was running are left to the nightly reconciliation
+    private static final Duration SWEEP_LOOKBACK = Duration.ofDays(1);
+
+    private final AttendeeSummaryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private Instant lastSweep = Instant.now().minus(SWEEP_LOOKBACK);
+
+    AttendeeSummaryUpdater(AttendeeSummaryRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Rows and totals change in one transaction; joins the caller's when there is one
+    void refreshAttendees(Long eventId, Collection<Long> attendeeIds) {
+        if (attendeeIds.isEmpty()) {
+            return;
+        }
+        Long[] eventIds = new Long[attendeeIds.size()];
+        Arrays.fill(eventIds, eventId);
+        transactionTemplate.executeWithoutResult(status ->
+                refreshTotals(repository.refreshPairs(eventIds, attendeeIds.toArray(Long[]::new))));
+    }
+
+    // Returns how many per-event rows changed
+    int refreshEvents(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        Integer changed = transactionTemplate.execute(status -> {
+            List<Long> attendeeIds = repository.refreshEvents(eventIds);
+            refreshTotals(attendeeIds);
+            return attendeeIds.size();
+        });
+        return changed != null ? changed : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.attendee-summary.sweep-ms:300000}")
+    synchronized void sweepClosedSessions() {
+        Instant now = Instant.now();
+        List<Long> eventIds = repository.findEventsWithSessionsClosedBetween(lastSweep, now);
+        if (!eventIds.isEmpty()) {
+            int changed = refreshEvents(eventIds);
+            log.debug("Refreshed attendee summaries of {} events with closed sessions; {} rows changed", eventIds.size(), changed);
+        }
+        lastSweep = now;
+    }
+
+    private void refreshTotals(List<Long> attendeeIds) {
+        if (!attendeeIds.isEmpty()) {
+            // Sorted and distinct so concurrent refreshes lock totals rows in the same order
+            Set<Long> distinct = new TreeSet<>(attendeeIds);
+            repository.refreshTotals(distinct);
+        }
+    }
+}
@@ -11,26 +11,12 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 class AttributeBreakdown {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analytics_attribute_breakdown_id_seq")
+    @SequenceGenerator(name = "analytics_attribute_breakdown_id_seq", sequenceName = "analytics_attribute_breakdown_id_seq", allocationSize = 50)
     private Long id;
 
     private Long eventId;
     private String attributeName;
     private String attributeValue;
     private long attendeeCount;
-
-    private AttributeBreakdown(Long eventId, String attributeName, String attributeValue) {
-        this.eventId = eventId;
-        this.attributeName = attributeName;
-        this.attributeValue = attributeValue;
-        this.attendeeCount = 1;
-    }
-
-    static AttributeBreakdown create(Long eventId, String name, String value) {
-        return new AttributeBreakdown(eventId, name, value);
-    }
-
-    void incrementCount() {
-        this.attendeeCount++;
-    }
 }
@@ -6,10 +6,34 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
-import java.util.Optional;
 
 interface AttributeBreakdownRepository extends CrudRepository<AttributeBreakdown, Long> {
-    Optional<AttributeBreakdown> findByEventIdAndAttributeNameAndAttributeValue(Long eventId, String name, String value);
+    // Counts each attendee once per event, under the attributes snapshotted at their first entry in these ids. The
+    // marker insert decides who counts: a concurrent batch with another entry of the same attendee waits on the
+    // marker's key and then skips it, so only rows this statement inserted are counted. Breakdown rows are upserted
+    // in key order so concurrent upserts lock them in the same order.
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        WITH firsts AS (
+            INSERT INTO analytics_breakdown_attendee (event_id, attendee_id, attributes)
+            SELECT DISTINCT ON (e.event_id, e.attendee_id) e.event_id, e.attendee_id, e.snapshot_attributes
+            FROM capture_entry e
+            WHERE e.id = ANY(CAST(:entryIds AS bigint[]))
+            ORDER BY e.event_id, e.attendee_id, e.id
+            ON CONFLICT (event_id, attendee_id) DO NOTHING
+            RETURNING event_id, attendee_id, attributes
+        )
+        INSERT INTO analytics_attribute_breakdown (event_id, attribute_name, attribute_value, attendee_count)
+        SELECT f.event_id, kv.key, kv.value, COUNT(*)
+        FROM firsts f
+        CROSS JOIN LATERAL jsonb_each_text(f.attributes) kv
+        WHERE kv.value IS NOT NULL
+        GROUP BY f.event_id, kv.key, kv.value
+        ORDER BY f.event_id, kv.key, kv.value
+        ON CONFLICT (event_id, attribute_name, attribute_value)
+        DO UPDATE SET attendee_count = analytics_attribute_breakdown.attendee_count + EXCLUDED.attendee_count
+    """)
+    void incrementForFirstEntries(@Param("entryIds") Long[] entryIds);
 
     List<AttributeBreakdown> findAllByEventIdAndAttributeName(Long eventId, String attributeName);
 
@@ -22,5 +46,17 @@ interface AttributeBreakdownRepository extends CrudRepository<AttributeBreakdown
         AND ab.attribute_name = :name
     """)
     void deleteStatsForAttribute(@Param("orgId") Long orgId, @Param("name") String name);
+
+    // So the reconciliation does not count the attribute back from the counted snapshots
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        UPDATE analytics_breakdown_attendee m
+        SET attributes = m.attributes - CAST(:name AS text)
+        FROM event_event e
+        WHERE m.event_id = e.id
+        AND e.organization_id = :orgId
+        AND jsonb_exists(m.attributes, :name)
+    """)
+    void removeAttributeFromCountedAttendees(@Param("orgId") Long orgId, @Param("name") String name);
 }
 
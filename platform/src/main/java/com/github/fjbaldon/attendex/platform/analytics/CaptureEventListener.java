@@ -1,37 +1,25 @@
 package com.github.fjbaldon.attendex.platform.analytics;
 
-import com.github.fjbaldon.attendex.platform.attendee.AttendeeFacade;
 import com.github.fjbaldon.attendex.platform.capture.EntriesSyncedEvent;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.event.EventListener;
+import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 @Component
 @RequiredArgsConstructor
 class CaptureEventListener {
 
-    private final AttendeeFacade attendeeFacade;
     private final AttributeBreakdownRepository repository;
 
-    @EventListener
-    @Transactional
+    // Runs after the sync commits; the (event, attribute, value) deltas of the batch go out in one upsert. An attendee
+    // counts once per event, under the attributes captured with the entry that first claimed them, however the
+    // batches holding their other entries commit or interleave.
+    // Events published before entryIds existed carry none and are left to the nightly reconciliation.
+    @ApplicationModuleListener
     public void handleEntriesSyncedEvent(EntriesSyncedEvent event) {
-        event.attendeeIdsByEventId().forEach((eventId, attendeeIds) -> {
-            var attendees = attendeeFacade.findAttendeesByIds(attendeeIds);
-            attendees.forEach(attendee -> {
-                if (attendee.attributes() != null) {
-                    attendee.attributes().forEach((name, value) -> updateBreakdown(eventId, name, value.toString()));
-                }
-            });
-        });
-    }
-
-    private void updateBreakdown(Long eventId, String name, String value) {
-        repository.findByEventIdAndAttributeNameAndAttributeValue(eventId, name, value)
-                .ifPresentOrElse(
-                        AttributeBreakdown::incrementCount,
-                        () -> repository.save(AttributeBreakdown.create(eventId, name, value))
-                );
+        if (event.entryIds() == null || event.entryIds().isEmpty()) {
+            return;
+        }
+        repository.incrementForFirstEntries(event.entryIds().toArray(Long[]::new));
     }
 }
@@ -0,0 +1,157 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One page of a cohort with each member's first matching entry, joined, ordered and limited in the database
+@Repository
+@RequiredArgsConstructor
+class CohortAttendeeRepository {
+
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES = new TypeReference<>() {
+    };
+
+    private static final String COHORT = """
+            FROM event_roster_entry r -- its (event_id, attendee_id) key supplies the order
+            JOIN attendee_attendee a ON a.id = r.attendee_id
+            WHERE r.event_id = ?
+              AND a.organization_id = ?
+              AND a.deleted_at IS NULL
+              AND (CAST(? AS jsonb) IS NULL OR a.attributes @> CAST(? AS jsonb))
+              AND (CAST(? AS bigint) IS NULL OR r.attendee_id > ?)
+            """;
+
+    // Parameters: eventId, organizationId, filter containment twice, afterId twice, LIMIT, OFFSET, then sessionId
+    // twice. The page is cut before the entry lookup, so only its rows are joined to their first entry; every row
+    // carries the size of the whole cohort from the same snapshot.
+    private static final String FIND_PAGE = """
+            SELECT p.id, p.identity, p.first_name, p.last_name, p.attributes, p.total, e.scan_timestamp
+            FROM (
+                SELECT r.event_id, a.id, a.identity, a.first_name, a.last_name, a.attributes, COUNT(*) OVER () AS total
+            """ + COHORT + """
+                ORDER BY r.attendee_id
+                LIMIT ? OFFSET ?
+            ) p
+            LEFT JOIN LATERAL (
+                SELECT c.scan_timestamp
+                FROM capture_entry c
+                WHERE c.event_id = p.event_id
+                  AND c.attendee_id = p.id
+                  AND (CAST(? AS bigint) IS NULL OR c.session_id = ?)
+                ORDER BY c.scan_timestamp
+                LIMIT 1
+            ) e ON true
+            ORDER BY p.id
+            """;
+
+    private static final String COUNT = "SELECT COUNT(*) " + COHORT;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    Page<CohortAttendeeDto> findPage(Long organizationId, Long eventId, Long sessionId, Map<String, String> filters, Pageable pageable) {
+        long[] total = {0};
+        List<CohortAttendeeDto> content = find(organizationId, eventId, sessionId, filters, null,
+                pageable.getOffset(), pageable.getPageSize(), total);
+        if (content.isEmpty() && pageable.getOffset() > 0) {
+            // Past the last page there is no row to read the total from
+            String containmentJson = toContainmentJson(filters);
+            Long count = jdbcTemplate.query(COUNT, ps -> bindCohort(ps, eventId, organizationId, containmentJson, null),
+                    rs -> rs.next() ? rs.getLong(1) : 0L);
+            total[0] = count != null ? count : 0;
+        }
+        return new PageImpl<>(content, pageable, total[0]);
+    }
+
+    // Keyset variant: the page after the given attendee ID, so deep pages cost the same as the first
+    List<CohortAttendeeDto> findAfter(Long organizationId, Long eventId, Long sessionId, Map<String, String> filters, Long afterId, int limit) {
+        return find(organizationId, eventId, sessionId, filters, afterId, 0, limit, new long[1]);
+    }
+
+    private List<CohortAttendeeDto> find(Long organizationId, Long eventId, Long sessionId, Map<String, String> filters,
+                                         Long afterId, long offset, int limit, long[] total) {
+        String containmentJson = toContainmentJson(filters);
+
+        return jdbcTemplate.query(FIND_PAGE, ps -> {
+            bindCohort(ps, eventId, organizationId, containmentJson, afterId);
+            ps.setInt(7, limit);
+            ps.setLong(8, offset);
+            ps.setObject(9, sessionId, Types.BIGINT);
+            ps.setObject(10, sessionId, Types.BIGINT);
+        }, rowMapper(total));
+    }
+
+    private static void bindCohort(PreparedStatement ps, Long eventId, Long organizationId, String containmentJson,
+                                   Long afterId) throws SQLException {
+        ps.setLong(1, eventId);
+        ps.setLong(2, organizationId);
+        ps.setString(3, containmentJson);
+        ps.setString(4, containmentJson);
+        ps.setObject(5, afterId, Types.BIGINT);
+        ps.setObject(6, afterId, Types.BIGINT);
+    }
+
+    // Blank filter values match everyone, as in the attendee search
+    private String toContainmentJson(Map<String, String> filters) {
+        Map<String, String> containment = new HashMap<>();
+        if (filters != null) {
+            filters.forEach((name, value) -> {
+                if (value != null && !value.isBlank()) {
+                    containment.put(name, value);
+                }
+            });
+        }
+        return containment.isEmpty() ? null : toJson(containment);
+    }
+
+    private RowMapper<CohortAttendeeDto> rowMapper(long[] total) {
+        return (rs, rowNum) -> {
+            total[0] = rs.getLong("total");
+            Timestamp scanTime = rs.getTimestamp("scan_timestamp");
+            return new CohortAttendeeDto(
+                    rs.getLong("id"),
+                    rs.getString("identity"),
+                    rs.getString("first_name"),
+                    rs.getString("last_name"),
+                    scanTime != null ? "PRESENT" : "ABSENT",
+                    scanTime != null ? scanTime.toInstant() : null,
+                    readAttributes(rs.getString("attributes"))
+            );
+        };
+    }
+
+    private String toJson(Map<String, String> containment) {
+        try {
+            return objectMapper.writeValueAsString(containment);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Attribute filters cannot be serialized.", e);
+        }
+    }
+
+    private Map<String, Object> readAttributes(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, ATTRIBUTES);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable attendee attributes", e);
+        }
+    }
+}
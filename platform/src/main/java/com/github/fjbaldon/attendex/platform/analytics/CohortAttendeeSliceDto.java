@@ -0,0 +1,10 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import java.util.List;
+
+// Keyset page of a cohort; pass nextAfterId back to continue, null once the cohort is exhausted
+public record CohortAttendeeSliceDto(
+        List<CohortAttendeeDto> attendees,
+        Long nextAfterId
+) {
+}
@@ -0,0 +1,255 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory cohort engine: compressed bitmaps of attendee IDs per organization attribute value, per event
+ * roster and per event and session presence, so cohort sizes and attendance are bitmap ANDs and
+ * cardinalities instead of ID lists shipped to the database.
+ * <p>
+ * Indexes are built on first use with one streaming query each and kept current from domain events: roster
+ * changes and captured entries are applied in place, while attendee and attribute changes drop the
+ * organization's index for a rebuild, as do revised entries for the event's. Entries expire after a TTL as a
+ * safety net for changes this instance never hears about (listeners of other instances), and the least
+ * recently used ones are evicted beyond the configured bounds.
+ */
+@Component
+class CohortIndex {
+
+    private final CohortIndexRepository repository;
+    private final IndexCache<OrganizationIndex> organizations;
+    private final IndexCache<EventIndex> events;
+
+    CohortIndex(
+            CohortIndexRepository repository,
+            @Value("${app.analytics.cohort-index.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.analytics.cohort-index.max-organizations:50}") int maxOrganizations,
+            @Value("${app.analytics.cohort-index.max-events:200}") int maxEvents
+    ) {
+        this.repository = repository;
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.organizations = new IndexCache<>(this::loadOrganization, ttlNanos, maxOrganizations);
+        this.events = new IndexCache<>(this::loadEvent, ttlNanos, maxEvents);
+    }
+
+    // Active attendees of the organization on the event's roster matching every non-blank filter; a fresh copy the caller owns
+    Roaring64Bitmap findCohort(Long organizationId, Long eventId, Map<String, String> filters) {
+        Roaring64Bitmap cohort = organizations.get(organizationId).matching(filters);
+        if (!cohort.isEmpty()) {
+            events.get(eventId).retainRostered(cohort);
+        }
+        return cohort;
+    }
+
+    // Members of the cohort with an entry for the session, or for the event when sessionId is null
+    long countPresent(Long eventId, Long sessionId, Roaring64Bitmap cohort) {
+        return cohort.isEmpty() ? 0 : events.get(eventId).countPresent(sessionId, cohort);
+    }
+
+    void onRosterEntryAdded(Long eventId, Long attendeeId) {
+        events.update(eventId, index -> index.write(() -> index.roster.addLong(attendeeId)));
+    }
+
+    void onRosterEntryRemoved(Long eventId, Long attendeeId) {
+        events.update(eventId, index -> index.write(() -> index.roster.removeLong(attendeeId)));
+    }
+
+    void onEntriesCaptured(Long eventId, List<Long> attendeeIds, Map<Long, List<Long>> attendeeIdsBySessionId) {
+        events.update(eventId, index -> index.write(() -> {
+            attendeeIds.forEach(index.present::addLong);
+            attendeeIdsBySessionId.forEach((sessionId, ids) -> {
+                Roaring64Bitmap session = index.presentBySession.computeIfAbsent(sessionId, k -> new Roaring64Bitmap());
+                ids.forEach(session::addLong);
+            });
+        }));
+    }
+
+    void invalidateOrganization(Long organizationId) {
+        organizations.invalidate(organizationId);
+    }
+
+    void invalidateEvent(Long eventId) {
+        events.invalidate(eventId);
+    }
+
+    private OrganizationIndex loadOrganization(Long organizationId) {
+        OrganizationIndex index = new OrganizationIndex();
+        repository.streamAttributes(organizationId, (attendeeId, name, value) -> {
+            index.active.addLong(attendeeId);
+            if (name != null && value != null) {
+                index.byAttribute.computeIfAbsent(name, k -> new HashMap<>())
+                        .computeIfAbsent(value, k -> new Roaring64Bitmap())
+                        .addLong(attendeeId);
+            }
+        });
+        index.active.runOptimize();
+        index.byAttribute.values().forEach(values -> values.values().forEach(Roaring64Bitmap::runOptimize));
+        return index;
+    }
+
+    private EventIndex loadEvent(Long eventId) {
+        EventIndex index = new EventIndex();
+        repository.streamRoster(eventId, index.roster::addLong);
+        repository.streamPresence(eventId, (attendeeId, sessionId) -> {
+            index.present.addLong(attendeeId);
+            if (sessionId != null) {
+                index.presentBySession.computeIfAbsent(sessionId, k -> new Roaring64Bitmap()).addLong(attendeeId);
+            }
+        });
+        return index;
+    }
+
+    // Immutable once built; changes replace the whole index
+    private static final class OrganizationIndex {
+        final Roaring64Bitmap active = new Roaring64Bitmap();
+        final Map<String, Map<String, Roaring64Bitmap>> byAttribute = new HashMap<>();
+
+        Roaring64Bitmap matching(Map<String, String> filters) {
+            Roaring64Bitmap result = new Roaring64Bitmap();
+            result.or(active);
+            if (filters == null) {
+                return result;
+            }
+            for (var filter : filters.entrySet()) {
+                if (filter.getValue() == null || filter.getValue().isBlank()) {
+                    continue;
+                }
+                Roaring64Bitmap matches = byAttribute.getOrDefault(filter.getKey(), Map.of()).get(filter.getValue());
+                if (matches == null) {
+                    return new Roaring64Bitmap();
+                }
+                result.and(matches);
+            }
+            return result;
+        }
+    }
+
+    // Updated in place by event listeners while queries read it
+    private static final class EventIndex {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        final Roaring64Bitmap roster = new Roaring64Bitmap();
+        final Roaring64Bitmap present = new Roaring64Bitmap();
+        final Map<Long, Roaring64Bitmap> presentBySession = new HashMap<>();
+
+        void retainRostered(Roaring64Bitmap cohort) {
+            lock.readLock().lock();
+            try {
+                cohort.and(roster);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long countPresent(Long sessionId, Roaring64Bitmap cohort) {
+            lock.readLock().lock();
+            try {
+                Roaring64Bitmap attended = sessionId == null ? present : presentBySession.get(sessionId);
+                return attended == null ? 0 : Roaring64Bitmap.andCardinality(cohort, attended);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void write(Runnable change) {
+            lock.writeLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * LRU map of lazily built indexes with a TTL. An update for a key that is being built marks the build as
+     * raced: its result still answers the query that asked for it but is not cached, because the snapshot it
+     * was built from may predate the update.
+     */
+    private static final class IndexCache<T> {
+
+        private final Function<Long, T> loader;
+        private final long ttlNanos;
+        private final LinkedHashMap<Long, Cached<T>> entries;
+        private final Map<Long, Load> loading = new HashMap<>();
+
+        IndexCache(Function<Long, T> loader, long ttlNanos, int maxEntries) {
+            this.loader = loader;
+            this.ttlNanos = ttlNanos;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Cached<T>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        T get(Long key) {
+            Load load;
+            synchronized (this) {
+                Cached<T> cached = entries.get(key);
+                if (cached != null && System.nanoTime() - cached.loadedAt < ttlNanos) {
+                    return cached.index;
+                }
+                load = loading.computeIfAbsent(key, k -> new Load());
+                load.loaders++;
+            }
+
+            long loadedAt = System.nanoTime();
+            T index = null;
+            try {
+                index = loader.apply(key);
+                return index;
+            } finally {
+                synchronized (this) {
+                    if (index != null && !load.raced) {
+                        entries.put(key, new Cached<>(index, loadedAt));
+                    }
+                    if (--load.loaders == 0) {
+                        loading.remove(key);
+                    }
+                }
+            }
+        }
+
+        // Applies the change to the cached index, if any; an index not cached yet is built with it included
+        void update(Long key, Consumer<T> change) {
+            Cached<T> cached;
+            synchronized (this) {
+                markRaced(key);
+                cached = entries.get(key);
+            }
+            if (cached != null) {
+                change.accept(cached.index);
+            }
+        }
+
+        synchronized void invalidate(Long key) {
+            markRaced(key);
+            entries.remove(key);
+        }
+
+        private void markRaced(Long key) {
+            Load load = loading.get(key);
+            if (load != null) {
+                load.raced = true;
+            }
+        }
+
+        private record Cached<T>(T index, long loadedAt) {
+        }
+
+        private static final class Load {
+            int loaders;
+            boolean raced;
+        }
+    }
+}
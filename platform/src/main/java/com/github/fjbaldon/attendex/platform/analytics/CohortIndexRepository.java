@@ -0,0 +1,81 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+
+// Streams the rows the cohort index is built from; nothing is materialized beyond the bitmaps themselves.
+// The PostgreSQL driver only fetches in batches inside a transaction and with a fetch size; otherwise it
+// reads the whole result set into memory before the first row is handled.
+@Repository
+class CohortIndexRepository {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    // One row per active attendee and top-level attribute; attendees without attributes still appear once
+    private static final String STREAM_ATTRIBUTES = """
+            SELECT a.id, kv.key, kv.value
+            FROM attendee_attendee a
+            LEFT JOIN LATERAL jsonb_each_text(a.attributes) kv ON true
+            WHERE a.organization_id = ? AND a.deleted_at IS NULL
+            """;
+
+    private static final String STREAM_ROSTER = "SELECT attendee_id FROM event_roster_entry WHERE event_id = ?";
+
+    private static final String STREAM_PRESENCE = """
+            SELECT DISTINCT attendee_id, session_id FROM capture_entry WHERE event_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    CohortIndexRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    interface AttributeRowHandler {
+        void accept(long attendeeId, String name, String value);
+    }
+
+    interface PresenceRowHandler {
+        void accept(long attendeeId, Long sessionId);
+    }
+
+    interface IdHandler {
+        void accept(long id);
+    }
+
+    void streamAttributes(Long organizationId, AttributeRowHandler handler) {
+        stream(STREAM_ATTRIBUTES, organizationId, rs -> {
+            handler.accept(rs.getLong(1), rs.getString(2), rs.getString(3));
+        });
+    }
+
+    void streamRoster(Long eventId, IdHandler handler) {
+        stream(STREAM_ROSTER, eventId, rs -> {
+            handler.accept(rs.getLong(1));
+        });
+    }
+
+    void streamPresence(Long eventId, PresenceRowHandler handler) {
+        stream(STREAM_PRESENCE, eventId, rs -> {
+            long sessionId = rs.getLong(2);
+            handler.accept(rs.getLong(1), rs.wasNull() ? null : sessionId);
+        });
+    }
+
+    private void stream(String sql, Long id, RowCallbackHandler handler) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, id);
+            return ps;
+        }, handler));
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+class EntryTimeseriesRepository {
+
+    private static final String INCREMENT_COUNTS = """
+            INSERT INTO analytics_entry_timeseries (event_id, session_id, bucket_start, entry_count)
+            SELECT d.event_id, d.session_id, to_timestamp(d.minute_epoch), d.count
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::bigint[]) AS d(event_id, session_id, minute_epoch, count)
+            ON CONFLICT (event_id, session_id, bucket_start)
+            DO UPDATE SET entry_count = analytics_entry_timeseries.entry_count + EXCLUDED.entry_count
+            """;
+
+    private static final String FIND_RANGE = """
+            SELECT MIN(bucket_start) AS first_bucket, MAX(bucket_start) AS last_bucket
+            FROM analytics_entry_timeseries
+            WHERE event_id = ? AND (CAST(? AS bigint) IS NULL OR session_id = ?)
+            """;
+
+    // Minute rows folded into buckets of the requested width, aligned to the start of the range
+    private static final String FIND_BUCKETS = """
+            SELECT date_bin(make_interval(mins => ?), bucket_start, ?) AS bucket, SUM(entry_count) AS entry_count
+            FROM analytics_entry_timeseries
+            WHERE event_id = ?
+              AND (CAST(? AS bigint) IS NULL OR session_id = ?)
+              AND bucket_start >= ? AND bucket_start < ?
+            GROUP BY bucket
+            ORDER BY bucket
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    record Range(Instant firstBucket, Instant lastBucket) {
+    }
+
+    // Parallel arrays, one element per (event, session, minute); session IDs may be null
+    void incrementCounts(Long[] eventIds, Long[] sessionIds, Long[] minuteEpochSeconds, Long[] counts) {
+        jdbcTemplate.update(INCREMENT_COUNTS, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", eventIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", sessionIds));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", minuteEpochSeconds));
+            ps.setArray(4, ps.getConnection().createArrayOf("bigint", counts));
+        });
+    }
+
+    Optional<Range> findRange(Long eventId, Long sessionId) {
+        // An aggregate always returns one row; it holds NULLs when nothing was scanned yet
+        Range range = jdbcTemplate.queryForObject(FIND_RANGE, (rs, rowNum) -> {
+            Timestamp first = rs.getTimestamp("first_bucket");
+            Timestamp last = rs.getTimestamp("last_bucket");
+            return first == null ? null : new Range(first.toInstant(), last.toInstant());
+        }, eventId, sessionId, sessionId);
+        return Optional.ofNullable(range);
+    }
+
+    List<TimelineDto.Point> findBuckets(Long eventId, Long sessionId, Instant from, Instant to, int bucketMinutes) {
+        return jdbcTemplate.query(FIND_BUCKETS, (rs, rowNum) -> new TimelineDto.Point(
+                rs.getTimestamp("bucket").toInstant(),
+                rs.getLong("entry_count")
+        ), bucketMinutes, from.atOffset(ZoneOffset.UTC), eventId, sessionId, sessionId,
+                from.atOffset(ZoneOffset.UTC), to.atOffset(ZoneOffset.UTC));
+    }
+}
@@ -1,4 +1,4 @@
-package com.github.fjbaldon.attendex.platform.capture;
+package com.github.fjbaldon.attendex.platform.analytics;
 
 import java.time.Instant;
 import java.util.List;
@@ -7,6 +7,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "analytics_event_summary")
 @Getter
@@ -18,6 +20,8 @@ class EventSummary {
     private String eventName;
     private long rosterCount;
     private long entryCount;
+    private Instant firstScanAt;
+    private Instant lastScanAt;
 
     EventSummary(Long eventId, Long organizationId, String eventName) {
         this.eventId = eventId;
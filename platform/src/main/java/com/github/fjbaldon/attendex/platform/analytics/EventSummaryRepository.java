@@ -11,11 +11,31 @@ import java.util.List;
 interface EventSummaryRepository extends CrudRepository<EventSummary, Long> {
     List<EventSummary> findByOrganizationId(Long organizationId, Pageable pageable);
 
+    // Parallel arrays, one element per event; scan times are epoch milliseconds
     @Modifying
-    @Query("UPDATE EventSummary e SET e.entryCount = e.entryCount + 1 WHERE e.eventId = :eventId")
-    void incrementEntryCount(@Param("eventId") Long eventId);
+    @Query(nativeQuery = true, value = """
+        UPDATE analytics_event_summary s
+        SET entry_count = s.entry_count + d.count,
+            first_scan_at = LEAST(s.first_scan_at, to_timestamp(d.first_scan_ms / 1000.0)),
+            last_scan_at = GREATEST(s.last_scan_at, to_timestamp(d.last_scan_ms / 1000.0))
+        FROM unnest(
+            CAST(:eventIds AS bigint[]),
+            CAST(:counts AS bigint[]),
+            CAST(:firstScanMillis AS bigint[]),
+            CAST(:lastScanMillis AS bigint[])
+        ) AS d(event_id, count, first_scan_ms, last_scan_ms)
+        WHERE s.event_id = d.event_id
+    """)
+    void incrementEntryCounts(@Param("eventIds") Long[] eventIds,
+                              @Param("counts") Long[] counts,
+                              @Param("firstScanMillis") Long[] firstScanMillis,
+                              @Param("lastScanMillis") Long[] lastScanMillis);
 
     @Modifying
     @Query("UPDATE EventSummary e SET e.rosterCount = e.rosterCount + 1 WHERE e.eventId = :eventId")
     void incrementRosterCount(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Query("UPDATE EventSummary e SET e.rosterCount = e.rosterCount - 1 WHERE e.eventId = :eventId AND e.rosterCount > 0")
+    void decrementRosterCount(@Param("eventId") Long eventId);
 }
@@ -0,0 +1,235 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.capture.EntriesCapturedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events fan-out of live entry counters. Each watched event has one channel shared by all of its
+ * viewers: the channel loads its totals once, keeps them current from captured entries and coalesces the
+ * increments into at most one "delta" per push interval, so the database cost does not grow with viewers.
+ * <p>
+ * New viewers get the channel's running totals as a "snapshot". Totals are reloaded and re-sent as a
+ * snapshot after entries were revised and periodically, which bounds the drift from batches that raced the
+ * load and from entries ingested by other instances, whose events this one never sees.
+ */
+@Component
+@Slf4j
+class LiveEventCounters {
+
+    private final LiveEventCountersRepository repository;
+    private final long timeoutMillis;
+    private final long resyncNanos;
+    private final long heartbeatNanos;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    LiveEventCounters(
+            LiveEventCountersRepository repository,
+            @Value("${app.analytics.live.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.analytics.live.resync-seconds:60}") long resyncSeconds,
+            @Value("${app.analytics.live.heartbeat-seconds:15}") long heartbeatSeconds
+    ) {
+        this.repository = repository;
+        this.timeoutMillis = timeoutMillis;
+        this.resyncNanos = TimeUnit.SECONDS.toNanos(resyncSeconds);
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+    }
+
+    SseEmitter subscribe(Long eventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(eventId, Channel::new);
+            synchronized (channel) {
+                if (channel.closed) {
+                    continue;
+                }
+                if (channel.totals == null) {
+                    channel.reload(repository.findTotals(eventId));
+                }
+                // What the other viewers have seen; the pending increments reach this one with the next delta
+                channel.viewers.add(emitter);
+                send(channel, emitter, "snapshot", channel.totals.minus(channel.pending).toDto(eventId));
+            }
+            emitter.onCompletion(() -> channel.viewers.remove(emitter));
+            emitter.onTimeout(() -> channel.viewers.remove(emitter));
+            emitter.onError(e -> channel.viewers.remove(emitter));
+            return emitter;
+        }
+    }
+
+    void onEntriesCaptured(EntriesCapturedEvent.EventDelta delta) {
+        Channel channel = channels.get(delta.eventId());
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            // Not loaded yet: the load that is under way reads the committed entries anyway
+            if (channel.totals != null) {
+                channel.totals.add(delta);
+                channel.pending.add(delta);
+            }
+        }
+    }
+
+    void onEntriesRevised(Long eventId) {
+        Channel channel = channels.get(eventId);
+        if (channel != null) {
+            synchronized (channel) {
+                channel.stale = true;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.live.push-interval-ms:1000}")
+    void push() {
+        for (Long eventId : channels.keySet()) {
+            Channel channel = channels.computeIfPresent(eventId, (id, c) -> {
+                synchronized (c) {
+                    // A closed channel makes a concurrent subscriber start over with a new one
+                    c.closed = c.viewers.isEmpty();
+                    return c.closed ? null : c;
+                }
+            });
+            if (channel != null) {
+                push(channel);
+            }
+        }
+    }
+
+    private void push(Channel channel) {
+        long now = System.nanoTime();
+        String name;
+        LiveEventCountersDto payload;
+        List<SseEmitter> viewers;
+        synchronized (channel) {
+            if (channel.totals == null) {
+                return;
+            }
+            if (channel.stale || now - channel.loadedAt >= resyncNanos) {
+                channel.reload(repository.findTotals(channel.eventId));
+                name = "snapshot";
+                payload = channel.totals.toDto(channel.eventId);
+            } else if (channel.pending.entryCount > 0) {
+                name = "delta";
+                payload = channel.pending.toDto(channel.eventId);
+                channel.pending = new Counters();
+            } else if (now - channel.sentAt >= heartbeatNanos) {
+                name = null;
+                payload = null;
+            } else {
+                return;
+            }
+            channel.sentAt = now;
+            // Viewers joining from here on got a snapshot that already includes this delta
+            viewers = List.copyOf(channel.viewers);
+        }
+
+        for (SseEmitter viewer : viewers) {
+            if (name == null) {
+                heartbeat(channel, viewer);
+            } else {
+                send(channel, viewer, name, payload);
+            }
+        }
+    }
+
+    private void send(Channel channel, SseEmitter viewer, String name, LiveEventCountersDto payload) {
+        try {
+            viewer.send(SseEmitter.event().name(name).data(payload));
+        } catch (IOException | IllegalStateException e) {
+            drop(channel, viewer, e);
+        }
+    }
+
+    // Keeps proxies from closing idle connections
+    private void heartbeat(Channel channel, SseEmitter viewer) {
+        try {
+            viewer.send(SseEmitter.event().comment("keep-alive"));
+        } catch (IOException | IllegalStateException e) {
+            drop(channel, viewer, e);
+        }
+    }
+
+    private void drop(Channel channel, SseEmitter viewer, Exception e) {
+        log.debug("Dropping live counter viewer of event {}: {}", channel.eventId, e.getMessage());
+        channel.viewers.remove(viewer);
+        viewer.completeWithError(e);
+    }
+
+    private static final class Channel {
+        final Long eventId;
+        final List<SseEmitter> viewers = new CopyOnWriteArrayList<>();
+        Counters totals;
+        Counters pending = new Counters();
+        boolean stale;
+        boolean closed;
+        long loadedAt;
+        long sentAt = System.nanoTime();
+
+        Channel(Long eventId) {
+            this.eventId = eventId;
+        }
+
+        void reload(LiveEventCountersDto loaded) {
+            totals = Counters.of(loaded);
+            pending = new Counters();
+            stale = false;
+            loadedAt = System.nanoTime();
+        }
+    }
+
+    private static final class Counters {
+        long entryCount;
+        final Map<Long, Long> bySession = new HashMap<>();
+        final Map<Long, Long> byScanner = new HashMap<>();
+        final Map<String, Long> byPunctuality = new HashMap<>();
+        Instant lastScanAt;
+
+        static Counters of(LiveEventCountersDto dto) {
+            Counters counters = new Counters();
+            counters.entryCount = dto.entryCount();
+            counters.bySession.putAll(dto.entriesBySessionId());
+            counters.byScanner.putAll(dto.entriesByScannerId());
+            counters.byPunctuality.putAll(dto.entriesByPunctuality());
+            counters.lastScanAt = dto.lastScanAt();
+            return counters;
+        }
+
+        void add(EntriesCapturedEvent.EventDelta delta) {
+            entryCount += delta.entryCount();
+            delta.entriesBySessionId().forEach((id, count) -> bySession.merge(id, count, Long::sum));
+            delta.entriesByScannerId().forEach((id, count) -> byScanner.merge(id, count, Long::sum));
+            delta.entriesByPunctuality().forEach((value, count) -> byPunctuality.merge(value, count, Long::sum));
+            if (lastScanAt == null || delta.lastScanAt().isAfter(lastScanAt)) {
+                lastScanAt = delta.lastScanAt();
+            }
+        }
+
+        Counters minus(Counters other) {
+            Counters result = new Counters();
+            result.entryCount = entryCount - other.entryCount;
+            bySession.forEach((id, count) -> result.bySession.put(id, count - other.bySession.getOrDefault(id, 0L)));
+            byScanner.forEach((id, count) -> result.byScanner.put(id, count - other.byScanner.getOrDefault(id, 0L)));
+            byPunctuality.forEach((value, count) -> result.byPunctuality.put(value, count - other.byPunctuality.getOrDefault(value, 0L)));
+            result.lastScanAt = lastScanAt;
+            return result;
+        }
+
+        LiveEventCountersDto toDto(Long eventId) {
+            return new LiveEventCountersDto(eventId, entryCount, Map.copyOf(bySession), Map.copyOf(byScanner),
+                    Map.copyOf(byPunctuality), lastScanAt);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Pushed as a "snapshot" (running totals) or a "delta" (gained since the previous push)
+public record LiveEventCountersDto(
+        Long eventId,
+        long entryCount,
+        Map<Long, Long> entriesBySessionId, // Unscheduled entries have no session and are not listed
+        Map<Long, Long> entriesByScannerId,
+        Map<String, Long> entriesByPunctuality,
+        Instant lastScanAt
+) {
+}
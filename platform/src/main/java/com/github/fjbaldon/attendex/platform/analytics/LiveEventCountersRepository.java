@@ -0,0 +1,58 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+class LiveEventCountersRepository {
+
+    // Totals per session, scanner and punctuality plus the grand total, in one pass over the event's entries
+    private static final String FIND_TOTALS = """
+            SELECT session_id, scanner_id, punctuality,
+                   GROUPING(session_id, scanner_id, punctuality) AS grouping_mask,
+                   COUNT(*) AS entry_count, MAX(scan_timestamp) AS last_scan_at
+            FROM capture_entry
+            WHERE event_id = ?
+            GROUP BY GROUPING SETS ((), (session_id), (scanner_id), (punctuality))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LiveEventCountersDto findTotals(Long eventId) {
+        Map<Long, Long> bySession = new HashMap<>();
+        Map<Long, Long> byScanner = new HashMap<>();
+        Map<String, Long> byPunctuality = new HashMap<>();
+        long[] total = {0};
+        Instant[] lastScanAt = {null};
+
+        jdbcTemplate.query(FIND_TOTALS, rs -> {
+            long count = rs.getLong("entry_count");
+            switch (rs.getInt("grouping_mask")) {
+                case 0b111 -> {
+                    total[0] = count;
+                    Timestamp last = rs.getTimestamp("last_scan_at");
+                    lastScanAt[0] = last != null ? last.toInstant() : null;
+                }
+                case 0b011 -> {
+                    long sessionId = rs.getLong("session_id");
+                    if (!rs.wasNull()) {
+                        bySession.put(sessionId, count);
+                    }
+                }
+                case 0b101 -> byScanner.put(rs.getLong("scanner_id"), count);
+                case 0b110 -> byPunctuality.put(rs.getString("punctuality"), count);
+                default -> {
+                }
+            }
+        }, eventId);
+
+        return new LiveEventCountersDto(eventId, total[0], bySession, byScanner, byPunctuality, lastScanAt[0]);
+    }
+}
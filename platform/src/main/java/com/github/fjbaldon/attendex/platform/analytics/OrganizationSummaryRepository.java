@@ -26,6 +26,10 @@ interface OrganizationSummaryRepository extends CrudRepository<OrganizationSumma
     @Query("UPDATE OrganizationSummary o SET o.totalAttendees = o.totalAttendees + 1 WHERE o.organizationId = :id")
     void incrementAttendeeCount(@Param("id") Long id);
 
+    @Modifying
+    @Query("UPDATE OrganizationSummary o SET o.totalAttendees = o.totalAttendees + :count WHERE o.organizationId = :id")
+    void incrementAttendeeCountBy(@Param("id") Long id, @Param("count") int count);
+
     @Modifying
     @Query("UPDATE OrganizationSummary o SET o.totalScanners = o.totalScanners + 1 WHERE o.organizationId = :id")
     void incrementScannerCount(@Param("id") Long id);
@@ -0,0 +1,156 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.common.error.ConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds the analytics read models from the source tables and corrects whatever the incremental
+ * counters got wrong. Events are processed in chunks, several chunks at a time; each chunk is recomputed
+ * and corrected in one transaction, so readers see either the old or the corrected rows of an event.
+ * Events synced within the quiet window are skipped and picked up by a later run.
+ */
+@Service
+@Slf4j
+class ReadModelReconciler {
+
+    private final ReadModelReconciliationRepository repository;
+    private final SummaryCounterBuffer summaryCounterBuffer;
+    private final AttendeeSummaryUpdater attendeeSummaryUpdater;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration quietWindow;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    ReadModelReconciler(
+            ReadModelReconciliationRepository repository,
+            SummaryCounterBuffer summaryCounterBuffer,
+            AttendeeSummaryUpdater attendeeSummaryUpdater,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.analytics.reconcile.chunk-size:50}") int chunkSize,
+            @Value("${app.analytics.reconcile.parallelism:4}") int parallelism,
+            @Value("${app.analytics.reconcile.quiet-seconds:300}") long quietSeconds
+    ) {
+        this.repository = repository;
+        this.summaryCounterBuffer = summaryCounterBuffer;
+        this.attendeeSummaryUpdater = attendeeSummaryUpdater;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.quietWindow = Duration.ofSeconds(quietSeconds);
+    }
+
+    // Runs on the async executor; a reconciliation takes minutes and would hold up every other scheduled task
+    @Async
+    @Scheduled(cron = "${app.analytics.reconcile.cron:0 15 4 * * *}")
+    public void scheduledReconcile() {
+        if (running.get()) {
+            return;
+        }
+        reconcile();
+    }
+
+    ReconciliationReportDto reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A read model reconciliation is already running.");
+        }
+        try {
+            return reconcileAll();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationReportDto reconcileAll() {
+        Instant startedAt = Instant.now();
+        summaryCounterBuffer.flush();
+
+        List<Long> eventIds = repository.findQuietEventIds(startedAt.minus(quietWindow));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < eventIds.size(); from += chunkSize) {
+            chunks.add(eventIds.subList(from, Math.min(from + chunkSize, eventIds.size())));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        try {
+            chunks.forEach(chunk -> futures.add(executor.submit(() -> reconcileChunk(chunk))));
+
+            ChunkResult total = ChunkResult.NONE;
+            int failedChunks = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    total = total.plus(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    failedChunks++;
+                    log.error("Failed to reconcile events {}", chunks.get(i), e.getCause());
+                }
+            }
+
+            ReconciliationReportDto report = new ReconciliationReportDto(
+                    startedAt,
+                    Duration.between(startedAt, Instant.now()).toMillis(),
+                    eventIds.size(),
+                    repository.countEvents() - eventIds.size(),
+                    failedChunks,
+                    total.eventSummaries(),
+                    total.sessionSummaries(),
+                    total.scannerSummaries(),
+                    total.timeseriesBuckets(),
+                    total.attributeBreakdowns(),
+                    total.attendeeSummaries()
+            );
+            log.info("Reconciled analytics read models: {}", report);
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Read model reconciliation was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ChunkResult reconcileChunk(List<Long> eventIds) {
+        return transactionTemplate.execute(status -> {
+            repository.lockEvents(eventIds);
+            return new ChunkResult(
+                    repository.reconcileEventSummaries(eventIds),
+                    repository.reconcileSessionSummaries(eventIds),
+                    repository.reconcileScannerSummaries(eventIds),
+                    repository.reconcileEntryTimeseries(eventIds),
+                    repository.reconcileAttributeBreakdowns(eventIds),
+                    attendeeSummaryUpdater.refreshEvents(eventIds)
+            );
+        });
+    }
+
+    private record ChunkResult(int eventSummaries, int sessionSummaries, int scannerSummaries, int timeseriesBuckets,
+                               int attributeBreakdowns, int attendeeSummaries) {
+        static final ChunkResult NONE = new ChunkResult(0, 0, 0, 0, 0, 0);
+
+        ChunkResult plus(ChunkResult other) {
+            return new ChunkResult(
+                    eventSummaries + other.eventSummaries,
+                    sessionSummaries + other.sessionSummaries,
+                    scannerSummaries + other.scannerSummaries,
+                    timeseriesBuckets + other.timeseriesBuckets,
+                    attributeBreakdowns + other.attributeBreakdowns,
+                    attendeeSummaries + other.attendeeSummaries
+            );
+        }
+    }
+}
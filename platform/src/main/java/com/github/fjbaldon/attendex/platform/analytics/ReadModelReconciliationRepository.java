@@ -0,0 +1,242 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Recomputes the analytics read models of a chunk of events from capture_entry, event_roster_entry and
+ * attendee_attendee, and writes back only the rows that differ. Every method returns how many rows it
+ * corrected, which is the drift it found.
+ */
+@Repository
+@RequiredArgsConstructor
+class ReadModelReconciliationRepository {
+
+    // Events without a recent sync; in-flight counter deltas of busier events would be counted twice
+    private static final String FIND_QUIET_EVENTS = """
+            SELECT s.event_id
+            FROM analytics_event_summary s
+            WHERE NOT EXISTS (
+                SELECT 1 FROM capture_entry e
+                WHERE e.event_id = s.event_id AND e.sync_timestamp > ?
+            )
+            ORDER BY s.event_id
+            """;
+
+    // Blocks counter flushes for these events until the chunk commits
+    private static final String LOCK_EVENTS = """
+            SELECT event_id FROM analytics_event_summary
+            WHERE event_id = ANY(?)
+            ORDER BY event_id
+            FOR UPDATE
+            """;
+
+    private static final String RECONCILE_EVENT_SUMMARIES = """
+            UPDATE analytics_event_summary s
+            SET entry_count = x.entry_count,
+                roster_count = x.roster_count,
+                first_scan_at = x.first_scan_at,
+                last_scan_at = x.last_scan_at
+            FROM (
+                SELECT ids.event_id,
+                       COALESCE(e.entry_count, 0) AS entry_count,
+                       e.first_scan_at,
+                       e.last_scan_at,
+                       (SELECT COUNT(*) FROM event_roster_entry r WHERE r.event_id = ids.event_id) AS roster_count
+                FROM unnest(?::bigint[]) AS ids(event_id)
+                LEFT JOIN (
+                    SELECT event_id, COUNT(*) AS entry_count,
+                           MIN(scan_timestamp) AS first_scan_at, MAX(scan_timestamp) AS last_scan_at
+                    FROM capture_entry
+                    WHERE event_id = ANY(?)
+                    GROUP BY event_id
+                ) e ON e.event_id = ids.event_id
+            ) x
+            WHERE s.event_id = x.event_id
+              AND (s.entry_count, s.roster_count, s.first_scan_at, s.last_scan_at)
+                  IS DISTINCT FROM (x.entry_count, x.roster_count, x.first_scan_at, x.last_scan_at)
+            """;
+
+    private static final String RECONCILE_SESSION_SUMMARIES = """
+            WITH expected AS (
+                SELECT session_id, event_id, COUNT(*) AS entry_count
+                FROM capture_entry
+                WHERE event_id = ANY(?) AND session_id IS NOT NULL
+                GROUP BY session_id, event_id
+            ), upserted AS (
+                INSERT INTO analytics_session_summary (session_id, event_id, entry_count)
+                SELECT session_id, event_id, entry_count FROM expected
+                ON CONFLICT (session_id) DO UPDATE
+                    SET event_id = EXCLUDED.event_id, entry_count = EXCLUDED.entry_count
+                    WHERE (analytics_session_summary.event_id, analytics_session_summary.entry_count)
+                          IS DISTINCT FROM (EXCLUDED.event_id, EXCLUDED.entry_count)
+                RETURNING 1
+            ), removed AS (
+                DELETE FROM analytics_session_summary s
+                WHERE s.event_id = ANY(?)
+                  AND NOT EXISTS (SELECT 1 FROM expected x WHERE x.session_id = s.session_id)
+                RETURNING s.entry_count
+            )
+            SELECT (SELECT COUNT(*) FROM upserted) + (SELECT COUNT(*) FROM removed WHERE entry_count <> 0)
+            """;
+
+    private static final String RECONCILE_SCANNER_SUMMARIES = """
+            WITH expected AS (
+                SELECT event_id, scanner_id, COUNT(*) AS entry_count
+                FROM capture_entry
+                WHERE event_id = ANY(?)
+                GROUP BY event_id, scanner_id
+            ), upserted AS (
+                INSERT INTO analytics_scanner_summary (event_id, scanner_id, entry_count)
+                SELECT event_id, scanner_id, entry_count FROM expected
+                ON CONFLICT (event_id, scanner_id) DO UPDATE
+                    SET entry_count = EXCLUDED.entry_count
+                    WHERE analytics_scanner_summary.entry_count <> EXCLUDED.entry_count
+                RETURNING 1
+            ), removed AS (
+                DELETE FROM analytics_scanner_summary s
+                WHERE s.event_id = ANY(?)
+                  AND NOT EXISTS (SELECT 1 FROM expected x WHERE x.event_id = s.event_id AND x.scanner_id = s.scanner_id)
+                RETURNING s.entry_count
+            )
+            SELECT (SELECT COUNT(*) FROM upserted) + (SELECT COUNT(*) FROM removed WHERE entry_count <> 0)
+            """;
+
+    private static final String RECONCILE_ENTRY_TIMESERIES = """
+            WITH expected AS (
+                SELECT event_id, session_id, date_trunc('minute', scan_timestamp) AS bucket_start, COUNT(*) AS entry_count
+                FROM capture_entry
+                WHERE event_id = ANY(?)
+                GROUP BY event_id, session_id, date_trunc('minute', scan_timestamp)
+            ), upserted AS (
+                INSERT INTO analytics_entry_timeseries (event_id, session_id, bucket_start, entry_count)
+                SELECT event_id, session_id, bucket_start, entry_count FROM expected
+                ON CONFLICT (event_id, session_id, bucket_start) DO UPDATE
+                    SET entry_count = EXCLUDED.entry_count
+                    WHERE analytics_entry_timeseries.entry_count <> EXCLUDED.entry_count
+                RETURNING 1
+            ), removed AS (
+                DELETE FROM analytics_entry_timeseries t
+                WHERE t.event_id = ANY(?)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM expected x
+                      WHERE x.event_id = t.event_id
+                        AND x.session_id IS NOT DISTINCT FROM t.session_id
+                        AND x.bucket_start = t.bucket_start
+                  )
+                RETURNING t.entry_count
+            )
+            SELECT (SELECT COUNT(*) FROM upserted) + (SELECT COUNT(*) FROM removed WHERE entry_count <> 0)
+            """;
+
+    // Each attendee with at least one entry counts once per event, under their current attributes
+    // Attendees whose entries are all gone stop counting; attendees with entries but no marker start counting
+    // under their first entry's snapshot. Markers already in place keep the attributes they were counted under.
+    private static final String RECONCILE_BREAKDOWN_ATTENDEES = """
+            WITH removed AS (
+                DELETE FROM analytics_breakdown_attendee m
+                WHERE m.event_id = ANY(?)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM capture_entry e WHERE e.event_id = m.event_id AND e.attendee_id = m.attendee_id
+                  )
+                RETURNING 1
+            ), added AS (
+                INSERT INTO analytics_breakdown_attendee (event_id, attendee_id, attributes)
+                SELECT DISTINCT ON (e.event_id, e.attendee_id) e.event_id, e.attendee_id, e.snapshot_attributes
+                FROM capture_entry e
+                WHERE e.event_id = ANY(?)
+                ORDER BY e.event_id, e.attendee_id, e.id
+                ON CONFLICT (event_id, attendee_id) DO NOTHING
+                RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM removed) + (SELECT COUNT(*) FROM added)
+            """;
+
+    // Run after RECONCILE_BREAKDOWN_ATTENDEES, in the same transaction
+    private static final String RECONCILE_ATTRIBUTE_BREAKDOWNS = """
+            WITH expected AS (
+                SELECT m.event_id, kv.key AS attribute_name, kv.value AS attribute_value, COUNT(*) AS attendee_count
+                FROM analytics_breakdown_attendee m
+                CROSS JOIN LATERAL jsonb_each_text(m.attributes) kv
+                WHERE m.event_id = ANY(?) AND kv.value IS NOT NULL
+                GROUP BY m.event_id, kv.key, kv.value
+            ), upserted AS (
+                INSERT INTO analytics_attribute_breakdown (event_id, attribute_name, attribute_value, attendee_count)
+                SELECT event_id, attribute_name, attribute_value, attendee_count FROM expected
+                ON CONFLICT (event_id, attribute_name, attribute_value) DO UPDATE
+                    SET attendee_count = EXCLUDED.attendee_count
+                    WHERE analytics_attribute_breakdown.attendee_count <> EXCLUDED.attendee_count
+                RETURNING 1
+            ), removed AS (
+                DELETE FROM analytics_attribute_breakdown b
+                WHERE b.event_id = ANY(?)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM expected x
+                      WHERE x.event_id = b.event_id
+                        AND x.attribute_name = b.attribute_name
+                        AND x.attribute_value = b.attribute_value
+                  )
+                RETURNING b.attendee_count
+            )
+            SELECT (SELECT COUNT(*) FROM upserted) + (SELECT COUNT(*) FROM removed WHERE attendee_count <> 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    List<Long> findQuietEventIds(Instant lastSyncBefore) {
+        return jdbcTemplate.queryForList(FIND_QUIET_EVENTS, Long.class, lastSyncBefore.atOffset(ZoneOffset.UTC));
+    }
+
+    int countEvents() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM analytics_event_summary", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    // All methods below must run in the chunk's transaction
+    void lockEvents(List<Long> eventIds) {
+        jdbcTemplate.query(LOCK_EVENTS, ps -> bindEventIds(ps, eventIds, 1), rs -> {
+        });
+    }
+
+    int reconcileEventSummaries(List<Long> eventIds) {
+        return jdbcTemplate.update(RECONCILE_EVENT_SUMMARIES, ps -> bindEventIds(ps, eventIds, 2));
+    }
+
+    int reconcileSessionSummaries(List<Long> eventIds) {
+        return countCorrections(RECONCILE_SESSION_SUMMARIES, eventIds);
+    }
+
+    int reconcileScannerSummaries(List<Long> eventIds) {
+        return countCorrections(RECONCILE_SCANNER_SUMMARIES, eventIds);
+    }
+
+    int reconcileEntryTimeseries(List<Long> eventIds) {
+        return countCorrections(RECONCILE_ENTRY_TIMESERIES, eventIds);
+    }
+
+    int reconcileAttributeBreakdowns(List<Long> eventIds) {
+        return countCorrections(RECONCILE_BREAKDOWN_ATTENDEES, eventIds)
+                + countCorrections(RECONCILE_ATTRIBUTE_BREAKDOWNS, eventIds);
+    }
+
+    private int countCorrections(String sql, List<Long> eventIds) {
+        Long corrected = jdbcTemplate.query(sql, ps -> bindEventIds(ps, eventIds, 2),
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+        return corrected != null ? corrected.intValue() : 0;
+    }
+
+    // The same event ID array bound to each of the statement's first `count` parameters
+    private static void bindEventIds(PreparedStatement ps, List<Long> eventIds, int count) throws SQLException {
+        var array = ps.getConnection().createArrayOf("bigint", eventIds.toArray());
+        for (int i = 1; i <= count; i++) {
+            ps.setArray(i, array);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import java.time.Instant;
+
+// Rows corrected per read model; a non-zero count is drift the incremental counters had accumulated
+public record ReconciliationReportDto(
+        Instant startedAt,
+        long durationMillis,
+        int eventsChecked,
+        int eventsSkippedAsActive,
+        int failedChunks,
+        int eventSummariesCorrected,
+        int sessionSummariesCorrected,
+        int scannerSummariesCorrected,
+        int timeseriesBucketsCorrected,
+        int attributeBreakdownsCorrected,
+        int attendeeSummariesCorrected
+) {
+}
@@ -1,7 +1,7 @@
 package com.github.fjbaldon.attendex.platform.analytics;
 
+import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -12,8 +12,7 @@ import lombok.NoArgsConstructor;
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 class ScannerSummary {
-    @Id
-    private Long scannerId;
-    private Long eventId;
+    @EmbeddedId
+    private ScannerSummaryId id;
     private long entryCount;
 }
@@ -0,0 +1,22 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import jakarta.persistence.Embeddable;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@NoArgsConstructor
+@EqualsAndHashCode
+class ScannerSummaryId implements Serializable {
+    private Long eventId;
+    private Long scannerId;
+
+    ScannerSummaryId(Long eventId, Long scannerId) {
+        this.eventId = eventId;
+        this.scannerId = scannerId;
+    }
+}
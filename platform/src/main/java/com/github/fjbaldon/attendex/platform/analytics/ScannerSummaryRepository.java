@@ -4,21 +4,20 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
-interface ScannerSummaryRepository extends CrudRepository<ScannerSummary, Long> {
+interface ScannerSummaryRepository extends CrudRepository<ScannerSummary, ScannerSummaryId> {
 
-    List<ScannerSummary> findAllByEventId(Long eventId);
+    List<ScannerSummary> findAllByIdEventId(Long eventId);
 
+    // Parallel arrays, one element per (event, scanner)
     @Modifying
-    @Transactional
     @Query(nativeQuery = true, value = """
-        INSERT INTO analytics_scanner_summary (scanner_id, event_id, entry_count)
-        VALUES (:scannerId, :eventId, 1)
-        ON CONFLICT (scanner_id)
-        DO UPDATE SET entry_count = analytics_scanner_summary.entry_count + 1
+        INSERT INTO analytics_scanner_summary (event_id, scanner_id, entry_count)
+        SELECT * FROM unnest(CAST(:eventIds AS bigint[]), CAST(:scannerIds AS bigint[]), CAST(:counts AS bigint[]))
+        ON CONFLICT (event_id, scanner_id)
+        DO UPDATE SET entry_count = analytics_scanner_summary.entry_count + EXCLUDED.entry_count
     """)
-    void incrementCount(@Param("scannerId") Long scannerId, @Param("eventId") Long eventId);
+    void incrementCounts(@Param("eventIds") Long[] eventIds, @Param("scannerIds") Long[] scannerIds, @Param("counts") Long[] counts);
 }
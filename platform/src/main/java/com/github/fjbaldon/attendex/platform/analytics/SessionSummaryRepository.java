@@ -4,7 +4,6 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,13 +11,13 @@ interface SessionSummaryRepository extends CrudRepository<SessionSummary, Long>
 
     List<SessionSummary> findAllByEventId(Long eventId);
 
+    // Parallel arrays, one element per session
     @Modifying
-    @Transactional
     @Query(nativeQuery = true, value = """
         INSERT INTO analytics_session_summary (session_id, event_id, entry_count)
-        VALUES (:sessionId, :eventId, 1)
+        SELECT * FROM unnest(CAST(:sessionIds AS bigint[]), CAST(:eventIds AS bigint[]), CAST(:counts AS bigint[]))
         ON CONFLICT (session_id)
-        DO UPDATE SET entry_count = analytics_session_summary.entry_count + 1
+        DO UPDATE SET entry_count = analytics_session_summary.entry_count + EXCLUDED.entry_count
     """)
-    void incrementCount(@Param("sessionId") Long sessionId, @Param("eventId") Long eventId);
+    void incrementCounts(@Param("sessionIds") Long[] sessionIds, @Param("eventIds") Long[] eventIds, @Param("counts") Long[] counts);
 }
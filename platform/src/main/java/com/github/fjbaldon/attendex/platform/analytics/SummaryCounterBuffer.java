@@ -0,0 +1,229 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.capture.EntriesCapturedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for the entry counters of the event, session and scanner summaries and the arrival
+ * time series, and for each event's first and last scan time. Listeners add to in-memory {@link LongAdder}s; a single flusher applies
+ * everything accumulated since the last flush with one bulk statement per table, so hot summary rows are
+ * locked once per flush instead of once per sync batch.
+ * <p>
+ * Durability: a delta lives only in memory between its listener completing and the next flush. Flushes
+ * run every second, whenever the buffer grows past its threshold, and on shutdown; a failed flush puts its
+ * deltas back for the next attempt. Events whose listener had not run yet stay incomplete in the
+ * publication log and are republished on restart, so a hard crash can only lose the last interval's deltas.
+ * <p>
+ * The other half of that contract is that a buffered delta is never republished: {@link #addEntries} has a
+ * listener of its own that does nothing else, and cannot fail once the delta is in. A flush it triggers
+ * commits in a transaction of its own, so a failed flush does not roll back the listener's.
+ */
+@Component
+@Slf4j
+class SummaryCounterBuffer {
+
+    private final EventSummaryRepository eventSummaryRepository;
+    private final SessionSummaryRepository sessionSummaryRepository;
+    private final ScannerSummaryRepository scannerSummaryRepository;
+    private final EntryTimeseriesRepository entryTimeseriesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushThreshold;
+
+    // Adders take the read lock, the flusher takes the write lock to swap in an empty generation
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Counters counters = new Counters();
+
+    SummaryCounterBuffer(
+            EventSummaryRepository eventSummaryRepository,
+            SessionSummaryRepository sessionSummaryRepository,
+            ScannerSummaryRepository scannerSummaryRepository,
+            EntryTimeseriesRepository entryTimeseriesRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.analytics.counter-flush-threshold:5000}") int flushThreshold
+    ) {
+        this.eventSummaryRepository = eventSummaryRepository;
+        this.sessionSummaryRepository = sessionSummaryRepository;
+        this.scannerSummaryRepository = scannerSummaryRepository;
+        this.entryTimeseriesRepository = entryTimeseriesRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushThreshold = flushThreshold;
+    }
+
+    void addEntries(EntriesCapturedEvent.EventDelta delta) {
+        Long eventId = delta.eventId();
+        int keys;
+        swapLock.readLock().lock();
+        try {
+            Counters current = counters;
+            current.events.computeIfAbsent(eventId, k -> new EventCounter())
+                    .add(delta.entryCount(), delta.firstScanAt().toEpochMilli(), delta.lastScanAt().toEpochMilli());
+            delta.entriesBySessionId().forEach((sessionId, count) -> current.add(current.sessions, new SummaryKey(sessionId, eventId), count));
+            delta.entriesByScannerId().forEach((scannerId, count) -> current.add(current.scanners, new SummaryKey(scannerId, eventId), count));
+            delta.arrivals().forEach(arrival -> current.add(current.arrivals,
+                    new ArrivalKey(eventId, arrival.sessionId(), arrival.minuteStart().getEpochSecond()), arrival.count()));
+            keys = current.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        if (keys >= flushThreshold) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.counter-flush-ms:1000}")
+    void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    void flush() {
+        // Whoever loses the race leaves its deltas to the flush already running or the next tick
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            Counters drained;
+            swapLock.writeLock().lock();
+            try {
+                drained = counters;
+                if (drained.size() == 0) {
+                    return;
+                }
+                counters = new Counters();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(drained));
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} summary counters; keeping them for the next flush", drained.size(), e);
+                restore(drained);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Keys are sorted so concurrent flushes from other instances lock rows in the same order
+    private void write(Counters drained) {
+        Map<Long, EventCounter> events = new TreeMap<>(drained.events);
+        if (!events.isEmpty()) {
+            eventSummaryRepository.incrementEntryCounts(
+                    events.keySet().toArray(Long[]::new),
+                    events.values().stream().map(counter -> counter.entries.sum()).toArray(Long[]::new),
+                    events.values().stream().map(counter -> counter.firstScanMillis.get()).toArray(Long[]::new),
+                    events.values().stream().map(counter -> counter.lastScanMillis.get()).toArray(Long[]::new));
+        }
+
+        Map<SummaryKey, Long> sessions = sumSorted(drained.sessions, SummaryKey.ORDER);
+        if (!sessions.isEmpty()) {
+            sessionSummaryRepository.incrementCounts(
+                    sessions.keySet().stream().map(SummaryKey::id).toArray(Long[]::new),
+                    sessions.keySet().stream().map(SummaryKey::eventId).toArray(Long[]::new),
+                    sessions.values().toArray(Long[]::new));
+        }
+
+        Map<ArrivalKey, Long> arrivals = sumSorted(drained.arrivals, ArrivalKey.ORDER);
+        if (!arrivals.isEmpty()) {
+            entryTimeseriesRepository.incrementCounts(
+                    arrivals.keySet().stream().map(ArrivalKey::eventId).toArray(Long[]::new),
+                    arrivals.keySet().stream().map(ArrivalKey::sessionId).toArray(Long[]::new),
+                    arrivals.keySet().stream().map(ArrivalKey::minuteEpochSecond).toArray(Long[]::new),
+                    arrivals.values().toArray(Long[]::new));
+        }
+
+        Map<SummaryKey, Long> scanners = sumSorted(drained.scanners, SummaryKey.ORDER);
+        if (!scanners.isEmpty()) {
+            scannerSummaryRepository.incrementCounts(
+                    scanners.keySet().stream().map(SummaryKey::eventId).toArray(Long[]::new),
+                    scanners.keySet().stream().map(SummaryKey::id).toArray(Long[]::new),
+                    scanners.values().toArray(Long[]::new));
+        }
+    }
+
+    private void restore(Counters drained) {
+        swapLock.readLock().lock();
+        try {
+            Counters current = counters;
+            drained.events.forEach((key, counter) -> current.events.computeIfAbsent(key, k -> new EventCounter())
+                    .add(counter.entries.sum(), counter.firstScanMillis.get(), counter.lastScanMillis.get()));
+            drained.sessions.forEach((key, adder) -> current.add(current.sessions, key, adder.sum()));
+            drained.scanners.forEach((key, adder) -> current.add(current.scanners, key, adder.sum()));
+            drained.arrivals.forEach((key, adder) -> current.add(current.arrivals, key, adder.sum()));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static <K> Map<K, Long> sumSorted(Map<K, LongAdder> adders, Comparator<K> order) {
+        Map<K, Long> sums = new TreeMap<>(order);
+        adders.forEach((key, adder) -> {
+            long sum = adder.sum();
+            if (sum != 0) {
+                sums.put(key, sum);
+            }
+        });
+        return sums;
+    }
+
+    private static final class Counters {
+        final Map<Long, EventCounter> events = new ConcurrentHashMap<>();
+        final Map<SummaryKey, LongAdder> sessions = new ConcurrentHashMap<>();
+        final Map<SummaryKey, LongAdder> scanners = new ConcurrentHashMap<>();
+        final Map<ArrivalKey, LongAdder> arrivals = new ConcurrentHashMap<>();
+
+        <K> void add(Map<K, LongAdder> adders, K key, long count) {
+            adders.computeIfAbsent(key, k -> new LongAdder()).add(count);
+        }
+
+        int size() {
+            return events.size() + sessions.size() + scanners.size() + arrivals.size();
+        }
+    }
+
+    private static final class EventCounter {
+        final LongAdder entries = new LongAdder();
+        final LongAccumulator firstScanMillis = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        final LongAccumulator lastScanMillis = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void add(long count, long firstScan, long lastScan) {
+            entries.add(count);
+            firstScanMillis.accumulate(firstScan);
+            lastScanMillis.accumulate(lastScan);
+        }
+    }
+
+    // Session or scanner ID together with the event it was counted for
+    private record SummaryKey(Long id, Long eventId) {
+        static final Comparator<SummaryKey> ORDER = Comparator.comparing(SummaryKey::id).thenComparing(SummaryKey::eventId);
+    }
+
+    // One minute of arrivals; sessionId is null for unscheduled entries
+    private record ArrivalKey(Long eventId, Long sessionId, long minuteEpochSecond) {
+        static final Comparator<ArrivalKey> ORDER = Comparator.comparing(ArrivalKey::eventId)
+                .thenComparing(ArrivalKey::sessionId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingLong(ArrivalKey::minuteEpochSecond);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import java.time.Instant;
+import java.util.List;
+
+public record TimelineDto(
+        Long eventId,
+        Long sessionId, // Null when the timeline covers the whole event
+        int bucketMinutes,
+        List<Point> points, // Buckets without arrivals are omitted
+        List<SessionMarker> sessions
+) {
+    public record Point(Instant bucketStart, long count) {
+    }
+
+    public record SessionMarker(Long sessionId, String name, Instant targetTime) {
+    }
+}
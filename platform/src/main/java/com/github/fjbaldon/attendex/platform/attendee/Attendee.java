@@ -18,7 +18,8 @@ import java.util.Map;
 class Attendee {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendee_attendee_id_seq")
+    @SequenceGenerator(name = "attendee_attendee_id_seq", sequenceName = "attendee_attendee_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
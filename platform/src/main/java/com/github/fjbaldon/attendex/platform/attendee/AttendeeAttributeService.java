@@ -45,6 +45,7 @@ class AttendeeAttributeService {
             }
             attendeeRepository.renameAttributeKey(organizationId, attribute.getName(), newName);
             attribute.setName(newName);
+            eventPublisher.publishEvent(new AttendeesChangedEvent(organizationId));
         }
 
         attribute.updateOptions(newOptions);
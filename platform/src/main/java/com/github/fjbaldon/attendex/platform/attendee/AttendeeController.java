@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/attendees")
@@ -75,24 +76,46 @@ class AttendeeController {
     }
 
     @PostMapping(value = "/import/analyze", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
-    public ResponseEntity<AttendeeImportAnalysisDto> analyzeAttendees(
+    public ResponseEntity<AttendeeImportSessionDto> analyzeAttendees(
             @RequestPart("file") MultipartFile file,
             @RequestPart("config") ImportConfigurationDto config,
             @AuthenticationPrincipal CustomUserDetails user) throws IOException {
         return ResponseEntity.ok(attendeeFacade.analyzeAttendeeImport(user.getOrganizationId(), file, config));
     }
 
-    @PostMapping("/import/commit")
-    public ResponseEntity<Void> commitAttendees(
-            @Valid @RequestBody AttendeeImportCommitRequestDto request,
+    @GetMapping("/import/sessions/{sessionId}")
+    public ResponseEntity<AttendeeImportSessionDto> getImportSession(
+            @PathVariable UUID sessionId,
             @AuthenticationPrincipal CustomUserDetails user) {
-        attendeeFacade.commitAttendeeImport(
-                user.getOrganizationId(),
-                request.attendees(),
-                request.updateExisting(),
-                request.newAttributes()
-        );
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        return ResponseEntity.ok(attendeeFacade.getImportSession(user.getOrganizationId(), sessionId));
+    }
+
+    @PostMapping("/import/sessions/{sessionId}/commit")
+    public ResponseEntity<AttendeeImportSessionDto> commitImportSession(
+            @PathVariable UUID sessionId,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        AttendeeImportSessionDto session = attendeeFacade.commitImportSession(user.getOrganizationId(), sessionId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(session);
+    }
+
+    @GetMapping("/import/sessions/{sessionId}/errors")
+    public ResponseEntity<String> getImportErrors(
+            @PathVariable UUID sessionId,
+            @AuthenticationPrincipal CustomUserDetails user) throws IOException {
+        String csvContent = attendeeFacade.exportImportErrors(user.getOrganizationId(), sessionId);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=import_errors.csv")
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .body(csvContent);
+    }
+
+    @DeleteMapping("/import/sessions/{sessionId}")
+    public ResponseEntity<Void> discardImportSession(
+            @PathVariable UUID sessionId,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        attendeeFacade.discardImportSession(user.getOrganizationId(), sessionId);
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/import-template")
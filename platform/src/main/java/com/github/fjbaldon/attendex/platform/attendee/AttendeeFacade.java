@@ -8,9 +8,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +22,7 @@ public class AttendeeFacade {
     private final AttendeeQueryService queryService;
     private final AttendeeAttributeService attributeService;
     private final AttendeeImportService importService;
+    private final AttendeeImportJob importJob;
 
     // --- ATTENDEE INGEST ---
 
@@ -50,6 +53,12 @@ public class AttendeeFacade {
         return queryService.findAttendees(organizationId, query, attributeFilters, pageable);
     }
 
+    // Active attendees on the event's roster matching the query and filters, in one statement
+    @Transactional(readOnly = true)
+    public Page<AttendeeDto> findRosterAttendees(Long organizationId, Long eventId, String query, Map<String, String> attributeFilters, Pageable pageable) {
+        return queryService.findRosterAttendees(organizationId, eventId, query, attributeFilters, pageable);
+    }
+
     @Transactional(readOnly = true)
     public Optional<AttendeeDto> findAttendeeById(Long attendeeId, Long organizationId) {
         return queryService.findAttendeeById(attendeeId, organizationId);
@@ -60,6 +69,11 @@ public class AttendeeFacade {
         return queryService.findAttendeesByIds(attendeeIds);
     }
 
+    @Transactional(readOnly = true)
+    public List<AttendeeDto> findActiveAttendeesByIds(Long organizationId, Collection<Long> attendeeIds) {
+        return queryService.findActiveAttendeesByIds(organizationId, attendeeIds);
+    }
+
     @Transactional(readOnly = true)
     public List<Long> findAttendeeIdsByFilters(Long organizationId, Map<String, String> filters) {
         return queryService.findAttendeeIdsByFilters(organizationId, filters);
@@ -98,23 +112,35 @@ public class AttendeeFacade {
         return importService.extractCsvHeaders(file);
     }
 
-    @Transactional(readOnly = true)
-    public AttendeeImportAnalysisDto analyzeAttendeeImport(Long organizationId, MultipartFile file, ImportConfigurationDto config) throws IOException {
+    @Transactional
+    public AttendeeImportSessionDto analyzeAttendeeImport(Long organizationId, MultipartFile file, ImportConfigurationDto config) throws IOException {
         return importService.analyzeAttendeeImport(organizationId, file, config);
     }
 
-    @Transactional
-    public void commitAttendeeImport(Long organizationId, List<CreateAttendeeDto> attendees, boolean updateExisting, List<String> newAttributes) {
-        importService.commitAttendeeImport(organizationId, attendees, updateExisting, newAttributes);
+    @Transactional(readOnly = true)
+    public AttendeeImportSessionDto getImportSession(Long organizationId, UUID sessionId) {
+        return importService.getImportSession(organizationId, sessionId);
+    }
+
+    // Not transactional: the session must be COMMITTING before the background job picks it up
+    public AttendeeImportSessionDto commitImportSession(Long organizationId, UUID sessionId) {
+        AttendeeImportService.CommitStarted started = importService.startCommit(organizationId, sessionId);
+        importJob.run(sessionId, started.attempt());
+        return started.session();
     }
 
     @Transactional(readOnly = true)
-    public String generateImportTemplate(Long organizationId) {
-        return importService.generateImportTemplate(organizationId);
+    public String exportImportErrors(Long organizationId, UUID sessionId) throws IOException {
+        return importService.exportInvalidRows(organizationId, sessionId);
+    }
+
+    @Transactional
+    public void discardImportSession(Long organizationId, UUID sessionId) {
+        importService.discardImportSession(organizationId, sessionId);
     }
 
     @Transactional(readOnly = true)
-    public List<Long> findAttendeeIdsByAttributes(Long organizationId, Map<String, String> attributes) {
-        return queryService.findIdsByCriteria(organizationId, null, attributes);
+    public String generateImportTemplate(Long organizationId) {
+        return importService.generateImportTemplate(organizationId);
     }
 }
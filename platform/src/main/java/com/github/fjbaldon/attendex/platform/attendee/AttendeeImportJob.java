@@ -0,0 +1,111 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Commits an import session in the background, one chunk of rows per transaction, recording the progress
+ * with each chunk. A commit that fails or is interrupted leaves the session FAILED with its remaining rows,
+ * and committing it again resumes where it stopped. Every transaction of the job first locks the session and
+ * checks that its commit attempt is still the current one, and the job stops as soon as it is not.
+ */
+@Component
+@Slf4j
+class AttendeeImportJob {
+
+    private static final int COMMIT_CHUNK_SIZE = 5000;
+    // Longer than any chunk takes; a committing session idle for this long lost its job
+    private static final Duration STALL_TIMEOUT = Duration.ofMinutes(15);
+    private static final Duration SESSION_RETENTION = Duration.ofDays(1);
+
+    private final AttendeeImportSessionRepository sessionRepository;
+    private final AttendeeImportRepository importRepository;
+    private final AttendeeImportService importService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    AttendeeImportJob(AttendeeImportSessionRepository sessionRepository,
+                      AttendeeImportRepository importRepository,
+                      AttendeeImportService importService,
+                      ApplicationEventPublisher eventPublisher,
+                      PlatformTransactionManager transactionManager) {
+        this.sessionRepository = sessionRepository;
+        this.importRepository = importRepository;
+        this.importService = importService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // The session must already be COMMITTING with the given attempt
+    @Async
+    public void run(UUID sessionId, int attempt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> loadCommitting(sessionId, attempt).ifPresent(session ->
+                    importService.mergeAttributeOptions(session.getOrganizationId(), session.getNewAttributes(),
+                            importRepository.findAttributeOptions(sessionId))));
+
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> commitNextChunk(sessionId, attempt)))) {
+                // Each chunk commits on its own
+            }
+
+            transactionTemplate.executeWithoutResult(status -> loadCommitting(sessionId, attempt).ifPresent(session -> {
+                session.committed();
+                if (session.getAttendeesCreated() + session.getAttendeesReactivated() + session.getAttendeesUpdated() > 0) {
+                    eventPublisher.publishEvent(new AttendeesImportedEvent(session.getOrganizationId(),
+                            session.getAttendeesCreated(), session.getAttendeesReactivated(), session.getAttendeesUpdated()));
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.error("Import session {} failed", sessionId, e);
+            transactionTemplate.executeWithoutResult(status -> loadCommitting(sessionId, attempt)
+                    .ifPresent(session -> session.failed("Import failed; commit it again to resume.")));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.attendee.import.sweep-ms:600000}")
+    void sweepSessions() {
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            int stalled = sessionRepository.failStalledBefore(AttendeeImportSession.Status.COMMITTING,
+                    AttendeeImportSession.Status.FAILED, "Import was interrupted; commit it again to resume.",
+                    now.minus(STALL_TIMEOUT));
+            int expired = sessionRepository.deleteIdleBefore(AttendeeImportSession.Status.COMMITTING,
+                    now.minus(SESSION_RETENTION));
+            if (stalled + expired > 0) {
+                log.info("Import sessions: {} stalled commits failed, {} expired sessions removed", stalled, expired);
+            }
+        });
+    }
+
+    private boolean commitNextChunk(UUID sessionId, int attempt) {
+        Optional<AttendeeImportSession> committing = loadCommitting(sessionId, attempt);
+        if (committing.isEmpty()) {
+            return false;
+        }
+        AttendeeImportSession session = committing.get();
+        Optional<AttendeeImportRepository.Chunk> chunk = importRepository.importNextChunk(
+                sessionId, session.getOrganizationId(), session.isUpdateExisting(), COMMIT_CHUNK_SIZE);
+        chunk.ifPresent(c -> session.progressed(c.rows(), c.result()));
+        return chunk.isPresent();
+    }
+
+    // Empty, with a log line, when the session is gone or no longer committing this attempt
+    private Optional<AttendeeImportSession> loadCommitting(UUID sessionId, int attempt) {
+        Optional<AttendeeImportSession> session = sessionRepository.findForUpdate(sessionId)
+                .filter(s -> s.isCommitting(attempt));
+        if (session.isEmpty()) {
+            log.warn("Import session {} is no longer committing attempt {}; stopping its job", sessionId, attempt);
+        }
+        return session;
+    }
+}
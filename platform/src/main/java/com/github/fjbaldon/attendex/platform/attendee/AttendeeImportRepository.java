@@ -0,0 +1,257 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Rows of an import session: streamed with COPY while the file is analyzed and moved into attendee_import_row,
+ * whose unique index on the session's identities drops repeats of an identity already staged. They are then
+ * written to attendee_attendee a chunk at a time by three set-based statements that update the active
+ * attendees, reactivate soft-deleted ones and insert the rest. Each chunk's rows are deleted in the same
+ * transaction, so the remaining rows are always exactly the work left.
+ */
+@Repository
+@RequiredArgsConstructor
+class AttendeeImportRepository {
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    // COPY cannot skip conflicting rows, so each chunk lands in a transaction-scoped table first
+    private static final String CREATE_COPY_TABLE = """
+            CREATE TEMPORARY TABLE IF NOT EXISTS attendee_import_copy
+                (LIKE attendee_import_row INCLUDING DEFAULTS) ON COMMIT DROP
+            """;
+
+    private static final String COPY_ROWS = """
+            COPY attendee_import_copy (session_id, line, identity, first_name, last_name, attributes, existing)
+            FROM STDIN (FORMAT csv)
+            """;
+
+    // Rows are inserted in file order, so the first line of an identity is the one kept
+    private static final String MOVE_COPIED_ROWS = """
+            WITH copied AS (
+                DELETE FROM attendee_import_copy RETURNING *
+            )
+            INSERT INTO attendee_import_row (session_id, line, identity, first_name, last_name, attributes, existing)
+            SELECT session_id, line, identity, first_name, last_name, attributes, existing
+            FROM copied
+            ORDER BY line
+            ON CONFLICT (session_id, identity) DO NOTHING
+            RETURNING line
+            """;
+
+    private static final String FIND_CHUNK_END = """
+            SELECT MAX(line) FROM (
+                SELECT line FROM attendee_import_row WHERE session_id = ? ORDER BY line LIMIT ?
+            ) chunk
+            """;
+
+    // Identities are unique within a session; see uq_attendee_import_row_identity
+    private static final String CHUNK = """
+            WITH staged AS (
+                SELECT line, identity, first_name, last_name, attributes
+                FROM attendee_import_row
+                WHERE session_id = ? AND line <= ?
+            )
+            """;
+
+    private static final String UPDATE_ACTIVE = CHUNK + """
+            UPDATE attendee_attendee a
+            SET first_name = s.first_name, last_name = s.last_name, attributes = s.attributes
+            FROM staged s
+            WHERE a.organization_id = ? AND a.identity = s.identity AND a.deleted_at IS NULL
+              AND (a.first_name, a.last_name, a.attributes) IS DISTINCT FROM (s.first_name, s.last_name, s.attributes)
+            """;
+
+    // The most recently created soft-deleted attendee of each identity that has no active one
+    private static final String REACTIVATE_DELETED = CHUNK + """
+            , revivable AS (
+                SELECT DISTINCT ON (d.identity) d.id, s.first_name, s.last_name, s.attributes
+                FROM staged s
+                JOIN attendee_attendee d ON d.organization_id = ? AND d.identity = s.identity AND d.deleted_at IS NOT NULL
+                WHERE NOT EXISTS (SELECT 1 FROM attendee_attendee x
+                                  WHERE x.organization_id = d.organization_id AND x.identity = s.identity AND x.deleted_at IS NULL)
+                ORDER BY d.identity, d.id DESC
+            )
+            UPDATE attendee_attendee a
+            SET deleted_at = NULL, first_name = r.first_name, last_name = r.last_name, attributes = r.attributes
+            FROM revivable r
+            WHERE a.id = r.id
+            """;
+
+    // The id column's default takes one sequence value per row. The sequence steps by Attendee's allocation
+    // size, so each row uses up a whole block and never lands in a block Hibernate's pooled optimizer hands out
+    private static final String INSERT_NEW = CHUNK + """
+            INSERT INTO attendee_attendee (organization_id, identity, first_name, last_name, attributes, created_at)
+            SELECT ?, s.identity, s.first_name, s.last_name, s.attributes, now()
+            FROM staged s
+            WHERE NOT EXISTS (SELECT 1 FROM attendee_attendee x
+                              WHERE x.organization_id = ? AND x.identity = s.identity AND x.deleted_at IS NULL)
+            ORDER BY s.line
+            ON CONFLICT (organization_id, identity) WHERE deleted_at IS NULL DO NOTHING
+            """;
+
+    private static final String DELETE_CHUNK = """
+            DELETE FROM attendee_import_row WHERE session_id = ? AND line <= ?
+            """;
+
+    private static final String FIND_PREVIEW = """
+            SELECT identity, first_name, last_name, existing
+            FROM attendee_import_row
+            WHERE session_id = ?
+            ORDER BY line
+            LIMIT ?
+            """;
+
+    private static final String INSERT_INVALID = """
+            INSERT INTO attendee_import_invalid_row (session_id, line, row_values, error) VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String FIND_INVALID = """
+            SELECT line, row_values, error
+            FROM attendee_import_invalid_row
+            WHERE session_id = ?
+            ORDER BY line
+            """;
+
+    private static final String FIND_ATTRIBUTE_OPTIONS = """
+            SELECT a.key, a.value
+            FROM attendee_import_row r, jsonb_each_text(r.attributes) a
+            WHERE r.session_id = ?
+            GROUP BY a.key, a.value
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    record StagedRow(long line, CreateAttendeeDto attendee, boolean existing) {
+    }
+
+    record InvalidRow(long line, String[] values, String error) {
+    }
+
+    record Result(int created, int reactivated, int updated) {
+    }
+
+    record Chunk(int rows, Result result) {
+    }
+
+    // Must run in a transaction; returns the lines that were staged, leaving out repeats of an identity already staged
+    Set<Long> stageRows(UUID sessionId, List<StagedRow> rows) {
+        if (rows.isEmpty()) {
+            return Set.of();
+        }
+        jdbcTemplate.execute(CREATE_COPY_TABLE);
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_ROWS);
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_BYTES);
+                for (StagedRow row : rows) {
+                    CreateAttendeeDto dto = row.attendee();
+                    buffer.append(sessionId).append(',')
+                            .append(row.line()).append(',')
+                            .append(csv(dto.identity())).append(',')
+                            .append(csv(dto.firstName())).append(',')
+                            .append(csv(dto.lastName())).append(',')
+                            .append(dto.attributes() == null ? "" : csv(toJson(dto.attributes()))).append(',')
+                            .append(row.existing())
+                            .append('\n');
+                    if (buffer.length() >= COPY_BUFFER_BYTES) {
+                        write(copy, buffer);
+                    }
+                }
+                write(copy, buffer);
+                return copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        });
+        return new HashSet<>(jdbcTemplate.queryForList(MOVE_COPIED_ROWS, Long.class));
+    }
+
+    void stageInvalidRows(UUID sessionId, List<InvalidRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_INVALID, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, sessionId);
+            ps.setLong(2, row.line());
+            ps.setArray(3, ps.getConnection().createArrayOf("text", row.values()));
+            ps.setString(4, row.error());
+        });
+    }
+
+    // In file order, handed over one at a time
+    void forEachInvalidRow(UUID sessionId, Consumer<InvalidRow> action) {
+        jdbcTemplate.query(FIND_INVALID, rs -> {
+            action.accept(new InvalidRow(
+                    rs.getLong("line"),
+                    (String[]) rs.getArray("row_values").getArray(),
+                    rs.getString("error")
+            ));
+        }, sessionId);
+    }
+
+    // Empty once every row of the session has been written
+    Optional<Chunk> importNextChunk(UUID sessionId, Long organizationId, boolean updateExisting, int size) {
+        Long upTo = jdbcTemplate.queryForObject(FIND_CHUNK_END, Long.class, sessionId, size);
+        if (upTo == null) {
+            return Optional.empty();
+        }
+        // Updates run first so reactivated and inserted rows are not written twice
+        int updated = updateExisting ? jdbcTemplate.update(UPDATE_ACTIVE, sessionId, upTo, organizationId) : 0;
+        int reactivated = jdbcTemplate.update(REACTIVATE_DELETED, sessionId, upTo, organizationId);
+        int created = jdbcTemplate.update(INSERT_NEW, sessionId, upTo, organizationId, organizationId);
+        int rows = jdbcTemplate.update(DELETE_CHUNK, sessionId, upTo);
+        return Optional.of(new Chunk(rows, new Result(created, reactivated, updated)));
+    }
+
+    List<AttendeeImportSessionDto.PreviewRow> findPreview(UUID sessionId, int limit) {
+        return jdbcTemplate.query(FIND_PREVIEW, (rs, rowNum) -> new AttendeeImportSessionDto.PreviewRow(
+                rs.getString("identity"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getBoolean("existing")
+        ), sessionId, limit);
+    }
+
+    Map<String, Set<String>> findAttributeOptions(UUID sessionId) {
+        Map<String, Set<String>> options = new HashMap<>();
+        jdbcTemplate.query(FIND_ATTRIBUTE_OPTIONS, rs -> {
+            options.computeIfAbsent(rs.getString("key"), k -> new HashSet<>()).add(rs.getString("value"));
+        }, sessionId);
+        return options;
+    }
+
+    private static void write(CopyIn copy, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // Quoted, so empty strings stay distinct from NULL
+    private static String csv(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private String toJson(Map<String, Object> attributes) {
+        try {
+            return objectMapper.writeValueAsString(attributes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Attributes cannot be serialized.", e);
+        }
+    }
+}
@@ -2,11 +2,12 @@ package com.github.fjbaldon.attendex.platform.attendee;
 
 import com.github.fjbaldon.attendex.platform.organization.OrganizationFacade;
 import com.github.fjbaldon.attendex.platform.organization.OrganizationDto;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,18 +17,25 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 class AttendeeImportService {
 
+    private static final int ANALYSIS_CHUNK_SIZE = 1000;
+    private static final int INVALID_SAMPLE_SIZE = 100;
+    private static final int PREVIEW_SIZE = 50;
+
     private final AttendeeRepository attendeeRepository;
     private final AttributeRepository attributeRepository;
+    private final AttendeeImportRepository importRepository;
+    private final AttendeeImportSessionRepository sessionRepository;
     private final OrganizationFacade organizationFacade;
-    private final ApplicationEventPublisher eventPublisher;
 
     public List<String> extractCsvHeaders(MultipartFile file) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
@@ -37,99 +45,122 @@ class AttendeeImportService {
         }
     }
 
-    @Transactional(readOnly = true)
-    public AttendeeImportAnalysisDto analyzeAttendeeImport(Long organizationId, MultipartFile file, ImportConfigurationDto config) throws IOException {
+    // The valid rows are kept server-side in the returned session until it is committed or expires
+    @Transactional
+    public AttendeeImportSessionDto analyzeAttendeeImport(Long organizationId, MultipartFile file, ImportConfigurationDto config) throws IOException {
         OrganizationDto organization = organizationFacade.findOrganizationById(organizationId);
         String regex = organization.identityFormatRegex();
-        List<Attribute> existingAttributes = attributeRepository.findAllByOrganizationId(organizationId);
-        Set<String> validAttributeNames = existingAttributes.stream().map(Attribute::getName).collect(Collectors.toSet());
-        List<CreateAttendeeDto> toCreate = new ArrayList<>();
-        List<CreateAttendeeDto> toUpdate = new ArrayList<>();
-        List<AttendeeImportAnalysisDto.InvalidRow> invalidRows = new ArrayList<>();
-        Set<String> newAttributesToCreate = new HashSet<>();
-        Set<String> fileIdentities = new HashSet<>();
+        Pattern identityPattern = (regex != null && !regex.isBlank()) ? Pattern.compile(regex) : null;
+        Set<String> validAttributeNames = attributeRepository.findAllByOrganizationId(organizationId).stream()
+                .map(Attribute::getName)
+                .collect(Collectors.toSet());
+        // Flushed right away: the staged rows reference it
+        AttendeeImportSession session = sessionRepository.saveAndFlush(AttendeeImportSession.start(
+                organizationId, config.mode() == ImportConfigurationDto.ImportMode.UPDATE));
+        ImportAnalysis analysis = new ImportAnalysis(session.getId(), organizationId, config, validAttributeNames);
+        List<String> headers;
 
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
             CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setIgnoreEmptyLines(true).get();
             CSVParser parser = csvFormat.parse(reader);
-            Map<String, String> mapping = config.columnMapping();
+            // Column positions are resolved once from the header instead of per row and field
+            ColumnLayout columns = ColumnLayout.of(parser.getHeaderMap(), config.columnMapping());
+            headers = parser.getHeaderNames();
 
+            // Rows are validated as they stream in, then checked against the database and staged a chunk at a time
+            List<PendingRow> chunk = new ArrayList<>(ANALYSIS_CHUNK_SIZE);
             for (CSVRecord record : parser) {
                 try {
-                    String identity = getMappedValue(record, mapping, "identity");
-                    String firstName = getMappedValue(record, mapping, "firstName");
-                    String lastName = getMappedValue(record, mapping, "lastName");
+                    String identity = columns.value(record, columns.identity());
+                    String firstName = columns.value(record, columns.firstName());
+                    String lastName = columns.value(record, columns.lastName());
 
                     if (!StringUtils.hasText(identity)) throw new IllegalArgumentException("Row missing Identity.");
                     if (!StringUtils.hasText(firstName)) throw new IllegalArgumentException("Row missing First Name.");
                     if (!StringUtils.hasText(lastName)) throw new IllegalArgumentException("Row missing Last Name.");
 
-                    if (regex != null && !regex.isBlank() && !identity.matches(regex)) {
+                    if (identityPattern != null && !identityPattern.matcher(identity).matches()) {
                         throw new IllegalArgumentException("Identity format invalid.");
                     }
 
-                    if (fileIdentities.contains(identity)) {
-                        throw new IllegalArgumentException("Duplicate identity in file.");
-                    }
-                    fileIdentities.add(identity);
-
-                    boolean existsInDb = attendeeRepository.existsByOrganizationIdAndIdentity(organizationId, identity);
-
-                    if (existsInDb) {
-                        if (config.mode() == ImportConfigurationDto.ImportMode.FAIL) {
-                            throw new IllegalArgumentException("Identity already exists.");
-                        }
-                        if (config.mode() == ImportConfigurationDto.ImportMode.SKIP) {
-                            continue;
-                        }
-                    }
-
-                    Map<String, Object> attributeValues = new HashMap<>();
-                    for (Map.Entry<String, String> entry : mapping.entrySet()) {
-                        String csvHeader = entry.getKey();
-                        String mappedTarget = entry.getValue();
-                        if (List.of("identity", "firstName", "lastName").contains(mappedTarget)) continue;
-                        String val = record.isMapped(csvHeader) ? record.get(csvHeader) : null;
-                        if (StringUtils.hasText(val)) {
-                            val = val.trim().toUpperCase();
-                            if (validAttributeNames.contains(mappedTarget)) {
-                                attributeValues.put(mappedTarget, val);
-                            } else if (config.createMissingAttributes()) {
-                                newAttributesToCreate.add(mappedTarget);
-                                attributeValues.put(mappedTarget, val);
-                            }
-                        }
-                    }
-
-                    CreateAttendeeDto dto = new CreateAttendeeDto(identity, firstName, lastName, attributeValues);
-                    if (existsInDb) {
-                        toUpdate.add(dto);
-                    } else {
-                        toCreate.add(dto);
+                    chunk.add(new PendingRow(record, identity, firstName, lastName));
+                    if (chunk.size() == ANALYSIS_CHUNK_SIZE) {
+                        analysis.stage(chunk, columns);
+                        chunk.clear();
                     }
                 } catch (Exception e) {
-                    invalidRows.add(new AttendeeImportAnalysisDto.InvalidRow(record.getRecordNumber(), record.toMap(), e.getMessage()));
+                    analysis.invalid(record, e.getMessage());
                 }
             }
+            analysis.stage(chunk, columns);
+            analysis.flushInvalid();
         }
-        return new AttendeeImportAnalysisDto(toCreate, toUpdate, invalidRows, new ArrayList<>(newAttributesToCreate));
+
+        session.analyzed(analysis.rowsToCreate, analysis.rowsToUpdate, analysis.rowsInvalid,
+                analysis.invalidSample, new ArrayList<>(analysis.newAttributesToCreate), headers);
+        return toDto(session);
     }
 
+    @Transactional(readOnly = true)
+    public AttendeeImportSessionDto getImportSession(Long organizationId, UUID sessionId) {
+        return toDto(findSession(organizationId, sessionId));
+    }
+
+    record CommitStarted(AttendeeImportSessionDto session, int attempt) {
+    }
+
+    // The row lock makes a concurrent request wait and then find the session already committing
     @Transactional
-    public void commitAttendeeImport(Long organizationId, List<CreateAttendeeDto> attendees, boolean updateExisting, List<String> newAttributes) {
-        // 1. Aggregate all attribute options from the import file
-        Map<String, Set<String>> batchOptions = new HashMap<>();
-        for (CreateAttendeeDto dto : attendees) {
-            if (dto.attributes() != null) {
-                dto.attributes().forEach((key, val) -> {
-                    if (val instanceof String s && StringUtils.hasText(s)) {
-                        batchOptions.computeIfAbsent(key, k -> new HashSet<>()).add(s);
-                    }
-                });
+    public CommitStarted startCommit(Long organizationId, UUID sessionId) {
+        AttendeeImportSession session = findSessionForUpdate(organizationId, sessionId);
+        session.startCommit();
+        return new CommitStarted(toDto(session), session.getCommitAttempt());
+    }
+
+    // Every invalid row of the session as CSV: its line, the file's columns and the error
+    @Transactional(readOnly = true)
+    public String exportInvalidRows(Long organizationId, UUID sessionId) throws IOException {
+        AttendeeImportSession session = findSession(organizationId, sessionId);
+        List<String> headers = session.getHeaders();
+        StringBuilder csv = new StringBuilder();
+        CSVPrinter printer = new CSVPrinter(csv, CSVFormat.DEFAULT);
+
+        List<String> header = new ArrayList<>(headers.size() + 2);
+        header.add("Row Number");
+        header.addAll(headers);
+        header.add("Error Message");
+        printer.printRecord(header);
+
+        importRepository.forEachInvalidRow(sessionId, row -> {
+            // Short rows are padded and extra fields dropped, so the error stays in its column
+            List<String> record = new ArrayList<>(header.size());
+            record.add(String.valueOf(row.line()));
+            for (int i = 0; i < headers.size(); i++) {
+                record.add(i < row.values().length ? row.values()[i] : "");
+            }
+            record.add(row.error());
+            try {
+                printer.printRecord(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        });
+        printer.flush();
+        return csv.toString();
+    }
+
+    @Transactional
+    public void discardImportSession(Long organizationId, UUID sessionId) {
+        AttendeeImportSession session = findSessionForUpdate(organizationId, sessionId);
+        if (session.getStatus() == AttendeeImportSession.Status.COMMITTING) {
+            throw new IllegalArgumentException("Import cannot be discarded while committing.");
         }
+        sessionRepository.delete(session);
+    }
 
-        // 2. Create new attributes if requested
+    // Creates the requested attributes and adds the imported values to the options; runs in the caller's transaction
+    void mergeAttributeOptions(Long organizationId, List<String> newAttributes, Map<String, Set<String>> batchOptions) {
+        // 1. Create new attributes if requested
         if (newAttributes != null) {
             for (String attrName : newAttributes) {
                 if (!attributeRepository.existsByOrganizationIdAndName(organizationId, attrName)) {
@@ -143,62 +174,18 @@ class AttendeeImportService {
             }
         }
 
-        // 3. Update options for existing attributes
+        // 2. Update options for existing attributes
         List<Attribute> existingAttributes = attributeRepository.findAllByOrganizationId(organizationId);
         for (Attribute attr : existingAttributes) {
-            if (batchOptions.containsKey(attr.getName())) {
-                Set<String> newOptions = batchOptions.get(attr.getName());
-                List<String> currentOptions = new ArrayList<>(attr.getOptions());
-                boolean changed = false;
-                for (String opt : newOptions) {
-                    if (!currentOptions.contains(opt)) {
-                        currentOptions.add(opt);
-                        changed = true;
-                    }
-                }
-                if (changed) {
-                    Collections.sort(currentOptions);
-                    attr.updateOptions(currentOptions);
+            Set<String> newOptions = batchOptions.get(attr.getName());
+            if (newOptions != null) {
+                TreeSet<String> merged = new TreeSet<>(attr.getOptions());
+                if (merged.addAll(newOptions)) {
+                    attr.updateOptions(new ArrayList<>(merged));
                     attributeRepository.save(attr);
                 }
             }
         }
-
-        // 4. Process Attendees
-        List<Attendee> batch = new ArrayList<>();
-
-        for (CreateAttendeeDto dto : attendees) {
-            Attendee existing = attendeeRepository.findAttendeeByIdentity(organizationId, dto.identity());
-            boolean isReactivation = false;
-
-            if (existing == null) {
-                Optional<Attendee> deletedOpt = attendeeRepository.findAnyAttendeeByIdentity(organizationId, dto.identity());
-                if (deletedOpt.isPresent()) {
-                    existing = deletedOpt.get();
-                    existing.reactivate();
-                    isReactivation = true;
-                }
-            }
-
-            if (existing != null) {
-                if (updateExisting || isReactivation) {
-                    existing.update(dto.firstName(), dto.lastName(), dto.attributes());
-                    batch.add(existing);
-                }
-            } else {
-                Attendee newAttendee = Attendee.create(
-                        organizationId,
-                        dto.identity(),
-                        dto.firstName(),
-                        dto.lastName(),
-                        dto.attributes()
-                );
-                batch.add(newAttendee);
-                eventPublisher.publishEvent(new AttendeeCreatedEvent(newAttendee.getId(), organizationId));
-            }
-        }
-
-        attendeeRepository.saveAll(batch);
     }
 
     @Transactional(readOnly = true)
@@ -218,12 +205,155 @@ class AttendeeImportService {
         return csv.toString();
     }
 
-    private String getMappedValue(CSVRecord record, Map<String, String> mapping, String targetField) {
-        return mapping.entrySet().stream()
-                .filter(e -> e.getValue().equals(targetField))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .map(header -> record.isMapped(header) ? record.get(header) : null)
-                .orElse(null);
+    private AttendeeImportSession findSession(Long organizationId, UUID sessionId) {
+        return sessionRepository.findByIdAndOrganizationId(sessionId, organizationId)
+                .orElseThrow(() -> new EntityNotFoundException("Import session not found."));
+    }
+
+    private AttendeeImportSession findSessionForUpdate(Long organizationId, UUID sessionId) {
+        return sessionRepository.findForUpdate(sessionId, organizationId)
+                .orElseThrow(() -> new EntityNotFoundException("Import session not found."));
+    }
+
+    private AttendeeImportSessionDto toDto(AttendeeImportSession session) {
+        boolean pending = session.getStatus() == AttendeeImportSession.Status.ANALYZED;
+        return new AttendeeImportSessionDto(
+                session.getId(),
+                session.getStatus().name(),
+                session.getRowsToCreate(),
+                session.getRowsToUpdate(),
+                session.getRowsInvalid(),
+                session.getNewAttributes(),
+                pending ? importRepository.findPreview(session.getId(), PREVIEW_SIZE) : List.of(),
+                session.getInvalidSample(),
+                session.getRowsProcessed(),
+                session.getAttendeesCreated(),
+                session.getAttendeesReactivated(),
+                session.getAttendeesUpdated(),
+                session.getError()
+        );
+    }
+
+    private record PendingRow(CSVRecord record, String identity, String firstName, String lastName) {
+    }
+
+    // Positions of the mapped columns; null when the mapped header is not in the file
+    private record ColumnLayout(Integer identity, Integer firstName, Integer lastName, Map<Integer, String> attributes) {
+
+        static ColumnLayout of(Map<String, Integer> headers, Map<String, String> mapping) {
+            Integer identity = null, firstName = null, lastName = null;
+            Map<Integer, String> attributes = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : mapping.entrySet()) {
+                Integer index = headers.get(entry.getKey());
+                switch (entry.getValue()) {
+                    case "identity" -> identity = identity != null ? identity : index;
+                    case "firstName" -> firstName = firstName != null ? firstName : index;
+                    case "lastName" -> lastName = lastName != null ? lastName : index;
+                    default -> {
+                        if (index != null) {
+                            attributes.put(index, entry.getValue());
+                        }
+                    }
+                }
+            }
+            return new ColumnLayout(identity, firstName, lastName, attributes);
+        }
+
+        String value(CSVRecord record, Integer index) {
+            return (index != null && index < record.size()) ? record.get(index) : null;
+        }
+    }
+
+    // Only counts and samples are held; the valid rows go to the session's staging rows chunk by chunk, and
+    // identities repeated in the file are found there rather than in memory
+    private final class ImportAnalysis {
+        private final UUID sessionId;
+        private final Long organizationId;
+        private final ImportConfigurationDto config;
+        private final Set<String> validAttributeNames;
+        final List<AttendeeImportSessionDto.InvalidRow> invalidSample = new ArrayList<>();
+        private final List<AttendeeImportRepository.InvalidRow> invalidPending = new ArrayList<>();
+        final Set<String> newAttributesToCreate = new HashSet<>();
+        int rowsToCreate;
+        int rowsToUpdate;
+        int rowsInvalid;
+
+        ImportAnalysis(UUID sessionId, Long organizationId, ImportConfigurationDto config, Set<String> validAttributeNames) {
+            this.sessionId = sessionId;
+            this.organizationId = organizationId;
+            this.config = config;
+            this.validAttributeNames = validAttributeNames;
+        }
+
+        // Every invalid row is staged for the error file; only the first few are sent with the session
+        void invalid(CSVRecord record, String error) {
+            rowsInvalid++;
+            if (invalidSample.size() < INVALID_SAMPLE_SIZE) {
+                invalidSample.add(new AttendeeImportSessionDto.InvalidRow(record.getRecordNumber(), record.toMap(), error));
+            }
+            invalidPending.add(new AttendeeImportRepository.InvalidRow(record.getRecordNumber(), record.values(), error));
+            if (invalidPending.size() == ANALYSIS_CHUNK_SIZE) {
+                flushInvalid();
+            }
+        }
+
+        void flushInvalid() {
+            importRepository.stageInvalidRows(sessionId, invalidPending);
+            invalidPending.clear();
+        }
+
+        // One round trip resolves which identities of the chunk already exist, one COPY stages its valid rows;
+        // a row the staging table turns away repeats an identity from an earlier line
+        void stage(List<PendingRow> chunk, ColumnLayout columns) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Set<String> existing = new HashSet<>(attendeeRepository.findExistingIdentities(
+                    organizationId, chunk.stream().map(PendingRow::identity).toArray(String[]::new)));
+
+            List<AttendeeImportRepository.StagedRow> staged = new ArrayList<>(chunk.size());
+            Map<Long, CSVRecord> records = new HashMap<>();
+            for (PendingRow row : chunk) {
+                boolean existsInDb = existing.contains(row.identity());
+                if (existsInDb) {
+                    if (config.mode() == ImportConfigurationDto.ImportMode.FAIL) {
+                        invalid(row.record(), "Identity already exists.");
+                        continue;
+                    }
+                    if (config.mode() == ImportConfigurationDto.ImportMode.SKIP) {
+                        continue;
+                    }
+                }
+
+                Map<String, Object> attributeValues = new HashMap<>();
+                columns.attributes().forEach((index, target) -> {
+                    String val = columns.value(row.record(), index);
+                    if (StringUtils.hasText(val)) {
+                        val = val.trim().toUpperCase();
+                        if (validAttributeNames.contains(target)) {
+                            attributeValues.put(target, val);
+                        } else if (config.createMissingAttributes()) {
+                            newAttributesToCreate.add(target);
+                            attributeValues.put(target, val);
+                        }
+                    }
+                });
+
+                CreateAttendeeDto dto = new CreateAttendeeDto(row.identity(), row.firstName(), row.lastName(), attributeValues);
+                staged.add(new AttendeeImportRepository.StagedRow(row.record().getRecordNumber(), dto, existsInDb));
+                records.put(row.record().getRecordNumber(), row.record());
+            }
+
+            Set<Long> stored = importRepository.stageRows(sessionId, staged);
+            for (AttendeeImportRepository.StagedRow row : staged) {
+                if (!stored.contains(row.line())) {
+                    invalid(records.get(row.line()), "Duplicate identity in file.");
+                } else if (row.existing()) {
+                    rowsToUpdate++;
+                } else {
+                    rowsToCreate++;
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,133 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.util.Assert;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Entity
+@Table(name = "attendee_import_session")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+class AttendeeImportSession {
+
+    enum Status {
+        ANALYZING,
+        ANALYZED,
+        COMMITTING,
+        COMMITTED,
+        FAILED
+    }
+
+    @Id
+    private UUID id;
+
+    private Long organizationId;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private boolean updateExisting;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private List<String> newAttributes;
+
+    private int rowsToCreate;
+    private int rowsToUpdate;
+    private int rowsInvalid;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private List<AttendeeImportSessionDto.InvalidRow> invalidSample;
+
+    // The file's header row; labels the values of the session's invalid rows
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private List<String> headers;
+
+    private int commitAttempt;
+    private int rowsProcessed;
+    private int attendeesCreated;
+    private int attendeesReactivated;
+    private int attendeesUpdated;
+    private String error;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    private AttendeeImportSession(Long organizationId, boolean updateExisting) {
+        Assert.notNull(organizationId, "Organization ID must not be null");
+        this.id = UUID.randomUUID();
+        this.organizationId = organizationId;
+        this.status = Status.ANALYZING;
+        this.updateExisting = updateExisting;
+        this.newAttributes = List.of();
+        this.invalidSample = List.of();
+        this.headers = List.of();
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    static AttendeeImportSession start(Long organizationId, boolean updateExisting) {
+        return new AttendeeImportSession(organizationId, updateExisting);
+    }
+
+    void analyzed(int rowsToCreate, int rowsToUpdate, int rowsInvalid,
+                  List<AttendeeImportSessionDto.InvalidRow> invalidSample, List<String> newAttributes, List<String> headers) {
+        this.rowsToCreate = rowsToCreate;
+        this.rowsToUpdate = rowsToUpdate;
+        this.rowsInvalid = rowsInvalid;
+        this.invalidSample = invalidSample;
+        this.newAttributes = newAttributes;
+        this.headers = headers;
+        moveTo(Status.ANALYZED);
+    }
+
+    int rowsTotal() {
+        return rowsToCreate + rowsToUpdate;
+    }
+
+    // A failed commit resumes with the rows it had not written yet
+    void startCommit() {
+        if (status != Status.ANALYZED && status != Status.FAILED) {
+            throw new IllegalArgumentException("Import cannot be committed while " + status.name().toLowerCase() + ".");
+        }
+        this.error = null;
+        this.commitAttempt++;
+        moveTo(Status.COMMITTING);
+    }
+
+    // False once the commit was failed, finished or superseded by a later attempt
+    boolean isCommitting(int attempt) {
+        return status == Status.COMMITTING && commitAttempt == attempt;
+    }
+
+    void progressed(int rows, AttendeeImportRepository.Result result) {
+        this.rowsProcessed += rows;
+        this.attendeesCreated += result.created();
+        this.attendeesReactivated += result.reactivated();
+        this.attendeesUpdated += result.updated();
+        this.updatedAt = Instant.now();
+    }
+
+    void committed() {
+        moveTo(Status.COMMITTED);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        moveTo(Status.FAILED);
+    }
+
+    private void moveTo(Status status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+}
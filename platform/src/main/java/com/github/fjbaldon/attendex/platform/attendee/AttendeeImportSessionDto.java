@@ -0,0 +1,36 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public record AttendeeImportSessionDto(
+        UUID id,
+        String status, // ANALYZED, COMMITTING, COMMITTED or FAILED
+        int rowsToCreate, // New Records
+        int rowsToUpdate, // Existing Records (if Mode=UPDATE)
+        int rowsInvalid,
+        List<String> newAttributesToCreate, // List of attribute names that will be auto-generated
+        List<PreviewRow> preview, // The first rows to be imported, while they are still pending
+        List<InvalidRow> invalidRows, // The first invalid rows; rowsInvalid has the full count, and all of them download as CSV
+        int rowsProcessed, // Progress of the commit, out of rowsToCreate + rowsToUpdate
+        int attendeesCreated,
+        int attendeesReactivated,
+        int attendeesUpdated,
+        String error
+) {
+    public record PreviewRow(
+            String identity,
+            String firstName,
+            String lastName,
+            boolean update
+    ) {
+    }
+
+    public record InvalidRow(
+            long rowNumber,
+            Map<String, String> rowData,
+            String error
+    ) {
+    }
+}
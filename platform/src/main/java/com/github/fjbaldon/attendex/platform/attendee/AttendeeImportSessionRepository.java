@@ -0,0 +1,42 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+interface AttendeeImportSessionRepository extends JpaRepository<AttendeeImportSession, UUID> {
+
+    Optional<AttendeeImportSession> findByIdAndOrganizationId(UUID id, Long organizationId);
+
+    // Status changes lock the row, so a commit cannot start twice and the sweep cannot interleave with a chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AttendeeImportSession s WHERE s.id = :id AND s.organizationId = :organizationId")
+    Optional<AttendeeImportSession> findForUpdate(@Param("id") UUID id, @Param("organizationId") Long organizationId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AttendeeImportSession s WHERE s.id = :id")
+    Optional<AttendeeImportSession> findForUpdate(@Param("id") UUID id);
+
+    // Pending rows go with their session (ON DELETE CASCADE)
+    @Modifying
+    @Query("DELETE FROM AttendeeImportSession s WHERE s.status <> :committing AND s.updatedAt < :cutoff")
+    int deleteIdleBefore(@Param("committing") AttendeeImportSession.Status committing, @Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("""
+        UPDATE AttendeeImportSession s
+        SET s.status = :failed, s.error = :error, s.updatedAt = CURRENT_TIMESTAMP
+        WHERE s.status = :committing AND s.updatedAt < :cutoff
+    """)
+    int failStalledBefore(@Param("committing") AttendeeImportSession.Status committing,
+                          @Param("failed") AttendeeImportSession.Status failed,
+                          @Param("error") String error,
+                          @Param("cutoff") Instant cutoff);
+}
@@ -38,6 +38,7 @@ class AttendeeIngestService {
                 .filter(a -> a.getOrganizationId().equals(organizationId))
                 .orElseThrow(() -> new EntityNotFoundException("Attendee not found"));
         attendee.update(dto.firstName(), dto.lastName(), dto.attributes());
+        eventPublisher.publishEvent(new AttendeesChangedEvent(organizationId));
         return toDto(attendee);
     }
 
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,13 +19,26 @@ import java.util.stream.StreamSupport;
 class AttendeeQueryService {
 
     private final AttendeeRepository attendeeRepository;
+    private final AttendeeSearchRepository searchRepository;
 
+    // Text queries are ranked by relevance first; plain listings keep the requested order
     @Transactional(readOnly = true)
     public Page<AttendeeDto> findAttendees(Long organizationId, String query, Map<String, String> attributeFilters, Pageable pageable) {
+        if (query != null && !query.isBlank()) {
+            return searchRepository.search(organizationId, null, query.trim(),
+                    AttendeeSpecification.attributeContainment(attributeFilters), pageable);
+        }
         Specification<Attendee> spec = AttendeeSpecification.withFilters(organizationId, query, attributeFilters);
         return attendeeRepository.findAll(spec, pageable).map(this::toDto);
     }
 
+    @Transactional(readOnly = true)
+    public Page<AttendeeDto> findRosterAttendees(Long organizationId, Long eventId, String query, Map<String, String> attributeFilters, Pageable pageable) {
+        String text = query == null || query.isBlank() ? null : query.trim();
+        return searchRepository.search(organizationId, eventId, text,
+                AttendeeSpecification.attributeContainment(attributeFilters), pageable);
+    }
+
     @Transactional(readOnly = true)
     public Optional<AttendeeDto> findAttendeeById(Long attendeeId, Long organizationId) {
         return attendeeRepository.findById(attendeeId)
@@ -39,24 +53,24 @@ class AttendeeQueryService {
         return StreamSupport.stream(attendees.spliterator(), false).map(this::toDto).collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public List<AttendeeDto> findActiveAttendeesByIds(Long organizationId, Collection<Long> attendeeIds) {
+        if (attendeeIds.isEmpty()) {
+            return List.of();
+        }
+        return attendeeRepository.findAllByOrganizationIdAndIdInAndDeletedAtIsNull(organizationId, attendeeIds).stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    // Null when there is nothing to filter by, as blank values match everyone
     @Transactional(readOnly = true)
     public List<Long> findAttendeeIdsByFilters(Long organizationId, Map<String, String> filters) {
-        if (filters == null || filters.isEmpty()) {
+        String containment = AttendeeSpecification.attributeContainment(filters);
+        if (containment == null) {
             return null;
         }
-        List<Long> matchingIds = null;
-        for (Map.Entry<String, String> entry : filters.entrySet()) {
-            List<Long> idsForThisFilter = attendeeRepository.findIdsByAttributeValue(organizationId, entry.getKey(), entry.getValue());
-            if (matchingIds == null) {
-                matchingIds = idsForThisFilter;
-            } else {
-                matchingIds.retainAll(idsForThisFilter);
-            }
-            if (matchingIds.isEmpty()) {
-                return matchingIds;
-            }
-        }
-        return matchingIds;
+        return attendeeRepository.findIdsByAttributeContainment(organizationId, containment);
     }
 
     @Transactional(readOnly = true)
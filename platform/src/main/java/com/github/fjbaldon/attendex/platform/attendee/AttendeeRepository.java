@@ -7,13 +7,18 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 interface AttendeeRepository extends PagingAndSortingRepository<Attendee, Long>, CrudRepository<Attendee, Long>, JpaSpecificationExecutor<Attendee> {
 
-    @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Attendee a WHERE a.organizationId = :organizationId AND a.identity = :identity AND a.deletedAt IS NULL")
-    boolean existsByOrganizationIdAndIdentity(@Param("organizationId") Long organizationId, @Param("identity") String identity);
+    // Which of the given identities belong to active attendees; a single array parameter whatever the count
+    @Query(nativeQuery = true, value = """
+        SELECT identity FROM attendee_attendee
+        WHERE organization_id = :orgId AND deleted_at IS NULL AND identity = ANY(CAST(:identities AS varchar[]))
+    """)
+    List<String> findExistingIdentities(@Param("orgId") Long orgId, @Param("identities") String[] identities);
 
     @Query("SELECT a FROM Attendee a WHERE a.organizationId = :organizationId AND a.identity = :identity AND a.deletedAt IS NULL")
     Attendee findAttendeeByIdentity(@Param("organizationId") Long organizationId, @Param("identity") String identity);
@@ -21,8 +26,14 @@ interface AttendeeRepository extends PagingAndSortingRepository<Attendee, Long>,
     @Query("SELECT a FROM Attendee a WHERE a.organizationId = :orgId AND a.identity = :identity")
     Optional<Attendee> findAnyAttendeeByIdentity(@Param("orgId") Long orgId, @Param("identity") String identity);
 
-    @Query(value = "SELECT id FROM attendee_attendee WHERE organization_id = :orgId AND deleted_at IS NULL AND attributes ->> :key = :value", nativeQuery = true)
-    List<Long> findIdsByAttributeValue(@Param("orgId") Long orgId, @Param("key") String key, @Param("value") String value);
+    List<Attendee> findAllByOrganizationIdAndIdInAndDeletedAtIsNull(Long organizationId, Collection<Long> ids);
+
+    // Every filter in one containment predicate, so the jsonb_path_ops index answers it
+    @Query(nativeQuery = true, value = """
+        SELECT id FROM attendee_attendee
+        WHERE organization_id = :orgId AND deleted_at IS NULL AND attributes @> CAST(:containment AS jsonb)
+    """)
+    List<Long> findIdsByAttributeContainment(@Param("orgId") Long orgId, @Param("containment") String containment);
 
     @Modifying
     @Query(nativeQuery = true, value = """
@@ -0,0 +1,163 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attendee search, optionally scoped to an event's roster, in one statement. Text matches are ILIKE on the raw
+ * identity and name columns, which their gin_trgm_ops indexes serve, and are ranked by trigram similarity.
+ * A query equal to an active identity is answered from the unique identity index alone.
+ */
+@Repository
+@RequiredArgsConstructor
+class AttendeeSearchRepository {
+
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES = new TypeReference<>() {
+    };
+
+    // Sortable properties of AttendeeDto; anything else would splice arbitrary text into ORDER BY
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "identity", "a.identity",
+            "firstName", "a.first_name",
+            "lastName", "a.last_name",
+            "createdAt", "a.created_at"
+    );
+
+    private static final String SELECT = """
+            SELECT a.id, a.identity, a.first_name, a.last_name, a.attributes, a.created_at, COUNT(*) OVER () AS total
+            """;
+
+    private static final String COUNT = "SELECT COUNT(*)";
+
+    private static final String FROM = """
+             FROM attendee_attendee a
+            WHERE a.organization_id = ? AND a.deleted_at IS NULL
+            """;
+
+    private static final String EXACT_IDENTITY = " AND a.identity = ?";
+
+    private static final String TEXT_MATCH = " AND (a.identity ILIKE ? OR a.first_name ILIKE ? OR a.last_name ILIKE ?)";
+
+    private static final String ATTRIBUTE_CONTAINMENT = " AND a.attributes @> CAST(? AS jsonb)";
+
+    private static final String ON_ROSTER = """
+             AND EXISTS (SELECT 1 FROM event_roster_entry r WHERE r.event_id = ? AND r.attendee_id = a.id)
+            """;
+
+    private static final String RANK = "GREATEST(similarity(a.identity, ?), similarity(a.first_name, ?), similarity(a.last_name, ?)) DESC, ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // query and containment are null when not filtering by them; eventId is null outside a roster
+    Page<AttendeeDto> search(Long organizationId, Long eventId, String query, String containment, Pageable pageable) {
+        if (query != null) {
+            // Unpaged, so later pages of the same query agree that the exact match is the only result
+            List<AttendeeDto> exact = findPage(organizationId, eventId, query, true, containment, Pageable.unpaged()).getContent();
+            if (!exact.isEmpty()) {
+                return new PageImpl<>(pageable.isUnpaged() || pageable.getOffset() == 0 ? exact : List.of(), pageable, exact.size());
+            }
+        }
+        return findPage(organizationId, eventId, query, false, containment, pageable);
+    }
+
+    private Page<AttendeeDto> findPage(Long organizationId, Long eventId, String query, boolean exact, String containment,
+                                       Pageable pageable) {
+        StringBuilder sql = new StringBuilder(FROM);
+        List<Object> params = new ArrayList<>();
+        params.add(organizationId);
+
+        if (query != null && exact) {
+            sql.append(EXACT_IDENTITY);
+            params.add(query);
+        } else if (query != null) {
+            String pattern = "%" + AttendeeSpecification.escapeLike(query) + "%";
+            sql.append(TEXT_MATCH);
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
+        }
+        if (containment != null) {
+            sql.append(ATTRIBUTE_CONTAINMENT);
+            params.add(containment);
+        }
+        if (eventId != null) {
+            sql.append(ON_ROSTER);
+            params.add(eventId);
+        }
+
+        // Filters only, for the count query
+        String where = sql.toString();
+        List<Object> whereParams = List.copyOf(params);
+
+        sql.insert(0, SELECT);
+        sql.append(" ORDER BY ");
+        if (query != null && !exact) {
+            sql.append(RANK);
+            params.add(query);
+            params.add(query);
+            params.add(query);
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Cannot sort attendees by " + order.getProperty() + ".");
+            }
+            sql.append(column).append(order.isAscending() ? " ASC, " : " DESC, ");
+        }
+        sql.append("a.id");
+
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT ? OFFSET ?");
+            params.add(pageable.getPageSize());
+            params.add(pageable.getOffset());
+        }
+
+        long[] total = {0};
+        List<AttendeeDto> content = jdbcTemplate.query(sql.toString(), rowMapper(total), params.toArray());
+        if (content.isEmpty() && pageable.isPaged() && pageable.getOffset() > 0) {
+            // Every row carries the total; past the last page there is none to read it from
+            Long count = jdbcTemplate.queryForObject(COUNT + where, Long.class, whereParams.toArray());
+            total[0] = count != null ? count : 0;
+        }
+        return new PageImpl<>(content, pageable, total[0]);
+    }
+
+    private RowMapper<AttendeeDto> rowMapper(long[] total) {
+        return (rs, rowNum) -> {
+            total[0] = rs.getLong("total");
+            return new AttendeeDto(
+                    rs.getLong("id"),
+                    rs.getString("identity"),
+                    rs.getString("first_name"),
+                    rs.getString("last_name"),
+                    readAttributes(rs.getString("attributes")),
+                    rs.getTimestamp("created_at").toInstant()
+            );
+        };
+    }
+
+    private Map<String, Object> readAttributes(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, ATTRIBUTES);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable attendee attributes", e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.github.fjbaldon.attendex.platform.attendee;
 
-import jakarta.persistence.criteria.Expression;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fjbaldon.attendex.platform.common.persistence.JsonbFunctionContributor;
 import jakarta.persistence.criteria.Predicate;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -20,34 +23,48 @@ class AttendeeSpecification {
             // 2. Soft Delete Scope
             predicates.add(cb.isNull(root.get("deletedAt")));
 
-            // 3. Text Search (Identity OR Name)
+            // 3. Text Search (Identity OR Name): ILIKE on the raw columns, which the trigram indexes serve
             if (query != null && !query.isBlank()) {
-                String likePattern = "%" + query.toLowerCase() + "%";
+                HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+                String likePattern = "%" + escapeLike(query.trim()) + "%";
                 predicates.add(cb.or(
-                        cb.like(cb.lower(root.get("identity")), likePattern),
-                        cb.like(cb.lower(root.get("firstName")), likePattern),
-                        cb.like(cb.lower(root.get("lastName")), likePattern)
+                        hcb.ilike(root.get("identity"), likePattern, '\\'),
+                        hcb.ilike(root.get("firstName"), likePattern, '\\'),
+                        hcb.ilike(root.get("lastName"), likePattern, '\\')
                 ));
             }
 
-            // 4. Dynamic Attributes (JSONB)
-            if (attributeFilters != null) {
-                attributeFilters.forEach((key, value) -> {
-                    if (value != null && !value.isBlank()) {
-                        // Use PostgreSQL function to extract JSON text
-                        // jsonb_extract_path_text(attributes, key)
-                        Expression<String> jsonExtract = cb.function(
-                                "jsonb_extract_path_text",
-                                String.class,
-                                root.get("attributes"),
-                                cb.literal(key)
-                        );
-                        predicates.add(cb.equal(jsonExtract, value));
-                    }
-                });
+            // 4. Dynamic Attributes (JSONB): all filters in one containment, served by the jsonb_path_ops index
+            String containment = attributeContainment(attributeFilters);
+            if (containment != null) {
+                predicates.add(cb.isTrue(cb.function(
+                        JsonbFunctionContributor.JSONB_CONTAINS,
+                        Boolean.class,
+                        root.get("attributes"),
+                        cb.literal(containment)
+                )));
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    // Wildcards in the query match literally; backslash is the escape, as in PostgreSQL's default
+    static String escapeLike(String query) {
+        return query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // The filters as one JSON object for attributes @> ...; blank values match everyone, null when none are left
+    static String attributeContainment(Map<String, String> attributeFilters) {
+        if (attributeFilters == null) {
+            return null;
+        }
+        ObjectNode containment = JsonNodeFactory.instance.objectNode();
+        attributeFilters.forEach((key, value) -> {
+            if (value != null && !value.isBlank()) {
+                containment.put(key, value);
+            }
+        });
+        return containment.isEmpty() ? null : containment.toString();
+    }
 }
@@ -0,0 +1,7 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+// Published when attendees' attributes or active state change outside of creation and deletion
+public record AttendeesChangedEvent(
+        Long organizationId
+) {
+}
@@ -0,0 +1,10 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+// One per committed import, in place of an event per attendee
+public record AttendeesImportedEvent(
+        Long organizationId,
+        int created,
+        int reactivated,
+        int updated
+) {
+}
@@ -18,7 +18,8 @@ import java.util.Map;
 class Audit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_audit_id_seq")
+    @SequenceGenerator(name = "audit_audit_id_seq", sequenceName = "audit_audit_id_seq", allocationSize = 50)
     private Long id;
 
     private String actorEmail;
@@ -3,14 +3,17 @@ package com.github.fjbaldon.attendex.platform.capture;
 import com.github.fjbaldon.attendex.platform.event.EventFacade;
 import com.github.fjbaldon.attendex.platform.common.security.CustomUserDetails;
 import com.github.fjbaldon.attendex.platform.event.EventSyncDto;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.ModelAndView;
 
 import java.util.List;
 
@@ -40,20 +43,31 @@ class CaptureController {
         return ResponseEntity.ok(attendees);
     }
 
+    /**
+     * @deprecated moved to {@code GET /api/v1/insights/events/{eventId}/stats}; forwarded there for one release
+     * so scanner apps that have not updated keep working.
+     */
+    @Deprecated(forRemoval = true)
     @GetMapping("/events/{eventId}/stats")
     @PreAuthorize("hasRole('SCANNER') or hasRole('ORGANIZER')")
-    public ResponseEntity<EventStatsDto> getEventStats(
-            @PathVariable Long eventId,
-            @AuthenticationPrincipal CustomUserDetails user) {
-        return ResponseEntity.ok(captureFacade.getEventStats(user.getOrganizationId(), eventId));
+    public ModelAndView getEventStats(@PathVariable Long eventId, HttpServletResponse response) {
+        String successor = "/api/v1/insights/events/" + eventId + "/stats";
+        response.setHeader("Deprecation", "true");
+        response.setHeader(HttpHeaders.LINK, "<" + successor + ">; rel=\"successor-version\"");
+        return new ModelAndView("forward:" + successor);
     }
 
     @PostMapping("/sync")
     @PreAuthorize("hasRole('SCANNER')")
-    public ResponseEntity<BatchSyncResponse> syncEntries(
+    public ResponseEntity<?> syncEntries(
             @Valid @RequestBody EntrySyncRequestDto request,
             @AuthenticationPrincipal CustomUserDetails user) {
 
+        if (captureFacade.isStagedIngest()) {
+            SyncReceipt receipt = captureFacade.stageEntries(user.getOrganizationId(), user.getUsername(), request);
+            return ResponseEntity.accepted().body(receipt);
+        }
+
         BatchSyncResponse response = captureFacade.syncEntries(
                 user.getOrganizationId(),
                 user.getUsername(),
@@ -63,6 +77,14 @@ class CaptureController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/sync/status")
+    @PreAuthorize("hasRole('SCANNER')")
+    public ResponseEntity<SyncStatusResponse> getSyncStatus(
+            @Valid @RequestBody SyncStatusRequestDto request,
+            @AuthenticationPrincipal CustomUserDetails user) {
+        return ResponseEntity.ok(captureFacade.findSyncStatus(user.getOrganizationId(), request.scanUuids()));
+    }
+
     @GetMapping("/orphans")
     @PreAuthorize("hasRole('ORGANIZER')")
     public ResponseEntity<Page<OrphanedEntryDto>> getOrphanedEntries(
@@ -1,15 +1,19 @@
 package com.github.fjbaldon.attendex.platform.capture;
 
+import com.github.fjbaldon.attendex.platform.common.resilience.DatabaseCircuit;
 import com.github.fjbaldon.attendex.platform.event.SessionDetailsDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,10 +25,45 @@ public class CaptureFacade {
     private final CaptureIngestService ingestService;
     private final CaptureQueryService queryService;
     private final OrphanService orphanService;
+    private final CaptureInboxService inboxService;
+    private final SyncSpillService spillService;
+    private final DatabaseCircuit databaseCircuit;
 
-    @Transactional
+    @Value("${app.capture.ingest-mode:direct}")
+    private String ingestMode;
+
+    // Commits per chunk inside the ingest service; must not join an outer transaction
     public BatchSyncResponse syncEntries(Long organizationId, String scannerEmail, EntrySyncRequestDto request) {
-        return ingestService.syncEntries(organizationId, scannerEmail, request);
+        DataAccessException unavailable;
+        if (databaseCircuit.isOpen()) {
+            unavailable = new DataAccessResourceFailureException("Database unavailable");
+        } else {
+            try {
+                return ingestService.syncEntries(organizationId, scannerEmail, request);
+            } catch (DataAccessException | TransactionException e) {
+                if (!DatabaseCircuit.isConnectivityFailure(e)) {
+                    throw e;
+                }
+                databaseCircuit.trip(e);
+                unavailable = new DataAccessResourceFailureException("Database unavailable", e);
+            }
+        }
+
+        // Acknowledge from the local spill log; the records are replayed once the database is back
+        return spillService.spill(organizationId, scannerEmail, request).orElseThrow(() -> unavailable);
+    }
+
+    // "staged": sync only appends to the capture inbox and background drainers do the ingest
+    public boolean isStagedIngest() {
+        return "staged".equalsIgnoreCase(ingestMode);
+    }
+
+    public SyncReceipt stageEntries(Long organizationId, String scannerEmail, EntrySyncRequestDto request) {
+        return inboxService.stageEntries(organizationId, scannerEmail, request);
+    }
+
+    public SyncStatusResponse findSyncStatus(Long organizationId, List<String> scanUuids) {
+        return inboxService.findSyncStatus(organizationId, scanUuids);
     }
 
     @Transactional
@@ -41,7 +80,7 @@ public class CaptureFacade {
                 originalRecord.snapshotLastName()
         );
 
-        boolean saved = ingestService.processSingleEntry(organizationId, actorId, newRecord, new HashMap<>());
+        boolean saved = ingestService.ingestSingleEntry(organizationId, actorId, newRecord);
 
         if (saved) {
             orphanService.deleteOrphanAfterRecovery(organizationId, orphanId);
@@ -52,8 +91,8 @@ public class CaptureFacade {
     }
 
     @Transactional
-    public void recalculateSessionPunctuality(Long sessionId, Instant targetTime, int graceBefore, int graceAfter) {
-        ingestService.recalculateSessionPunctuality(sessionId, targetTime, graceBefore, graceAfter);
+    public void recalculateSessionPunctuality(Long eventId, Long sessionId, Instant targetTime, int graceBefore, int graceAfter) {
+        ingestService.recalculateSessionPunctuality(eventId, sessionId, targetTime, graceBefore, graceAfter);
     }
 
     // --- QUERY DELEGATES ---
@@ -73,11 +112,6 @@ public class CaptureFacade {
         return queryService.countEntriesSince(organizationId, timestamp);
     }
 
-    @Transactional(readOnly = true)
-    public EventStatsDto getEventStats(Long organizationId, Long eventId) {
-        return queryService.getEventStats(organizationId, eventId);
-    }
-
     @Transactional(readOnly = true)
     public List<RecentActivityDto> getRecentActivity(Long organizationId) {
         return queryService.getRecentActivity(organizationId);
@@ -88,11 +122,6 @@ public class CaptureFacade {
         return queryService.getDailyActivity(organizationId, startDate);
     }
 
-    @Transactional(readOnly = true)
-    public List<EntryEventStatusDto> getEntryStatusesForAttendee(Long attendeeId) {
-        return queryService.getEntryStatusesForAttendee(attendeeId);
-    }
-
     // ... (rest)
     @Transactional(readOnly = true)
     public Page<OrphanedEntryDto> getOrphanedEntries(Long organizationId, Pageable pageable) {
@@ -105,17 +134,7 @@ public class CaptureFacade {
     }
 
     @Transactional
-    public void reassignEntriesForDeletedSession(Long sessionIdToDelete, List<SessionDetailsDto> remainingSessions) {
-        ingestService.reassignEntriesForDeletedSession(sessionIdToDelete, remainingSessions);
-    }
-
-    @Transactional(readOnly = true)
-    public long countPresentFromList(Long eventId, Long sessionId, List<Long> attendeeIds) {
-        return queryService.countPresentAttendeesInList(eventId, sessionId, attendeeIds);
-    }
-
-    @Transactional(readOnly = true)
-    public List<EntryDetailsDto> findEntriesForSession(Long organizationId, Long eventId, List<Long> attendeeIds) {
-        return queryService.findEntriesForSession(organizationId, eventId, attendeeIds);
+    public void reassignEntriesForDeletedSession(Long eventId, Long sessionIdToDelete, List<SessionDetailsDto> remainingSessions) {
+        ingestService.reassignEntriesForDeletedSession(eventId, sessionIdToDelete, remainingSessions);
     }
 }
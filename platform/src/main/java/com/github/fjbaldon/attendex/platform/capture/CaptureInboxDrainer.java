@@ -0,0 +1,49 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class CaptureInboxDrainer {
+
+    // Bounds one run so a backlog cannot monopolise the scheduler thread
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    private final CaptureInboxService inboxService;
+
+    @Value("${app.capture.inbox.drain-batch-size:1000}")
+    private int batchSize;
+
+    // Other instances drain concurrently; SKIP LOCKED hands each one different rows
+    @Scheduled(fixedDelayString = "${app.capture.inbox.drain-delay-ms:1000}")
+    public void drain() {
+        int total = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            int claimed = inboxService.drainBatch(batchSize);
+            total += claimed;
+            if (claimed < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Drained {} records from the capture inbox.", total);
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeProcessed() {
+        int purged = inboxService.purgeProcessedBefore(Instant.now().minus(RETENTION));
+        if (purged > 0) {
+            log.info("Purged {} processed capture inbox records.", purged);
+        }
+    }
+}
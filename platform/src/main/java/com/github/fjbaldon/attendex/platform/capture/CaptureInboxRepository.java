@@ -0,0 +1,159 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+class CaptureInboxRepository {
+
+    static final String PENDING = "PENDING";
+    static final String PROCESSING = "PROCESSING";
+    static final String FINALIZED = "FINALIZED";
+    static final String QUARANTINED = "QUARANTINED";
+    static final String FAILED = "FAILED";
+
+    // 6 bind parameters per row
+    private static final int MAX_ROWS_PER_STATEMENT = 1_000;
+
+    private static final String APPEND_PREFIX = """
+            INSERT INTO capture_inbox (scan_uuid, organization_id, scanner_id, payload, status, received_at)
+            VALUES
+            """;
+    private static final String APPEND_ROW = "(?, ?, ?, CAST(? AS jsonb), ?, ?)";
+    // A resent record is only re-queued when its last attempt failed; anything else is already handled
+    private static final String APPEND_SUFFIX = """
+             ON CONFLICT (scan_uuid) DO UPDATE
+                SET organization_id = EXCLUDED.organization_id,
+                    scanner_id = EXCLUDED.scanner_id,
+                    payload = EXCLUDED.payload,
+                    status = EXCLUDED.status,
+                    received_at = EXCLUDED.received_at,
+                    processed_at = NULL
+                WHERE capture_inbox.status = 'FAILED'
+            """;
+
+    // Pending rows, and rows whose drainer let the lease run out
+    private static final String CLAIM = """
+            UPDATE capture_inbox i
+            SET status = 'PROCESSING',
+                lease_expires_at = ?
+            FROM (SELECT id
+                  FROM capture_inbox
+                  WHERE status = 'PENDING'
+                     OR (status = 'PROCESSING' AND lease_expires_at < ?)
+                  ORDER BY id
+                  LIMIT ?
+                  FOR UPDATE SKIP LOCKED) claimable
+            WHERE i.id = claimable.id
+            RETURNING i.id, i.organization_id, i.scanner_id, i.payload
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    record InboxItem(Long id, Long organizationId, Long scannerId, EntrySyncRequestDto.EntryRecord record) {
+    }
+
+    /**
+     * Appends the records as PENDING with multi-row inserts. Scan UUIDs must be unique within {@code records}.
+     */
+    void append(Long organizationId, Long scannerId, List<EntrySyncRequestDto.EntryRecord> records, Instant receivedAt) {
+        for (int from = 0; from < records.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<EntrySyncRequestDto.EntryRecord> chunk = records.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, records.size()));
+            String sql = APPEND_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), APPEND_ROW)) + APPEND_SUFFIX;
+
+            jdbcTemplate.update(sql, ps -> {
+                int i = 1;
+                for (var record : chunk) {
+                    ps.setString(i++, record.scanUuid());
+                    ps.setLong(i++, organizationId);
+                    ps.setLong(i++, scannerId);
+                    ps.setString(i++, toJson(record));
+                    ps.setString(i++, PENDING);
+                    ps.setObject(i++, receivedAt.atOffset(ZoneOffset.UTC));
+                }
+            });
+        }
+    }
+
+    /**
+     * Moves up to {@code limit} claimable records to PROCESSING until {@code leaseExpiresAt}. SKIP LOCKED keeps
+     * concurrent claims apart; once committed, the status keeps other drainers off the rows until the lease ends.
+     */
+    List<InboxItem> claim(int limit, Instant now, Instant leaseExpiresAt) {
+        List<InboxItem> items = new ArrayList<>(jdbcTemplate.query(CLAIM, (rs, rowNum) -> new InboxItem(
+                rs.getLong("id"),
+                rs.getLong("organization_id"),
+                rs.getLong("scanner_id"),
+                fromJson(rs.getString("payload"))
+        ), leaseExpiresAt.atOffset(ZoneOffset.UTC), now.atOffset(ZoneOffset.UTC), limit));
+        items.sort(Comparator.comparing(InboxItem::id));
+        return items;
+    }
+
+    // Only rows still PROCESSING: a record is never moved back out of an outcome
+    void markProcessed(Map<String, List<Long>> idsByStatus, Instant processedAt) {
+        idsByStatus.forEach((status, ids) -> {
+            if (ids.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.update("""
+                            UPDATE capture_inbox
+                            SET status = ?, processed_at = ?, lease_expires_at = NULL
+                            WHERE id = ANY(?) AND status = 'PROCESSING'
+                            """,
+                    ps -> {
+                        ps.setString(1, status);
+                        ps.setObject(2, processedAt.atOffset(ZoneOffset.UTC));
+                        ps.setArray(3, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+                    }
+            );
+        });
+    }
+
+    Map<String, String> findStatuses(Long organizationId, Collection<String> scanUuids) {
+        Map<String, String> statuses = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT scan_uuid, status FROM capture_inbox WHERE organization_id = ? AND scan_uuid = ANY(?)",
+                ps -> {
+                    ps.setLong(1, organizationId);
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", scanUuids.toArray()));
+                },
+                rs -> {
+                    statuses.put(rs.getString("scan_uuid"), rs.getString("status"));
+                }
+        );
+        return statuses;
+    }
+
+    int deleteProcessedBefore(Instant cutoff) {
+        return jdbcTemplate.update(
+                "DELETE FROM capture_inbox WHERE status IN ('FINALIZED', 'QUARANTINED') AND processed_at < ?",
+                cutoff.atOffset(ZoneOffset.UTC)
+        );
+    }
+
+    private String toJson(EntrySyncRequestDto.EntryRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Entry " + record.scanUuid() + " could not be serialized", e);
+        }
+    }
+
+    private EntrySyncRequestDto.EntryRecord fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, EntrySyncRequestDto.EntryRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Inbox payload could not be read", e);
+        }
+    }
+}
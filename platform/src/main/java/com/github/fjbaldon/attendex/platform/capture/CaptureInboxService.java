@@ -0,0 +1,142 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.github.fjbaldon.attendex.platform.common.resilience.DatabaseCircuit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+@Service
+@Slf4j
+class CaptureInboxService {
+
+    private final CaptureInboxRepository inboxRepository;
+    private final CaptureIngestService ingestService;
+    private final EntryRepository entryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration lease;
+
+    CaptureInboxService(
+            CaptureInboxRepository inboxRepository,
+            CaptureIngestService ingestService,
+            EntryRepository entryRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.capture.inbox.lease-seconds:300}") long leaseSeconds
+    ) {
+        this.inboxRepository = inboxRepository;
+        this.ingestService = ingestService;
+        this.entryRepository = entryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @Transactional
+    public SyncReceipt stageEntries(Long organizationId, String scannerEmail, EntrySyncRequestDto request) {
+        Long scannerId = ingestService.resolveScannerId(organizationId, scannerEmail);
+
+        // ON CONFLICT cannot touch the same row twice in one statement, so repeats within the request go first
+        Map<String, EntrySyncRequestDto.EntryRecord> unique = new LinkedHashMap<>();
+        request.records().forEach(record -> unique.putIfAbsent(record.scanUuid(), record));
+
+        Instant receivedAt = Instant.now();
+        inboxRepository.append(organizationId, scannerId, new ArrayList<>(unique.values()), receivedAt);
+
+        return new SyncReceipt(request.records().size(), receivedAt);
+    }
+
+    @Transactional(readOnly = true)
+    public SyncStatusResponse findSyncStatus(Long organizationId, List<String> scanUuids) {
+        Map<String, String> statuses = inboxRepository.findStatuses(organizationId, scanUuids);
+
+        // Purged from the inbox, or synced through the direct path
+        List<String> notInInbox = scanUuids.stream().filter(uuid -> !statuses.containsKey(uuid)).toList();
+        Set<String> stored = notInInbox.isEmpty() ? Set.of() : new HashSet<>(entryRepository.findExistingScanUuids(notInInbox));
+
+        List<String> finalized = new ArrayList<>();
+        List<String> quarantined = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+
+        for (String uuid : scanUuids) {
+            String status = statuses.get(uuid);
+            if (status == null) {
+                (stored.contains(uuid) ? finalized : unknown).add(uuid);
+                continue;
+            }
+            switch (status) {
+                case CaptureInboxRepository.FINALIZED -> finalized.add(uuid);
+                case CaptureInboxRepository.QUARANTINED -> quarantined.add(uuid);
+                case CaptureInboxRepository.FAILED -> failed.add(uuid);
+                default -> pending.add(uuid);
+            }
+        }
+
+        return new SyncStatusResponse(finalized, quarantined, failed, pending, unknown);
+    }
+
+    /**
+     * Claims up to {@code batchSize} pending records, ingests them and records each outcome. The claim commits
+     * before the ingest starts, so a drainer holds one connection at a time; the ingest commits on its own and the
+     * outcomes in a third transaction. A drainer that dies in between leaves its records PROCESSING until the
+     * lease ends, and the next drainer finds them already stored. Returns how many records were claimed.
+     */
+    int drainBatch(int batchSize) {
+        Instant now = Instant.now();
+        List<CaptureInboxRepository.InboxItem> items = transactionTemplate.execute(
+                status -> inboxRepository.claim(batchSize, now, now.plus(lease)));
+        if (items == null || items.isEmpty()) {
+            return 0;
+        }
+
+        // Ingest works per organization and scanner, the same grouping a sync request has
+        Map<List<Long>, List<CaptureInboxRepository.InboxItem>> groups = new LinkedHashMap<>();
+        items.forEach(item -> groups
+                .computeIfAbsent(List.of(item.organizationId(), item.scannerId()), k -> new ArrayList<>())
+                .add(item));
+
+        Map<String, List<Long>> idsByStatus = new HashMap<>();
+        groups.forEach((key, group) -> {
+            List<EntrySyncRequestDto.EntryRecord> records = group.stream()
+                    .map(CaptureInboxRepository.InboxItem::record)
+                    .toList();
+
+            Set<String> quarantined = Set.of();
+            Set<String> failed;
+            try {
+                CaptureIngestService.ChunkOutcome outcome = ingestService.ingestRecords(key.get(0), key.get(1), records);
+                quarantined = new HashSet<>(outcome.quarantinedUuids());
+                failed = new HashSet<>(outcome.failedUuids());
+            } catch (RuntimeException e) {
+                if (DatabaseCircuit.isConnectivityFailure(e)) {
+                    // The records stay claimed and go to the next drainer once the lease ends
+                    throw e;
+                }
+                log.error("Failed to drain {} inbox records for scanner {}", group.size(), key.get(1), e);
+                failed = new HashSet<>(records.stream().map(EntrySyncRequestDto.EntryRecord::scanUuid).toList());
+            }
+
+            for (var item : group) {
+                String uuid = item.record().scanUuid();
+                String outcome = failed.contains(uuid) ? CaptureInboxRepository.FAILED
+                        : quarantined.contains(uuid) ? CaptureInboxRepository.QUARANTINED
+                        : CaptureInboxRepository.FINALIZED;
+                idsByStatus.computeIfAbsent(outcome, k -> new ArrayList<>()).add(item.id());
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> inboxRepository.markProcessed(idsByStatus, Instant.now()));
+        return items.size();
+    }
+
+    @Transactional
+    public int purgeProcessedBefore(Instant cutoff) {
+        return inboxRepository.deleteProcessedBefore(cutoff);
+    }
+}
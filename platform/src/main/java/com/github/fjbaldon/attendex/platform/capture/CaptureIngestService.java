@@ -2,22 +2,26 @@ package com.github.fjbaldon.attendex.platform.capture;
 
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeDto;
 import com.github.fjbaldon.attendex.platform.attendee.AttendeeFacade;
-import com.github.fjbaldon.attendex.platform.event.EventFacade;
+import com.github.fjbaldon.attendex.platform.common.resilience.DatabaseCircuit;
 import com.github.fjbaldon.attendex.platform.event.SessionDetailsDto;
 import com.github.fjbaldon.attendex.platform.organization.OrganizationFacade;
 import com.github.fjbaldon.attendex.platform.organization.ScannerAuthDto;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -25,161 +29,349 @@ class CaptureIngestService {
 
     private final EntryRepository entryRepository;
     private final OrganizationFacade organizationFacade;
-    private final EventFacade eventFacade;
+    private final SessionScheduleCache sessionScheduleCache;
     private final AttendeeFacade attendeeFacade;
     private final OrphanService orphanService;
+    private final EntryBatchWriter entryBatchWriter;
+    private final RecentScanUuids recentScanUuids;
     private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int syncChunkSize;
 
     public CaptureIngestService(
             EntryRepository entryRepository,
             OrganizationFacade organizationFacade,
-            EventFacade eventFacade,
+            SessionScheduleCache sessionScheduleCache,
             AttendeeFacade attendeeFacade,
             OrphanService orphanService,
-            ApplicationEventPublisher eventPublisher
+            EntryBatchWriter entryBatchWriter,
+            RecentScanUuids recentScanUuids,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.capture.sync-chunk-size:200}") int syncChunkSize
     ) {
         this.entryRepository = entryRepository;
         this.organizationFacade = organizationFacade;
-        this.eventFacade = eventFacade;
+        this.sessionScheduleCache = sessionScheduleCache;
         this.attendeeFacade = attendeeFacade;
         this.orphanService = orphanService;
+        this.entryBatchWriter = entryBatchWriter;
+        this.recentScanUuids = recentScanUuids;
         this.eventPublisher = eventPublisher;
+        // JpaTransactionManager cannot create savepoints, so every ingest attempt commits or rolls back on its own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.syncChunkSize = syncChunkSize;
     }
 
-    @Transactional
+    // Not transactional: each chunk commits on its own so a failure never costs the client the whole batch
     public BatchSyncResponse syncEntries(Long organizationId, String scannerEmail, EntrySyncRequestDto request) {
-        ScannerAuthDto scanner = organizationFacade.findScannerAuthByEmail(scannerEmail)
-                .filter(s -> s.organizationId().equals(organizationId))
-                .orElseThrow(() -> new EntityNotFoundException("Scanner not found."));
+        Long scannerId = resolveScannerId(organizationId, scannerEmail);
 
-        Map<Long, List<SessionDetailsDto>> scheduleCache = new HashMap<>();
+        List<EntrySyncRequestDto.EntryRecord> records = request.records();
         List<String> failedUuids = new ArrayList<>();
-        Map<Long, List<Long>> syncedAttendees = new HashMap<>();
         int successCount = 0;
 
-        // 1. Pre-filter known UUIDs (Optimization)
-        List<String> allUuids = request.records().stream()
+        for (int from = 0; from < records.size(); from += syncChunkSize) {
+            List<EntrySyncRequestDto.EntryRecord> chunk = records.subList(from, Math.min(from + syncChunkSize, records.size()));
+            try {
+                ChunkOutcome outcome = ingestRecords(organizationId, scannerId, chunk);
+                successCount += outcome.processedUuids().size();
+                failedUuids.addAll(outcome.failedUuids());
+            } catch (RuntimeException e) {
+                // Lost database: let the caller fall back instead of failing every remaining chunk
+                if (DatabaseCircuit.isConnectivityFailure(e)) {
+                    throw e;
+                }
+                // Unknown System Error -> Fail this chunk only and allow Mobile to retry it
+                log.error("Failed to sync chunk of {} entries starting at {}", chunk.size(), chunk.getFirst().scanUuid(), e);
+                chunk.forEach(record -> failedUuids.add(record.scanUuid()));
+            }
+        }
+
+        return new BatchSyncResponse(successCount, failedUuids.size(), failedUuids);
+    }
+
+    Long resolveScannerId(Long organizationId, String scannerEmail) {
+        return organizationFacade.findScannerAuthByEmail(scannerEmail)
+                .filter(s -> s.organizationId().equals(organizationId))
+                .map(ScannerAuthDto::id)
+                .orElseThrow(() -> new EntityNotFoundException("Scanner not found."));
+    }
+
+    /**
+     * Ingests the records in transactions of their own, never the caller's: the whole chunk at once, and when
+     * a statement fails, each record separately so only the offending record is lost. Returned UUIDs are
+     * committed.
+     */
+    ChunkOutcome ingestRecords(Long organizationId, Long scannerId, List<EntrySyncRequestDto.EntryRecord> records) {
+        ChunkOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> ingestChunk(organizationId, scannerId, records));
+        } catch (RuntimeException e) {
+            if (DatabaseCircuit.isConnectivityFailure(e)) {
+                throw e;
+            }
+            log.warn("Bulk insert of {} entries failed, isolating records: {}", records.size(), e.getMessage());
+            outcome = ingestIsolated(organizationId, scannerId, records);
+        }
+        // Quarantined records stay out, so a retry is checked against the quarantine again and keeps its status
+        Set<String> quarantined = new HashSet<>(outcome.quarantinedUuids());
+        recentScanUuids.addAll(outcome.processedUuids().stream().filter(uuid -> !quarantined.contains(uuid)).toList());
+        return outcome;
+    }
+
+    private ChunkOutcome ingestChunk(Long organizationId, Long scannerId, List<EntrySyncRequestDto.EntryRecord> chunk) {
+        // 1. Pre-filter known UUIDs: recently committed ones from memory, only the rest from the database
+        List<String> recentUuids = new ArrayList<>();
+        List<String> unseenUuids = new ArrayList<>();
+        for (var record : chunk) {
+            (recentScanUuids.contains(record.scanUuid()) ? recentUuids : unseenUuids).add(record.scanUuid());
+        }
+        Set<String> existingUuids = new HashSet<>(recentUuids);
+        Set<String> quarantinedBefore = Set.of();
+        if (!unseenUuids.isEmpty()) {
+            List<String> storedUuids = entryRepository.findExistingScanUuids(unseenUuids);
+            recentScanUuids.recordStaleMisses(storedUuids.size());
+            existingUuids.addAll(storedUuids);
+
+            // Resent after being quarantined: report it quarantined again rather than storing a second orphan
+            List<String> unstoredUuids = unseenUuids.stream().filter(uuid -> !existingUuids.contains(uuid)).toList();
+            if (!unstoredUuids.isEmpty()) {
+                quarantinedBefore = orphanService.findQuarantinedScanUuids(unstoredUuids);
+            }
+        }
+
+        Set<String> knownQuarantined = quarantinedBefore;
+        List<EntrySyncRequestDto.EntryRecord> pending = chunk.stream()
+                .filter(record -> !existingUuids.contains(record.scanUuid()) && !knownQuarantined.contains(record.scanUuid()))
+                .toList();
+
+        // 2. Bulk path; a statement error rolls back the chunk and ingestRecords retries record by record
+        IngestResult result = ingest(organizationId, scannerId, pending);
+
+        // Logic Error (Missing Event) -> Quarantine
+        result.orphans().forEach((record, reason) -> log.warn("Orphaned Entry {}: {}", record.scanUuid(), reason));
+        orphanService.saveAllToQuarantine(organizationId, result.orphans());
+
+        if (!result.created().isEmpty()) {
+            eventPublisher.publishEvent(EntriesCapturedEvent.of(organizationId, result.created()));
+            eventPublisher.publishEvent(new EntriesSyncedEvent(result.created().stream().map(Entry::getId).toList()));
+        }
+
+        // Known UUIDs, races and quarantined records all count as processed so mobile stops retrying them
+        List<String> processedUuids = new ArrayList<>(existingUuids);
+        processedUuids.addAll(quarantinedBefore);
+        result.created().forEach(entry -> processedUuids.add(entry.getScanUuid()));
+        result.conflicts().forEach(record -> processedUuids.add(record.scanUuid()));
+        result.orphans().keySet().forEach(record -> processedUuids.add(record.scanUuid()));
+
+        List<String> quarantinedUuids = new ArrayList<>(quarantinedBefore);
+        result.orphans().keySet().forEach(record -> quarantinedUuids.add(record.scanUuid()));
+        List<String> failedUuids = result.rejected().stream()
                 .map(EntrySyncRequestDto.EntryRecord::scanUuid)
                 .toList();
-        Set<String> existingUuids = new HashSet<>(entryRepository.findExistingScanUuids(allUuids));
 
-        for (var record : request.records()) {
-            if (existingUuids.contains(record.scanUuid())) {
-                successCount++;
-                continue;
-            }
+        return new ChunkOutcome(processedUuids, quarantinedUuids, failedUuids);
+    }
+
+    // Fallback when the bulk statement fails: one transaction per record, so only the offending record is lost
+    private ChunkOutcome ingestIsolated(Long organizationId, Long scannerId, List<EntrySyncRequestDto.EntryRecord> records) {
+        List<String> processedUuids = new ArrayList<>();
+        List<String> quarantinedUuids = new ArrayList<>();
+        List<String> failedUuids = new ArrayList<>();
 
+        for (var record : records) {
             try {
-                boolean created = processSingleEntry(organizationId, scanner.id(), record, scheduleCache);
-                if (created) {
-                    successCount++;
-                    syncedAttendees
-                            .computeIfAbsent(record.eventId(), k -> new ArrayList<>())
-                            .add(record.attendeeId());
-                }
-            } catch (EntityNotFoundException e) {
-                // Logic Error (Missing Event/Attendee) -> Quarantine
-                log.warn("Orphaned Entry (Entity Not Found): {}", e.getMessage());
-                orphanService.saveToQuarantine(organizationId, record, e.getMessage());
-                successCount++; // We count it as processed so mobile stops retrying
+                ChunkOutcome single = transactionTemplate.execute(status -> ingestChunk(organizationId, scannerId, List.of(record)));
+                processedUuids.addAll(single.processedUuids());
+                quarantinedUuids.addAll(single.quarantinedUuids());
+                failedUuids.addAll(single.failedUuids());
             } catch (DataIntegrityViolationException e) {
-                // FIXED: Distinguish between Duplicate UUID (Success) and Data Error (Orphan)
-                if (e.getMessage() != null && e.getMessage().contains("capture_entry_scan_uuid_key")) {
-                    log.info("Race condition caught for UUID {}. Treated as idempotent success.", record.scanUuid());
+                log.error("Data Integrity Error for UUID {}: {}", record.scanUuid(), e.getMessage());
+                if (quarantine(organizationId, record, "Data Integrity: " + e.getMostSpecificCause().getMessage())) {
+                    processedUuids.add(record.scanUuid());
+                    quarantinedUuids.add(record.scanUuid());
                 } else {
-                    log.error("Data Integrity Error for UUID {}: {}", record.scanUuid(), e.getMessage());
-                    orphanService.saveToQuarantine(organizationId, record, "Data Integrity: " + e.getMostSpecificCause().getMessage());
+                    failedUuids.add(record.scanUuid());
+                }
+            } catch (RuntimeException e) {
+                if (DatabaseCircuit.isConnectivityFailure(e)) {
+                    throw e;
                 }
-                successCount++;
-            } catch (Exception e) {
-                // Unknown System Error -> Fail and allow Mobile to retry
                 log.error("Failed to sync UUID: {}", record.scanUuid(), e);
                 failedUuids.add(record.scanUuid());
             }
         }
 
-        if (!syncedAttendees.isEmpty()) {
-            eventPublisher.publishEvent(new EntriesSyncedEvent(syncedAttendees));
-        }
+        return new ChunkOutcome(processedUuids, quarantinedUuids, failedUuids);
+    }
 
-        return new BatchSyncResponse(successCount, failedUuids.size(), failedUuids);
+    private boolean quarantine(Long organizationId, EntrySyncRequestDto.EntryRecord record, String reason) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> orphanService.saveToQuarantine(organizationId, record, reason));
+            return true;
+        } catch (RuntimeException e) {
+            if (DatabaseCircuit.isConnectivityFailure(e)) {
+                throw e;
+            }
+            log.error("Failed to quarantine UUID {}", record.scanUuid(), e);
+            return false;
+        }
     }
 
     @Transactional
-    public boolean processSingleEntry(Long organizationId, Long scannerId, EntrySyncRequestDto.EntryRecord record, Map<Long, List<SessionDetailsDto>> scheduleCache) {
-        if (!scheduleCache.containsKey(record.eventId()) && !eventFacade.exists(record.eventId())) {
-            throw new EntityNotFoundException("Event not found: " + record.eventId());
+    public boolean ingestSingleEntry(Long organizationId, Long scannerId, EntrySyncRequestDto.EntryRecord record) {
+        IngestResult result = ingest(organizationId, scannerId, List.of(record));
+
+        if (!result.orphans().isEmpty()) {
+            throw new EntityNotFoundException(result.orphans().get(record));
         }
+        if (!result.rejected().isEmpty()) {
+            throw new IllegalArgumentException("Entry " + record.scanUuid() + " is missing its attendee or scan time.");
+        }
+        if (result.created().isEmpty()) {
+            return false;
+        }
+
+        eventPublisher.publishEvent(EntriesCapturedEvent.of(organizationId, result.created()));
+        return true;
+    }
 
-        List<SessionDetailsDto> sessions = scheduleCache.computeIfAbsent(record.eventId(), eventFacade::findAllSessionsForEvent);
-        SessionDetailsDto bestSession = findBestSessionInMemory(sessions, record.scanTimestamp());
+    /**
+     * Set-based ingest: events, schedules and attendee snapshots are resolved for the whole batch up front,
+     * then every new entry is written by one multi-row insert. Attendance dedup is enforced by the
+     * partial unique indexes on capture_entry, so a skipped row is either a known scan or a repeat scan.
+     */
+    private IngestResult ingest(Long organizationId, Long scannerId, List<EntrySyncRequestDto.EntryRecord> records) {
+        if (records.isEmpty()) {
+            return IngestResult.EMPTY;
+        }
+
+        Set<Long> eventIds = records.stream()
+                .map(EntrySyncRequestDto.EntryRecord::eventId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> attendeeIds = records.stream()
+                .map(EntrySyncRequestDto.EntryRecord::attendeeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, SessionTimeline> timelines = sessionScheduleCache.getTimelines(eventIds);
+        Map<Long, Map<String, Object>> snapshots = attendeeFacade.findActiveAttendeesByIds(organizationId, attendeeIds).stream()
+                .collect(Collectors.toMap(
+                        AttendeeDto::id,
+                        a -> a.attributes() != null ? a.attributes() : Collections.<String, Object>emptyMap()
+                ));
+        Set<AttendanceSlot> batchSlots = new HashSet<>();
+
+        Map<EntrySyncRequestDto.EntryRecord, String> orphans = new LinkedHashMap<>();
+        List<EntrySyncRequestDto.EntryRecord> rejected = new ArrayList<>();
+        List<EntrySyncRequestDto.EntryRecord> conflicts = new ArrayList<>();
+        List<Entry> candidates = new ArrayList<>();
+        Set<String> batchUuids = new HashSet<>();
+
+        for (var record : records) {
+            SessionTimeline timeline = record.eventId() != null ? timelines.get(record.eventId()) : null;
+            if (timeline == null) {
+                orphans.put(record, "Event not found: " + record.eventId());
+                continue;
+            }
+            if (record.attendeeId() == null || record.scanTimestamp() == null) {
+                log.error("Failed to sync UUID {}: record is missing its attendee or scan time", record.scanUuid());
+                rejected.add(record);
+                continue;
+            }
+            if (!batchUuids.add(record.scanUuid())) {
+                // Same scan sent twice in one batch; the first copy is the one that counts
+                conflicts.add(record);
+                continue;
+            }
 
-        Long sessionId = null;
-        String punctuality = "UNSCHEDULED";
+            SessionDetailsDto bestSession = timeline.findBestSession(record.scanTimestamp());
 
-        if (bestSession != null) {
-            sessionId = bestSession.sessionId();
-            punctuality = calculatePunctuality(record.scanTimestamp(), bestSession);
-            if (entryRepository.existsByAttendeeIdAndSessionId(record.attendeeId(), sessionId)) {
-                return false; // Duplicate check (Session)
+            Long sessionId = null;
+            String punctuality = "UNSCHEDULED";
+            if (bestSession != null) {
+                sessionId = bestSession.sessionId();
+                punctuality = calculatePunctuality(record.scanTimestamp(), bestSession);
             }
-        } else {
-            // FIXED: Prevent spamming Unscheduled entries.
-            // If they already have an Unscheduled entry for this event, ignore this one.
-            if (entryRepository.existsByAttendeeIdAndEventIdAndSessionIdIsNull(record.attendeeId(), record.eventId())) {
-                return false; // Duplicate check (Unscheduled)
+
+            // One entry per attendee per session; unscheduled scans collapse into one entry per event.
+            // The database enforces this across batches, this only keeps the statement free of repeats.
+            if (!batchSlots.add(AttendanceSlot.of(record.attendeeId(), record.eventId(), sessionId))) {
+                continue;
             }
+
+            candidates.add(Entry.create(
+                    organizationId,
+                    record.eventId(),
+                    sessionId,
+                    record.attendeeId(),
+                    scannerId,
+                    record.scanTimestamp(),
+                    punctuality,
+                    record.scanUuid(),
+                    record.snapshotIdentity(),
+                    record.snapshotFirstName(),
+                    record.snapshotLastName(),
+                    snapshots.getOrDefault(record.attendeeId(), Collections.emptyMap())
+            ));
         }
 
-        Map<String, Object> snapshotAttributes = attendeeFacade.findAttendeeById(record.attendeeId(), organizationId)
-                .map(AttendeeDto::attributes)
-                .orElse(Collections.emptyMap());
-
-        Entry entry = Entry.create(
-                organizationId,
-                record.eventId(),
-                sessionId,
-                record.attendeeId(),
-                scannerId,
-                record.scanTimestamp(),
-                punctuality,
-                record.scanUuid(),
-                record.snapshotIdentity(),
-                record.snapshotFirstName(),
-                record.snapshotLastName(),
-                snapshotAttributes
-        );
-
-        entryRepository.save(entry);
-
-        eventPublisher.publishEvent(new EntryCreatedEvent(
-                entry.getId(),
-                record.eventId(),
-                organizationId,
-                sessionId,
-                scannerId,
-                entry.getScanTimestamp()
-        ));
+        List<Entry> created = candidates.isEmpty() ? List.of() : entryBatchWriter.insertIgnoringConflicts(candidates);
 
-        return true;
+        if (created.size() < candidates.size()) {
+            // Skipped rows hit either the scan UUID index (retry or concurrent sync) or an attendance index (repeat scan)
+            List<String> skippedUuids = candidates.stream()
+                    .filter(entry -> entry.getId() == null)
+                    .map(Entry::getScanUuid)
+                    .toList();
+            Map<String, EntrySyncRequestDto.EntryRecord> recordsByUuid = new HashMap<>();
+            records.forEach(record -> recordsByUuid.putIfAbsent(record.scanUuid(), record));
+
+            for (String uuid : entryRepository.findExistingScanUuids(skippedUuids)) {
+                log.info("Race condition caught for UUID {}. Treated as idempotent success.", uuid);
+                conflicts.add(recordsByUuid.get(uuid));
+            }
+        }
+
+        return new IngestResult(created, conflicts, orphans, rejected);
     }
 
     @Transactional
-    public void recalculateSessionPunctuality(Long sessionId, Instant targetTime, int graceBefore, int graceAfter) {
+    public void recalculateSessionPunctuality(Long eventId, Long sessionId, Instant targetTime, int graceBefore, int graceAfter) {
         log.info("Recalculating punctuality for session {} (Target: {}, Grace: -{}/+{})", sessionId, targetTime, graceBefore, graceAfter);
-        entryRepository.recalculatePunctualityForSession(sessionId, targetTime, graceBefore, graceAfter);
+        if (entryRepository.recalculatePunctualityForSession(sessionId, targetTime, graceBefore, graceAfter) > 0) {
+            eventPublisher.publishEvent(new EntriesRevisedEvent(eventId));
+        }
     }
 
     @Transactional
-    public void reassignEntriesForDeletedSession(Long sessionIdToDelete, List<SessionDetailsDto> remainingSessions) {
+    public void reassignEntriesForDeletedSession(Long eventId, Long sessionIdToDelete, List<SessionDetailsDto> remainingSessions) {
         List<Entry> entries = entryRepository.findBySessionIdsAndQuery(List.of(sessionIdToDelete), null, Pageable.unpaged()).getContent();
 
         if (entries.isEmpty()) return;
 
         log.info("Re-binning {} entries from deleted session {}", entries.size(), sessionIdToDelete);
 
+        // A moved entry must not land on a slot the attendee already holds (partial unique indexes)
+        Set<Long> eventIds = entries.stream().map(Entry::getEventId).collect(Collectors.toSet());
+        Set<Long> attendeeIds = entries.stream().map(Entry::getAttendeeId).collect(Collectors.toSet());
+        Set<AttendanceSlot> takenSlots = entryRepository.findAttendanceSlots(eventIds, attendeeIds).stream()
+                .map(row -> AttendanceSlot.of((Long) row[0], (Long) row[1], (Long) row[2]))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        SessionTimeline timeline = SessionTimeline.of(remainingSessions);
+        List<Entry> redundant = new ArrayList<>();
         for (Entry entry : entries) {
-            SessionDetailsDto bestMatch = findBestSessionInMemory(remainingSessions, entry.getScanTimestamp());
+            SessionDetailsDto bestMatch = timeline.findBestSession(entry.getScanTimestamp());
+            Long targetSessionId = bestMatch != null ? bestMatch.sessionId() : null;
+
+            if (!takenSlots.add(AttendanceSlot.of(entry.getAttendeeId(), entry.getEventId(), targetSessionId))) {
+                redundant.add(entry);
+                continue;
+            }
 
             if (bestMatch != null) {
                 String newPunctuality = calculatePunctuality(entry.getScanTimestamp(), bestMatch);
@@ -189,26 +381,16 @@ class CaptureIngestService {
             }
         }
 
+        if (!redundant.isEmpty()) {
+            log.info("Dropping {} entries already covered by an entry in their new slot", redundant.size());
+            entryRepository.deleteAll(redundant);
+            entries = entries.stream().filter(entry -> !redundant.contains(entry)).toList();
+        }
+
         entryRepository.saveAll(entries);
+        eventPublisher.publishEvent(new EntriesRevisedEvent(eventId));
     }
 
-    private SessionDetailsDto findBestSessionInMemory(List<SessionDetailsDto> sessions, Instant scanTime) {
-        SessionDetailsDto bestMatch = null;
-        double minWeightedDiff = Double.MAX_VALUE;
-        for (SessionDetailsDto session : sessions) {
-            long diff = Duration.between(session.targetTime(), scanTime).getSeconds();
-            long absDiff = Math.abs(diff);
-
-            if (absDiff <= 14400) {
-                double weightedDiff = (diff >= 0) ? absDiff : (absDiff * 1.5);
-                if (weightedDiff < minWeightedDiff) {
-                    minWeightedDiff = weightedDiff;
-                    bestMatch = session;
-                }
-            }
-        }
-        return bestMatch;
-    }
 
     private String calculatePunctuality(Instant scanTimestamp, SessionDetailsDto details) {
         long minutesDiff = ChronoUnit.MINUTES.between(details.targetTime(), scanTimestamp);
@@ -216,4 +398,25 @@ class CaptureIngestService {
         if (minutesDiff > details.graceMinutesAfter()) return "LATE";
         return "PUNCTUAL";
     }
+
+    record ChunkOutcome(List<String> processedUuids, List<String> quarantinedUuids, List<String> failedUuids) {
+    }
+
+    private record IngestResult(
+            List<Entry> created,
+            List<EntrySyncRequestDto.EntryRecord> conflicts, // Scan UUID already stored (retry or concurrent sync)
+            Map<EntrySyncRequestDto.EntryRecord, String> orphans, // Record -> quarantine reason
+            List<EntrySyncRequestDto.EntryRecord> rejected
+    ) {
+        static final IngestResult EMPTY = new IngestResult(List.of(), List.of(), Map.of(), List.of());
+    }
+
+    // Mirrors the partial unique indexes: session entries are unique per attendee, unscheduled ones per attendee and event
+    private record AttendanceSlot(Long attendeeId, Long eventId, Long sessionId) {
+        static AttendanceSlot of(Long attendeeId, Long eventId, Long sessionId) {
+            return sessionId != null
+                    ? new AttendanceSlot(attendeeId, null, sessionId)
+                    : new AttendanceSlot(attendeeId, eventId, null);
+        }
+    }
 }
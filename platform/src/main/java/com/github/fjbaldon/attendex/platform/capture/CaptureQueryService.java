@@ -33,10 +33,14 @@ class CaptureQueryService {
         boolean hasAttendeeFilter = false;
 
         if (attributeFilters != null && !attributeFilters.isEmpty()) {
-            attendeeIds = attendeeFacade.findAttendeeIdsByFilters(organizationId, attributeFilters);
-            hasAttendeeFilter = true;
-            if (attendeeIds.isEmpty()) {
-                return Page.empty(pageable);
+            List<Long> filteredIds = attendeeFacade.findAttendeeIdsByFilters(organizationId, attributeFilters);
+            // Null when every filter was blank
+            if (filteredIds != null) {
+                if (filteredIds.isEmpty()) {
+                    return Page.empty(pageable);
+                }
+                attendeeIds = filteredIds;
+                hasAttendeeFilter = true;
             }
         }
 
@@ -61,25 +65,6 @@ class CaptureQueryService {
         return mapEntriesToDtos(entries);
     }
 
-    @Transactional(readOnly = true)
-    public List<EntryDetailsDto> findEntriesForSession(Long organizationId, Long sessionId, List<Long> attendeeIds) {
-        if (attendeeIds == null || attendeeIds.isEmpty()) {
-            return Collections.emptyList();
-        }
-        return mapEntriesToDtos(entryRepository.findByOrganizationIdAndSessionIdAndAttendeeIdIn(organizationId, sessionId, attendeeIds));
-    }
-
-    @Transactional(readOnly = true)
-    public long countPresentAttendeesInList(Long eventId, Long sessionId, List<Long> attendeeIds) {
-        if (attendeeIds == null || attendeeIds.isEmpty()) return 0;
-
-        if (sessionId != null) {
-            return entryRepository.countPresentForSession(sessionId, attendeeIds);
-        } else {
-            return entryRepository.countPresentEventWide(eventId, attendeeIds);
-        }
-    }
-
     @Transactional(readOnly = true)
     public long countEntriesSince(Long organizationId, Instant timestamp) {
         return entryRepository.countByOrganizationIdAndSyncTimestampAfter(organizationId, timestamp);
@@ -90,53 +75,6 @@ class CaptureQueryService {
         return entryRepository.findDailyEntriesSince(organizationId, startDate);
     }
 
-    @Transactional(readOnly = true)
-    public List<EntryEventStatusDto> getEntryStatusesForAttendee(Long attendeeId) {
-        return entryRepository.findByAttendeeId(attendeeId).stream()
-                .map(e -> new EntryEventStatusDto(
-                        e.getEventId(),
-                        e.getSessionId(),
-                        e.getScanTimestamp(),
-                        e.getPunctuality()
-                ))
-                .collect(Collectors.toList());
-    }
-
-    @Transactional(readOnly = true)
-    public EventStatsDto getEventStats(Long organizationId, Long eventId) {
-        eventFacade.findEventById(eventId, organizationId);
-        long totalScans = entryRepository.countByEventId(eventId);
-        long rosterCount = eventFacade.countRosterForEvent(eventId);
-        double rate = (rosterCount > 0) ? ((double) totalScans / rosterCount) * 100 : 0.0;
-
-        List<Object[]> sessionCounts = entryRepository.countByEventIdGroupBySessionId(eventId);
-        Set<Long> sessionIds = sessionCounts.stream().map(row -> (Long) row[0]).collect(Collectors.toSet());
-        Map<Long, String> sessionNames = eventFacade.getSessionNamesByIds(sessionIds);
-
-        List<EventStatsDto.StatItem> sessionStats = sessionCounts.stream()
-                .map(row -> new EventStatsDto.StatItem(
-                        sessionNames.getOrDefault((Long) row[0], "Unknown"),
-                        ((Number) row[1]).longValue()
-                ))
-                .collect(Collectors.toList());
-
-        List<Object[]> scannerCounts = entryRepository.countByEventIdGroupByScannerId(eventId);
-        Set<Long> scannerIds = scannerCounts.stream().map(row -> (Long) row[0]).collect(Collectors.toSet());
-        Map<Long, String> scannerEmails = organizationFacade.getScannerEmailsByIds(scannerIds);
-
-        List<EventStatsDto.StatItem> scannerStats = scannerCounts.stream()
-                .map(row -> new EventStatsDto.StatItem(
-                        scannerEmails.getOrDefault((Long) row[0], "Unknown"),
-                        ((Number) row[1]).longValue()
-                ))
-                .collect(Collectors.toList());
-
-        Instant first = entryRepository.findFirstScanByEventId(eventId).orElse(null);
-        Instant last = entryRepository.findLastScanByEventId(eventId).orElse(null);
-
-        return new EventStatsDto(totalScans, rosterCount, rate, first, last, sessionStats, scannerStats);
-    }
-
     @Transactional(readOnly = true)
     public List<RecentActivityDto> getRecentActivity(Long organizationId) {
         List<Entry> entries = entryRepository.findTop5ByOrganizationIdOrderByScanTimestampDesc(organizationId);
@@ -19,6 +19,7 @@ class CaptureSessionEventListener {
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onSessionUpdated(SessionUpdatedEvent event) {
         captureFacade.recalculateSessionPunctuality(
+                event.eventId(),
                 event.sessionId(),
                 event.targetTime(),
                 event.graceMinutesBefore(),
@@ -30,6 +31,7 @@ class CaptureSessionEventListener {
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onSessionDeleted(SessionDeletedEvent event) {
         captureFacade.reassignEntriesForDeletedSession(
+                event.eventId(),
                 event.deletedSessionId(),
                 event.remainingSessions()
         );
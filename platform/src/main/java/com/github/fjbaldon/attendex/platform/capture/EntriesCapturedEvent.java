@@ -0,0 +1,83 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// One per committed ingest batch: how many entries each event, session, scanner, punctuality and minute gained, and by whom
+public record EntriesCapturedEvent(
+        Long organizationId,
+        List<EventDelta> events
+) {
+
+    public record EventDelta(
+            Long eventId,
+            long entryCount,
+            Map<Long, Long> entriesBySessionId, // Unscheduled entries have no session and are not listed
+            Map<Long, Long> entriesByScannerId,
+            Map<String, Long> entriesByPunctuality,
+            Instant firstScanAt,
+            Instant lastScanAt,
+            List<ArrivalBucket> arrivals,
+            List<Long> attendeeIds, // Distinct attendees who gained an entry
+            Map<Long, List<Long>> attendeeIdsBySessionId
+    ) {
+    }
+
+    // Entries of one session (null when unscheduled) scanned within the minute starting at minuteStart
+    public record ArrivalBucket(Long sessionId, Instant minuteStart, long count) {
+    }
+
+    static EntriesCapturedEvent of(Long organizationId, List<Entry> entries) {
+        Map<Long, Long> entryCounts = new HashMap<>();
+        Map<Long, Map<Long, Long>> sessionCounts = new HashMap<>();
+        Map<Long, Map<Long, Long>> scannerCounts = new HashMap<>();
+        Map<Long, Map<String, Long>> punctualityCounts = new HashMap<>();
+        Map<Long, Instant> firstScans = new HashMap<>();
+        Map<Long, Instant> lastScans = new HashMap<>();
+        Map<Long, Map<ArrivalBucket, Long>> arrivalCounts = new HashMap<>();
+        Map<Long, Set<Long>> attendees = new HashMap<>();
+        Map<Long, Map<Long, Set<Long>>> sessionAttendees = new HashMap<>();
+
+        for (Entry entry : entries) {
+            entryCounts.merge(entry.getEventId(), 1L, Long::sum);
+            if (entry.getSessionId() != null) {
+                sessionCounts.computeIfAbsent(entry.getEventId(), k -> new HashMap<>())
+                        .merge(entry.getSessionId(), 1L, Long::sum);
+                sessionAttendees.computeIfAbsent(entry.getEventId(), k -> new HashMap<>())
+                        .computeIfAbsent(entry.getSessionId(), k -> new HashSet<>())
+                        .add(entry.getAttendeeId());
+            }
+            attendees.computeIfAbsent(entry.getEventId(), k -> new HashSet<>()).add(entry.getAttendeeId());
+            scannerCounts.computeIfAbsent(entry.getEventId(), k -> new HashMap<>())
+                    .merge(entry.getScannerId(), 1L, Long::sum);
+            punctualityCounts.computeIfAbsent(entry.getEventId(), k -> new HashMap<>())
+                    .merge(entry.getPunctuality(), 1L, Long::sum);
+            firstScans.merge(entry.getEventId(), entry.getScanTimestamp(), (a, b) -> a.isBefore(b) ? a : b);
+            lastScans.merge(entry.getEventId(), entry.getScanTimestamp(), (a, b) -> a.isAfter(b) ? a : b);
+            arrivalCounts.computeIfAbsent(entry.getEventId(), k -> new HashMap<>())
+                    .merge(new ArrivalBucket(entry.getSessionId(), entry.getScanTimestamp().truncatedTo(ChronoUnit.MINUTES), 0), 1L, Long::sum);
+        }
+
+        List<EventDelta> events = entryCounts.entrySet().stream()
+                .map(e -> new EventDelta(
+                        e.getKey(),
+                        e.getValue(),
+                        sessionCounts.getOrDefault(e.getKey(), Map.of()),
+                        scannerCounts.getOrDefault(e.getKey(), Map.of()),
+                        punctualityCounts.getOrDefault(e.getKey(), Map.of()),
+                        firstScans.get(e.getKey()),
+                        lastScans.get(e.getKey()),
+                        arrivalCounts.get(e.getKey()).entrySet().stream()
+                                .map(a -> new ArrivalBucket(a.getKey().sessionId(), a.getKey().minuteStart(), a.getValue()))
+                                .toList(),
+                        List.copyOf(attendees.get(e.getKey())),
+                        sessionAttendees.getOrDefault(e.getKey(), Map.of()).entrySet().stream()
+                                .collect(Collectors.toMap(Map.Entry::getKey, s -> List.copyOf(s.getValue())))
+                ))
+                .toList();
+
+        return new EntriesCapturedEvent(organizationId, events);
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+// Published when committed entries of an event moved to another session or had their punctuality recalculated
+public record EntriesRevisedEvent(
+        Long eventId
+) {
+}
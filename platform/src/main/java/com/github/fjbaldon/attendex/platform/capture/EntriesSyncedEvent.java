@@ -1,9 +1,8 @@
 package com.github.fjbaldon.attendex.platform.capture;
 
 import java.util.List;
-import java.util.Map;
 
 public record EntriesSyncedEvent(
-        Map<Long, List<Long>> attendeeIdsByEventId
+        List<Long> entryIds // Entries the sync created
 ) {
 }
@@ -84,6 +84,11 @@ class Entry {
                 snapshotIdentity, snapshotFirstName, snapshotLastName, snapshotAttributes);
     }
 
+    // Rows written by EntryBatchWriter bypass the persistence context, so the generated key is set here
+    void assignGeneratedId(Long id) {
+        this.id = id;
+    }
+
     // NEW: Logic to move an entry to a different session (or NULL)
     void reassignToSession(Long newSessionId, String newPunctuality) {
         this.sessionId = newSessionId;
@@ -0,0 +1,94 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+class EntryBatchWriter {
+
+    // 13 bind parameters per row keeps a full statement far below PostgreSQL's 65535 parameter limit
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_PREFIX = """
+            INSERT INTO capture_entry (scan_uuid, organization_id, event_id, session_id, attendee_id, scanner_id,
+                                       scan_timestamp, punctuality, sync_timestamp,
+                                       snapshot_identity, snapshot_first_name, snapshot_last_name, snapshot_attributes)
+            VALUES
+            """;
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb))";
+    private static final String INSERT_SUFFIX = " ON CONFLICT DO NOTHING RETURNING id, scan_uuid";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the entries with multi-row inserts. Rows rejected by a unique index are skipped by the
+     * database; the entries that were written get their generated ID and are returned in input order.
+     * Scan UUIDs must be unique within {@code entries}.
+     */
+    List<Entry> insertIgnoringConflicts(List<Entry> entries) {
+        List<Entry> inserted = new ArrayList<>(entries.size());
+
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Entry> chunk = entries.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, entries.size()));
+            Map<String, Entry> byUuid = new HashMap<>();
+            chunk.forEach(entry -> byUuid.put(entry.getScanUuid(), entry));
+
+            String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS)) + INSERT_SUFFIX;
+
+            jdbcTemplate.query(sql, ps -> bindRows(ps, chunk), rs -> {
+                byUuid.get(rs.getString("scan_uuid")).assignGeneratedId(rs.getLong("id"));
+            });
+
+            chunk.stream().filter(entry -> entry.getId() != null).forEach(inserted::add);
+        }
+
+        return inserted;
+    }
+
+    private void bindRows(PreparedStatement ps, List<Entry> chunk) throws SQLException {
+        int i = 1;
+        for (Entry entry : chunk) {
+            ps.setString(i++, entry.getScanUuid());
+            ps.setLong(i++, entry.getOrganizationId());
+            ps.setLong(i++, entry.getEventId());
+            ps.setObject(i++, entry.getSessionId(), Types.BIGINT);
+            ps.setLong(i++, entry.getAttendeeId());
+            ps.setLong(i++, entry.getScannerId());
+            ps.setObject(i++, toOffsetDateTime(entry.getScanTimestamp()));
+            ps.setString(i++, entry.getPunctuality());
+            ps.setObject(i++, toOffsetDateTime(entry.getSyncTimestamp()));
+            ps.setString(i++, entry.getSnapshotIdentity());
+            ps.setString(i++, entry.getSnapshotFirstName());
+            ps.setString(i++, entry.getSnapshotLastName());
+            ps.setString(i++, toJson(entry.getSnapshotAttributes()));
+        }
+    }
+
+    private OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private String toJson(Map<String, Object> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(attributes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Snapshot attributes could not be serialized", e);
+        }
+    }
+}
@@ -1,10 +0,0 @@
-package com.github.fjbaldon.attendex.platform.capture;
-
-import java.time.Instant;
-
-public record EntryEventStatusDto(
-        Long eventId,
-        Long sessionId,
-        Instant scanTimestamp,
-        String punctuality
-) {}
@@ -9,8 +9,8 @@ import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 interface EntryRepository extends PagingAndSortingRepository<Entry, Long>, JpaRepository<Entry, Long> {
 
@@ -34,18 +34,13 @@ interface EntryRepository extends PagingAndSortingRepository<Entry, Long>, JpaRe
             Pageable pageable
     );
 
-    @Query("SELECT e FROM Entry e WHERE e.organizationId = :organizationId AND e.sessionId = :sessionId AND e.attendeeId IN :attendeeIds")
-    List<Entry> findByOrganizationIdAndSessionIdAndAttendeeIdIn(
-            @Param("organizationId") Long organizationId,
-            @Param("sessionId") Long sessionId,
-            @Param("attendeeIds") List<Long> attendeeIds
-    );
-
     List<Entry> findTop5ByOrganizationIdOrderByScanTimestampDesc(Long organizationId);
 
-    boolean existsByAttendeeIdAndSessionId(Long attendeeId, Long sessionId);
-
-    boolean existsByAttendeeIdAndEventIdAndSessionIdIsNull(Long attendeeId, Long eventId);
+    @Query("SELECT e.attendeeId, e.eventId, e.sessionId FROM Entry e WHERE e.eventId IN :eventIds AND e.attendeeId IN :attendeeIds")
+    List<Object[]> findAttendanceSlots(
+            @Param("eventIds") Collection<Long> eventIds,
+            @Param("attendeeIds") Collection<Long> attendeeIds
+    );
 
     long countByOrganizationIdAndSyncTimestampAfter(Long organizationId, Instant timestamp);
 
@@ -61,20 +56,6 @@ interface EntryRepository extends PagingAndSortingRepository<Entry, Long>, JpaRe
             Pageable pageable
     );
 
-    long countByEventId(Long eventId);
-
-    @Query("SELECT e.sessionId, COUNT(e) FROM Entry e WHERE e.eventId = :eventId AND e.sessionId IS NOT NULL GROUP BY e.sessionId")
-    List<Object[]> countByEventIdGroupBySessionId(@Param("eventId") Long eventId);
-
-    @Query("SELECT e.scannerId, COUNT(e) FROM Entry e WHERE e.eventId = :eventId GROUP BY e.scannerId")
-    List<Object[]> countByEventIdGroupByScannerId(@Param("eventId") Long eventId);
-
-    @Query("SELECT MIN(e.scanTimestamp) FROM Entry e WHERE e.eventId = :eventId")
-    Optional<Instant> findFirstScanByEventId(@Param("eventId") Long eventId);
-
-    @Query("SELECT MAX(e.scanTimestamp) FROM Entry e WHERE e.eventId = :eventId")
-    Optional<Instant> findLastScanByEventId(@Param("eventId") Long eventId);
-
     @Query("SELECT e FROM Entry e LEFT JOIN com.github.fjbaldon.attendex.platform.event.Session s ON e.sessionId = s.id " +
             "WHERE e.eventId = :eventId " +
             "AND (CAST(:sessionId AS Long) IS NULL OR e.sessionId = :sessionId) " +
@@ -111,18 +92,10 @@ interface EntryRepository extends PagingAndSortingRepository<Entry, Long>, JpaRe
             "    ELSE 'PUNCTUAL' " +
             "END " +
             "WHERE e.session_id = :sessionId")
-    void recalculatePunctualityForSession(
+    int recalculatePunctualityForSession(
             @Param("sessionId") Long sessionId,
             @Param("targetTime") Instant targetTime,
             @Param("graceBefore") int graceBefore,
             @Param("graceAfter") int graceAfter
     );
-
-    List<Entry> findByAttendeeId(Long attendeeId);
-
-    @Query("SELECT COUNT(DISTINCT e.attendeeId) FROM Entry e WHERE e.eventId = :eventId AND e.attendeeId IN :attendeeIds")
-    long countPresentEventWide(@Param("eventId") Long eventId, @Param("attendeeIds") List<Long> attendeeIds);
-
-    @Query("SELECT COUNT(DISTINCT e.attendeeId) FROM Entry e WHERE e.sessionId = :sessionId AND e.attendeeId IN :attendeeIds")
-    long countPresentForSession(@Param("sessionId") Long sessionId, @Param("attendeeIds") List<Long> attendeeIds);
 }
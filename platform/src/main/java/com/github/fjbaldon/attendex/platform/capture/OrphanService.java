@@ -10,9 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -73,22 +71,42 @@ class OrphanService {
         orphanedEntryRepository.delete(orphan);
     }
 
+    @Transactional(readOnly = true)
+    public Set<String> findQuarantinedScanUuids(List<String> scanUuids) {
+        return new HashSet<>(orphanedEntryRepository.findExistingScanUuids(scanUuids));
+    }
+
     @Transactional
     public void saveToQuarantine(Long organizationId, EntrySyncRequestDto.EntryRecord record, String reason) {
+        toOrphan(organizationId, record, reason).ifPresent(orphanedEntryRepository::save);
+    }
+
+    @Transactional
+    public void saveAllToQuarantine(Long organizationId, Map<EntrySyncRequestDto.EntryRecord, String> reasonsByRecord) {
+        if (reasonsByRecord.isEmpty()) {
+            return;
+        }
+
+        List<OrphanedEntry> orphans = new ArrayList<>(reasonsByRecord.size());
+        reasonsByRecord.forEach((record, reason) -> toOrphan(organizationId, record, reason).ifPresent(orphans::add));
+        orphanedEntryRepository.saveAll(orphans);
+    }
+
+    private Optional<OrphanedEntry> toOrphan(Long organizationId, EntrySyncRequestDto.EntryRecord record, String reason) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> payloadMap = objectMapper.convertValue(record, Map.class);
 
-            OrphanedEntry orphan = OrphanedEntry.create(
+            return Optional.of(OrphanedEntry.create(
                     organizationId,
                     record.eventId(),
                     record.scanUuid(),
                     payloadMap,
                     reason
-            );
-            orphanedEntryRepository.save(orphan);
+            ));
         } catch (IllegalArgumentException e) {
             log.error("Failed to convert orphan payload for UUID {}", record.scanUuid(), e);
+            return Optional.empty();
         }
     }
 }
@@ -18,7 +18,8 @@ import java.util.Map;
 class OrphanedEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "capture_orphaned_entry_id_seq")
+    @SequenceGenerator(name = "capture_orphaned_entry_id_seq", sequenceName = "capture_orphaned_entry_id_seq", allocationSize = 50)
     private Long id;
 
     private Long organizationId;
@@ -2,12 +2,18 @@ package com.github.fjbaldon.attendex.platform.capture;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 interface OrphanedEntryRepository extends PagingAndSortingRepository<OrphanedEntry, Long>, CrudRepository<OrphanedEntry, Long> {
     Page<OrphanedEntry> findAllByOrganizationId(Long organizationId, Pageable pageable);
     Optional<OrphanedEntry> findByIdAndOrganizationId(Long id, Long organizationId);
+
+    @Query("SELECT o.scanUuid FROM OrphanedEntry o WHERE o.scanUuid IN :uuids")
+    List<String> findExistingScanUuids(@Param("uuids") List<String> uuids);
 }
@@ -0,0 +1,166 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Exact, size-bounded set of scan UUIDs this instance has recently seen stored,
+ * so retried batches are acknowledged without a database round trip. Canonical lower-case UUIDs are held
+ * as 128-bit values in two open-addressing generations, any other scan ID as its string; when the current
+ * generation fills up it becomes the previous one and the oldest generation is dropped. Membership is
+ * exactly that of the scan_uuid strings, so a hit never needs confirming; a miss only means the ingest path
+ * finds out through the unique index instead.
+ */
+@Component
+class RecentScanUuids {
+
+    private Generation current;
+    private Generation previous;
+    private final int generationSize;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleMisses;
+
+    RecentScanUuids(@Value("${app.capture.recent-uuids.capacity:500000}") int capacity, MeterRegistry meterRegistry) {
+        this.generationSize = Math.max(1, capacity / 2);
+        this.current = new Generation(generationSize);
+        this.previous = new Generation(generationSize);
+
+        this.hits = Counter.builder("attendex.capture.recent_uuids.lookups").tag("result", "hit")
+                .description("Sync records acknowledged from the recent scan UUID set").register(meterRegistry);
+        this.misses = Counter.builder("attendex.capture.recent_uuids.lookups").tag("result", "miss")
+                .description("Sync records that went to the database").register(meterRegistry);
+        this.staleMisses = Counter.builder("attendex.capture.recent_uuids.stale_misses")
+                .description("Misses the database already had (evicted, or committed by another instance)").register(meterRegistry);
+    }
+
+    synchronized boolean contains(String scanUuid) {
+        boolean found = current.contains(scanUuid) || previous.contains(scanUuid);
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    // Only call after the transaction that stored these records has committed
+    synchronized void addAll(Collection<String> scanUuids) {
+        for (String scanUuid : scanUuids) {
+            if (current.contains(scanUuid)) {
+                continue;
+            }
+            if (current.size() == generationSize) {
+                previous = current;
+                current = new Generation(generationSize);
+            }
+            current.add(scanUuid);
+        }
+    }
+
+    void recordStaleMisses(int count) {
+        staleMisses.increment(count);
+    }
+
+    /**
+     * Reads a canonical lower-case UUID into {@code key} and returns true, or returns false for any other
+     * string. The lenient {@link java.util.UUID#fromString} would map different strings (upper case, short
+     * groups) to one value, while scan_uuid compares them as the distinct strings they are.
+     */
+    private static boolean toKey(String scanUuid, long[] key) {
+        if (scanUuid.length() != 36) {
+            return false;
+        }
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = scanUuid.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+                continue;
+            }
+            int nibble = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+            if (nibble < 0) {
+                return false;
+            }
+            if (digits++ < 16) {
+                high = high << 4 | nibble;
+            } else {
+                low = low << 4 | nibble;
+            }
+        }
+        key[0] = high;
+        key[1] = low;
+        return true;
+    }
+
+    // Linear-probing table at most half full for UUIDs, where (0, 0) marks an empty slot and the nil UUID is
+    // remapped, plus a plain set for the rare scan IDs that are not canonical UUIDs
+    private static final class Generation {
+
+        private final long[] slots;
+        private final int mask;
+        private final Set<String> others = new HashSet<>();
+        private final long[] key = new long[2];
+        private int uuids;
+
+        Generation(int maxSize) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) << 1;
+            this.slots = new long[capacity * 2];
+            this.mask = capacity - 1;
+        }
+
+        int size() {
+            return uuids + others.size();
+        }
+
+        boolean contains(String scanUuid) {
+            return toKey(scanUuid, key) ? contains(key[0], key[1]) : others.contains(scanUuid);
+        }
+
+        void add(String scanUuid) {
+            if (toKey(scanUuid, key)) {
+                add(key[0], key[1]);
+            } else {
+                others.add(scanUuid);
+            }
+        }
+
+        private boolean contains(long high, long low) {
+            if (high == 0 && low == 0) low = 1;
+            for (int i = indexFor(high, low); ; i = (i + 1) & mask) {
+                long slotHigh = slots[i * 2];
+                long slotLow = slots[i * 2 + 1];
+                if (slotHigh == 0 && slotLow == 0) {
+                    return false;
+                }
+                if (slotHigh == high && slotLow == low) {
+                    return true;
+                }
+            }
+        }
+
+        private void add(long high, long low) {
+            if (high == 0 && low == 0) low = 1;
+            int i = indexFor(high, low);
+            while (slots[i * 2] != 0 || slots[i * 2 + 1] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i * 2] = high;
+            slots[i * 2 + 1] = low;
+            uuids++;
+        }
+
+        private int indexFor(long high, long low) {
+            long h = high * 0x9E3779B97F4A7C15L ^ low;
+            h ^= h >>> 31;
+            return (int) h & mask;
+        }
+    }
+}
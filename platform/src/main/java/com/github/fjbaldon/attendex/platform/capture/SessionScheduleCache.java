@@ -0,0 +1,119 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.github.fjbaldon.attendex.platform.event.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-wide schedule lookup for ingest. Holds a {@link SessionTimeline} for each recently scanned
+ * event, and also remembers event IDs that do not exist so orphan floods stay off the database.
+ * Entries are dropped after any change to the event is committed here, and expire after a TTL for
+ * changes committed on other instances, whose events this one never hears about.
+ */
+@Component
+@Slf4j
+class SessionScheduleCache {
+
+    private static final int MAX_EVENTS = 1_000;
+
+    private final EventFacade eventFacade;
+    private final long ttlNanos;
+
+    // Access-ordered so the least recently scanned event is evicted first; guarded by "this"
+    private final Map<Long, Cached> schedules = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+            return size() > MAX_EVENTS;
+        }
+    };
+
+    // Bumped on every eviction; a load that overlapped one is returned but not cached
+    private long generation;
+
+    SessionScheduleCache(
+            EventFacade eventFacade,
+            @Value("${app.capture.schedule-cache.ttl-seconds:60}") long ttlSeconds
+    ) {
+        this.eventFacade = eventFacade;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Returns the timeline of every active event among {@code eventIds}. Missing or deleted events are
+     * absent from the result.
+     */
+    Map<Long, SessionTimeline> getTimelines(Set<Long> eventIds) {
+        Map<Long, SessionTimeline> result = new HashMap<>();
+        Set<Long> misses = new HashSet<>();
+        long loadGeneration;
+
+        long now = System.nanoTime();
+        synchronized (this) {
+            for (Long eventId : eventIds) {
+                Cached cached = schedules.get(eventId);
+                if (cached == null || now - cached.loadedAt() >= ttlNanos) {
+                    misses.add(eventId);
+                } else {
+                    cached.timeline().ifPresent(timeline -> result.put(eventId, timeline));
+                }
+            }
+            loadGeneration = generation;
+        }
+
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, SessionTimeline> loaded = new HashMap<>();
+        eventFacade.findSessionSchedules(misses)
+                .forEach((eventId, sessions) -> loaded.put(eventId, SessionTimeline.of(sessions)));
+        result.putAll(loaded);
+
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                for (Long eventId : misses) {
+                    schedules.put(eventId, new Cached(Optional.ofNullable(loaded.get(eventId)), now));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEventCreated(EventCreatedEvent event) {
+        evict(event.eventId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEventUpdated(EventUpdatedEvent event) {
+        evict(event.eventId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSessionUpdated(SessionUpdatedEvent event) {
+        evict(event.eventId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSessionDeleted(SessionDeletedEvent event) {
+        evict(event.eventId());
+    }
+
+    private synchronized void evict(Long eventId) {
+        generation++;
+        if (schedules.remove(eventId) != null) {
+            log.debug("Evicted session schedule for event {}", eventId);
+        }
+    }
+
+    // Empty for an event that does not exist; loadedAt is the System.nanoTime() of the lookup
+    private record Cached(Optional<SessionTimeline> timeline, long loadedAt) {
+    }
+}
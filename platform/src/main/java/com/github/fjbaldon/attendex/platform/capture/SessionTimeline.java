@@ -0,0 +1,96 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.github.fjbaldon.attendex.platform.event.SessionDetailsDto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, time-sorted view of one event's sessions that matches a scan to its session with a binary
+ * search. A scan belongs to the session whose target time is nearest within four hours; arriving early
+ * counts 1.5x against a session, so a scan between two sessions leans toward the one that already started.
+ */
+final class SessionTimeline {
+
+    static final long MATCH_WINDOW_SECONDS = 14_400;
+    static final double EARLY_WEIGHT = 1.5;
+
+    static final SessionTimeline EMPTY = new SessionTimeline(new SessionDetailsDto[0]);
+
+    private final SessionDetailsDto[] sessions;
+    private final long[] targetSeconds;
+
+    private SessionTimeline(SessionDetailsDto[] sortedSessions) {
+        this.sessions = sortedSessions;
+        this.targetSeconds = new long[sortedSessions.length];
+        for (int i = 0; i < sortedSessions.length; i++) {
+            targetSeconds[i] = sortedSessions[i].targetTime().getEpochSecond();
+        }
+    }
+
+    static SessionTimeline of(List<SessionDetailsDto> sessions) {
+        if (sessions.isEmpty()) {
+            return EMPTY;
+        }
+        // Stable sort: sessions sharing a target time keep their given order, so the first one wins ties
+        SessionDetailsDto[] sorted = sessions.toArray(SessionDetailsDto[]::new);
+        Arrays.sort(sorted, Comparator.comparing(SessionDetailsDto::targetTime));
+        return new SessionTimeline(sorted);
+    }
+
+    /**
+     * Returns the session the scan belongs to, or {@code null} when no session is within the match window.
+     */
+    SessionDetailsDto findBestSession(Instant scanTime) {
+        if (sessions.length == 0) {
+            return null;
+        }
+
+        // Only the last session that started by the scan and the first one after it can be nearest
+        int after = upperBound(scanTime.getEpochSecond());
+        int started = after - 1;
+        while (started > 0 && targetSeconds[started - 1] == targetSeconds[started]) {
+            started--;
+        }
+
+        double startedWeight = weightedDiff(started, scanTime);
+        double afterWeight = weightedDiff(after, scanTime);
+
+        if (startedWeight == Double.MAX_VALUE && afterWeight == Double.MAX_VALUE) {
+            return null;
+        }
+        return startedWeight <= afterWeight ? sessions[started] : sessions[after];
+    }
+
+    // Weighted distance from the session at index i to the scan, or MAX_VALUE when out of range or window
+    private double weightedDiff(int i, Instant scanTime) {
+        if (i < 0 || i >= sessions.length) {
+            return Double.MAX_VALUE;
+        }
+        long diff = Duration.between(sessions[i].targetTime(), scanTime).getSeconds();
+        long absDiff = Math.abs(diff);
+
+        if (absDiff > MATCH_WINDOW_SECONDS) {
+            return Double.MAX_VALUE;
+        }
+        return (diff >= 0) ? absDiff : (absDiff * EARLY_WEIGHT);
+    }
+
+    // Index of the first target strictly after the given second
+    private int upperBound(long epochSecond) {
+        int low = 0;
+        int high = targetSeconds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (targetSeconds[mid] <= epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
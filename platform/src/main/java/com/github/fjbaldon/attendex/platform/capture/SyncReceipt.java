@@ -0,0 +1,10 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import java.time.Instant;
+
+// Returned with 202 in staged ingest mode; poll /sync/status with the same scan UUIDs for the outcome
+public record SyncReceipt(
+        int acceptedCount,
+        Instant receivedAt
+) {
+}
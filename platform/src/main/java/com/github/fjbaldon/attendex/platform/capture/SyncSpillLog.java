@@ -0,0 +1,173 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded, memory-mapped append-only log for sync batches that could not reach the database.
+ * <p>
+ * Layout: a 16-byte header (magic, replay offset) followed by frames of {@code [length][crc32][payload]}.
+ * The length is written last and every frame is flushed before {@link #append} returns, so after a crash
+ * the log is read up to the first empty or corrupt frame. Replayed frames are skipped via the persisted
+ * replay offset; once everything is replayed the log starts over from the beginning.
+ * <p>
+ * Payloads that can never be replayed go to a dead-letter file next to the log, one JSON document per line,
+ * for an operator to inspect.
+ */
+@Component
+@Slf4j
+class SyncSpillLog {
+
+    private static final int MAGIC = 0x41545853; // "ATXS"
+    private static final int HEADER_BYTES = 16;
+    private static final int REPLAY_OFFSET_POSITION = 8;
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private final FileChannel channel;
+    private final Path deadLetterFile;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private int replayOffset;
+    private int writeOffset;
+
+    SyncSpillLog(
+            @Value("${app.capture.spill.dir:${java.io.tmpdir}/attendex-spill}") Path directory,
+            @Value("${app.capture.spill.max-bytes:67108864}") int capacity
+    ) throws IOException {
+        Files.createDirectories(directory);
+        this.capacity = capacity;
+        this.deadLetterFile = directory.resolve("sync-spill.dead");
+        this.channel = FileChannel.open(directory.resolve("sync-spill.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(HEADER_BYTES, 0);
+            buffer.putInt(REPLAY_OFFSET_POSITION, HEADER_BYTES);
+            buffer.putInt(0, MAGIC);
+            buffer.force(0, HEADER_BYTES + Integer.BYTES);
+        }
+
+        this.replayOffset = buffer.getInt(REPLAY_OFFSET_POSITION);
+        this.writeOffset = replayOffset;
+        int length;
+        while ((length = validFrameLengthAt(writeOffset)) > 0) {
+            writeOffset += FRAME_HEADER_BYTES + length;
+        }
+
+        if (writeOffset > replayOffset) {
+            log.warn("Sync spill log holds {} bytes awaiting replay.", writeOffset - replayOffset);
+        }
+    }
+
+    /**
+     * Appends and flushes one frame. Returns false when the log is full.
+     */
+    synchronized boolean append(byte[] payload) {
+        if (replayOffset == writeOffset && writeOffset != HEADER_BYTES) {
+            restart();
+        }
+        int frameEnd = writeOffset + FRAME_HEADER_BYTES + payload.length;
+        if (frameEnd > capacity) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        buffer.putInt(writeOffset + Integer.BYTES, (int) crc.getValue());
+        buffer.put(writeOffset + FRAME_HEADER_BYTES, payload);
+        // Clear the next length slot: it may still hold a frame from before the last restart
+        if (frameEnd + Integer.BYTES <= capacity) {
+            buffer.putInt(frameEnd, 0);
+        }
+        buffer.putInt(writeOffset, payload.length);
+        buffer.force(writeOffset, Math.min(frameEnd + Integer.BYTES, capacity) - writeOffset);
+
+        writeOffset = frameEnd;
+        return true;
+    }
+
+    synchronized Optional<byte[]> peek() {
+        if (replayOffset == writeOffset) {
+            return Optional.empty();
+        }
+        byte[] payload = new byte[buffer.getInt(replayOffset)];
+        buffer.get(replayOffset + FRAME_HEADER_BYTES, payload);
+        return Optional.of(payload);
+    }
+
+    // Marks the frame returned by peek() as replayed
+    synchronized void advance() {
+        if (replayOffset == writeOffset) {
+            return;
+        }
+        replayOffset += FRAME_HEADER_BYTES + buffer.getInt(replayOffset);
+        buffer.putInt(REPLAY_OFFSET_POSITION, replayOffset);
+        buffer.force(REPLAY_OFFSET_POSITION, Integer.BYTES);
+    }
+
+    // Appends and flushes one line to the dead-letter file
+    synchronized void deadLetter(byte[] payload) {
+        try (FileChannel deadLetters = FileChannel.open(deadLetterFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            deadLetters.write(ByteBuffer.wrap(payload));
+            deadLetters.write(ByteBuffer.wrap(new byte[]{'\n'}));
+            deadLetters.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return replayOffset == writeOffset;
+    }
+
+    private void restart() {
+        buffer.putInt(HEADER_BYTES, 0);
+        buffer.putInt(REPLAY_OFFSET_POSITION, HEADER_BYTES);
+        buffer.force(0, HEADER_BYTES + Integer.BYTES);
+        replayOffset = HEADER_BYTES;
+        writeOffset = HEADER_BYTES;
+    }
+
+    // Length of a valid frame at the offset, or 0 at the end of the log (empty, torn or corrupt frame)
+    private int validFrameLengthAt(int offset) {
+        if (offset + FRAME_HEADER_BYTES > capacity) {
+            return 0;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + FRAME_HEADER_BYTES + length > capacity) {
+            return 0;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + FRAME_HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES) ? length : 0;
+    }
+
+    @PreDestroy
+    void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
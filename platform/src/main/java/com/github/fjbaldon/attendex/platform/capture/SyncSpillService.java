@@ -0,0 +1,130 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fjbaldon.attendex.platform.common.resilience.DatabaseCircuit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+class SyncSpillService {
+
+    private final SyncSpillLog spillLog;
+    private final CaptureIngestService ingestService;
+    private final CaptureInboxService inboxService;
+    private final DatabaseCircuit databaseCircuit;
+    private final ObjectMapper objectMapper;
+
+    record SpilledBatch(Long organizationId, String scannerEmail, EntrySyncRequestDto request) {
+    }
+
+    /**
+     * Writes the batch to the local spill log and acknowledges every record, or returns empty when the
+     * log is full. The replay keeps every acknowledged record: it is stored, staged in the inbox where a
+     * sync status query reports it, or dead-lettered.
+     */
+    Optional<BatchSyncResponse> spill(Long organizationId, String scannerEmail, EntrySyncRequestDto request) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(new SpilledBatch(organizationId, scannerEmail, request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Sync batch could not be serialized", e);
+        }
+
+        if (!spillLog.append(payload)) {
+            log.error("Sync spill log is full; rejecting {} records from {}", request.records().size(), scannerEmail);
+            return Optional.empty();
+        }
+
+        log.warn("Database unavailable; spilled {} records from {} for replay", request.records().size(), scannerEmail);
+        return Optional.of(new BatchSyncResponse(request.records().size(), 0, List.of()));
+    }
+
+    /**
+     * Replays through the normal ingest path; scan UUID dedup makes a replay after a crash harmless. A frame
+     * is only passed once every record in it is accounted for: records that fail to ingest are staged in the
+     * inbox, which retries them and reports their status, and what cannot be staged is dead-lettered.
+     */
+    @Scheduled(fixedDelayString = "${app.capture.spill.replay-delay-ms:5000}")
+    public void replay() {
+        while (!databaseCircuit.isOpen()) {
+            Optional<byte[]> frame = spillLog.peek();
+            if (frame.isEmpty()) {
+                return;
+            }
+
+            try {
+                replayFrame(frame.get());
+            } catch (RuntimeException e) {
+                if (DatabaseCircuit.isConnectivityFailure(e)) {
+                    databaseCircuit.trip(e);
+                } else {
+                    log.error("Spilled batch could not be replayed or dead-lettered; retrying later", e);
+                }
+                return;
+            }
+
+            spillLog.advance();
+        }
+    }
+
+    private void replayFrame(byte[] frame) {
+        SpilledBatch batch;
+        try {
+            batch = objectMapper.readValue(frame, SpilledBatch.class);
+        } catch (IOException e) {
+            log.error("Dead-lettering unreadable spilled batch", e);
+            spillLog.deadLetter(frame);
+            return;
+        }
+
+        List<EntrySyncRequestDto.EntryRecord> failed;
+        try {
+            BatchSyncResponse response = ingestService.syncEntries(batch.organizationId(), batch.scannerEmail(), batch.request());
+            if (response.failedCount() == 0) {
+                log.info("Replayed {} spilled records from {}", response.successCount(), batch.scannerEmail());
+                return;
+            }
+            Set<String> failedUuids = new HashSet<>(response.failedUuids());
+            failed = batch.request().records().stream()
+                    .filter(record -> failedUuids.contains(record.scanUuid()))
+                    .toList();
+        } catch (RuntimeException e) {
+            if (DatabaseCircuit.isConnectivityFailure(e)) {
+                throw e;
+            }
+            log.error("Spilled batch from {} could not be ingested", batch.scannerEmail(), e);
+            failed = batch.request().records();
+        }
+
+        SpilledBatch rest = new SpilledBatch(batch.organizationId(), batch.scannerEmail(), new EntrySyncRequestDto(failed));
+        try {
+            inboxService.stageEntries(rest.organizationId(), rest.scannerEmail(), rest.request());
+            log.warn("Staged {} spilled records from {} that failed to replay", failed.size(), batch.scannerEmail());
+        } catch (RuntimeException e) {
+            if (DatabaseCircuit.isConnectivityFailure(e)) {
+                throw e;
+            }
+            log.error("Dead-lettering {} spilled records from {} that cannot be staged", failed.size(), batch.scannerEmail(), e);
+            spillLog.deadLetter(serialize(rest));
+        }
+    }
+
+    private byte[] serialize(SpilledBatch batch) {
+        try {
+            return objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Spilled batch could not be serialized", e);
+        }
+    }
+}
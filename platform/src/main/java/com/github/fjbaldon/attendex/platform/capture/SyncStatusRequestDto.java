@@ -0,0 +1,11 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record SyncStatusRequestDto(
+        @NotEmpty @Size(max = 5000) List<String> scanUuids
+) {
+}
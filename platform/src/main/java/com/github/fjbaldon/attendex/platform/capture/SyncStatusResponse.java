@@ -0,0 +1,12 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import java.util.List;
+
+public record SyncStatusResponse(
+        List<String> finalizedUuids, // Stored (or a known duplicate); stop sending
+        List<String> quarantinedUuids, // Moved to orphans for an organizer to resolve; stop sending
+        List<String> failedUuids, // Resend
+        List<String> pendingUuids, // Still queued; ask again later
+        List<String> unknownUuids // Never received; resend
+) {
+}
@@ -0,0 +1,11 @@
+package com.github.fjbaldon.attendex.platform.common.error;
+
+/**
+ * The request is valid but clashes with work already in progress; answered with 409 Conflict.
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
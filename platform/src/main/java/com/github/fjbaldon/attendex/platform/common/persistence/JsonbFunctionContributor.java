@@ -0,0 +1,24 @@
+package com.github.fjbaldon.attendex.platform.common.persistence;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * PostgreSQL JSONB operators for criteria queries, registered through META-INF/services.
+ * {@code jsonb_contains(attributes, json)} renders as the {@code @>} operator rather than the function of the
+ * same name, because only the operator form can use a GIN index on the column.
+ */
+public class JsonbFunctionContributor implements FunctionContributor {
+
+    public static final String JSONB_CONTAINS = "jsonb_contains";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                JSONB_CONTAINS,
+                "(?1 @> cast(?2 as jsonb))",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN)
+        );
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.fjbaldon.attendex.platform.common.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared "database is unreachable" flag. Once a caller reports a connection failure the circuit opens,
+ * and callers with a fallback use it straight away instead of each waiting out the pool's connection
+ * timeout. A background probe closes the circuit when the database answers again.
+ */
+@Component
+@Slf4j
+public class DatabaseCircuit {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicBoolean open = new AtomicBoolean(false);
+
+    public DatabaseCircuit(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    public void trip(Throwable cause) {
+        if (open.compareAndSet(false, true)) {
+            log.warn("Database unreachable, circuit opened: {}", cause.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 2000)
+    public void probe() {
+        if (!open.get()) {
+            return;
+        }
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            open.set(false);
+            log.info("Database reachable again, circuit closed.");
+        } catch (RuntimeException e) {
+            log.debug("Database still unreachable: {}", e.getMessage());
+        }
+    }
+
+    public static boolean isConnectivityFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof CannotCreateTransactionException
+                    || t instanceof CannotGetJdbcConnectionException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,2 @@
+@org.springframework.modulith.NamedInterface
+package com.github.fjbaldon.attendex.platform.common.resilience;
@@ -67,6 +67,11 @@ public class EventFacade {
         return queryService.findAllSessionsForEvent(eventId);
     }
 
+    @Transactional(readOnly = true)
+    public Map<Long, List<SessionDetailsDto>> findSessionSchedules(Set<Long> eventIds) {
+        return queryService.findSessionSchedules(eventIds);
+    }
+
     @Transactional(readOnly = true)
     public Map<Long, String> getSessionNamesByIds(Set<Long> sessionIds) {
         return queryService.getSessionNamesByIds(sessionIds);
@@ -114,11 +119,6 @@ public class EventFacade {
         return rosterService.bulkAddAttendeesByCriteria(eventId, organizationId, criteria);
     }
 
-    @Transactional(readOnly = true)
-    public List<EventDto> findEventsForAttendee(Long attendeeId) {
-        return rosterService.findEventsForAttendee(attendeeId);
-    }
-
     // --- SYNC ---
 
     @Transactional(readOnly = true)
@@ -130,9 +130,4 @@ public class EventFacade {
     public Page<EventSyncDto.RosterSyncDto> getFormattedRosterForSync(Long eventId, Long organizationId, Pageable pageable) {
         return syncService.getFormattedRosterForSync(eventId, organizationId, pageable);
     }
-
-    @Transactional(readOnly = true)
-    public Set<Long> findAllAttendeeIdsForEvent(Long eventId) {
-        return rosterService.findAllAttendeeIdsForEvent(eventId);
-    }
 }
@@ -93,6 +93,7 @@ class EventIngestService {
 
                 if (timeChanged || graceChanged) {
                     eventPublisher.publishEvent(new SessionUpdatedEvent(
+                            event.getId(),
                             session.getId(),
                             session.getTargetTime(),
                             event.getGraceMinutesBefore(),
@@ -102,6 +103,7 @@ class EventIngestService {
             } else {
                 // --- DELETE ---
                 eventPublisher.publishEvent(new SessionDeletedEvent(
+                        event.getId(),
                         session.getId(),
                         remainingSessionTargets
                 ));
@@ -118,7 +120,9 @@ class EventIngestService {
                     event.addSession(newSession);
                 });
 
-        return toDto(eventRepository.save(event));
+        Event saved = eventRepository.save(event);
+        eventPublisher.publishEvent(new EventUpdatedEvent(saved.getId(), saved.getOrganizationId()));
+        return toDto(saved);
     }
 
     @Transactional
@@ -128,6 +132,7 @@ class EventIngestService {
 
         event.markAsDeleted();
         eventRepository.save(event);
+        eventPublisher.publishEvent(new EventUpdatedEvent(event.getId(), event.getOrganizationId()));
     }
 
     private EventDto toDto(Event event) {
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,14 +52,17 @@ class EventQueryService {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
-        return event.getSessions().stream()
-                .map(s -> new SessionDetailsDto(
-                        s.getId(),
-                        s.getTargetTime(),
-                        event.getGraceMinutesBefore(),
-                        event.getGraceMinutesAfter()
-                ))
-                .collect(Collectors.toList());
+        return toSessionDetails(event);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, List<SessionDetailsDto>> findSessionSchedules(Set<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // Events that are missing or soft-deleted are simply absent from the result
+        return eventRepository.findAllActiveWithSessionsByIdIn(eventIds).stream()
+                .collect(Collectors.toMap(Event::getId, this::toSessionDetails));
     }
 
     @Transactional(readOnly = true)
@@ -85,6 +89,17 @@ class EventQueryService {
         }
     }
 
+    private List<SessionDetailsDto> toSessionDetails(Event event) {
+        return event.getSessions().stream()
+                .map(s -> new SessionDetailsDto(
+                        s.getId(),
+                        s.getTargetTime(),
+                        event.getGraceMinutesBefore(),
+                        event.getGraceMinutesAfter()
+                ))
+                .collect(Collectors.toList());
+    }
+
     private EventDto toDto(Event event) {
         return new EventDto(
                 event.getId(),
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,6 +43,9 @@ interface EventRepository extends PagingAndSortingRepository<Event, Long>, CrudR
 
     boolean existsByIdAndDeletedAtIsNull(Long id);
 
+    @Query("SELECT DISTINCT e FROM Event e LEFT JOIN FETCH e.sessions WHERE e.id IN :ids AND e.deletedAt IS NULL")
+    List<Event> findAllActiveWithSessionsByIdIn(@Param("ids") Collection<Long> ids);
+
     @Override
     @NonNull
     List<Event> findAllById(@NonNull Iterable<Long> ids);
@@ -0,0 +1,8 @@
+package com.github.fjbaldon.attendex.platform.event;
+
+// Published when an event's details, sessions or deletion state change
+public record EventUpdatedEvent(
+        Long eventId,
+        Long organizationId
+) {
+}
@@ -0,0 +1,7 @@
+package com.github.fjbaldon.attendex.platform.event;
+
+public record RosterEntryRemovedEvent(
+        Long eventId,
+        Long attendeeId
+) {
+}
@@ -11,7 +11,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
-import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -32,35 +31,16 @@ class RosterService {
         eventRepository.findByIdAndOrganizationId(eventId, organizationId)
                 .orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
-        Page<Long> attendeeIds;
-        List<Long> filteredIds = null;
-
-        // 1. Filter by Attributes first (if any)
-        if (attributeFilters != null && !attributeFilters.isEmpty()) {
-            filteredIds = attendeeFacade.findAttendeeIdsByFilters(organizationId, attributeFilters);
-            // If filters resulted in no matches, return empty immediately
-            if (filteredIds.isEmpty()) {
-                return Page.empty(pageable);
-            }
-        }
-
-        // 2. Query Roster (combining ID list and Search Query)
+        // Searches and attribute filters run as one query in the attendee module
         boolean hasQuery = query != null && !query.isBlank();
-
-        if (filteredIds != null) {
-            if (hasQuery) {
-                attendeeIds = rosterRepository.searchAttendeeIdsByEventIdAndAttendeeIdIn(eventId, filteredIds, query.trim(), pageable);
-            } else {
-                attendeeIds = rosterRepository.findAttendeeIdsByEventIdAndAttendeeIdIn(eventId, filteredIds, pageable);
-            }
-        } else {
-            if (hasQuery) {
-                attendeeIds = rosterRepository.searchAttendeeIdsByEventId(eventId, query.trim(), pageable);
-            } else {
-                attendeeIds = rosterRepository.findAttendeeIdsByEventId(eventId, pageable);
-            }
+        boolean hasFilters = attributeFilters != null && !attributeFilters.isEmpty();
+        if (hasQuery || hasFilters) {
+            return attendeeFacade.findRosterAttendees(organizationId, eventId, query, attributeFilters, pageable);
         }
 
+        // The plain roster also lists attendees deleted since they were added
+        Page<Long> attendeeIds = rosterRepository.findAttendeeIdsByEventId(eventId, pageable);
+
         return attendeeIds.map(attendeeId -> attendeeFacade.findAttendeeById(attendeeId, organizationId)
                 .orElseGet(() -> new AttendeeDto(
                         attendeeId,
@@ -92,7 +72,10 @@ class RosterService {
     @Transactional
     public void removeAttendeeFromRoster(Long eventId, Long attendeeId) {
         RosterEntryId id = new RosterEntryId(eventId, attendeeId);
-        rosterRepository.deleteById(id);
+        if (rosterRepository.existsById(id)) {
+            rosterRepository.deleteById(id);
+            eventPublisher.publishEvent(new RosterEntryRemovedEvent(eventId, attendeeId));
+        }
     }
 
     @Transactional
@@ -131,39 +114,4 @@ class RosterService {
     public long countRosterForEvent(Long eventId) {
         return rosterRepository.countByIdEventId(eventId);
     }
-
-    @Transactional(readOnly = true)
-    public List<EventDto> findEventsForAttendee(Long attendeeId) {
-        return rosterRepository.findEventsByAttendeeId(attendeeId).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
-    }
-
-    @Transactional(readOnly = true)
-    public Set<Long> findAllAttendeeIdsForEvent(Long eventId) {
-        return rosterRepository.findAllAttendeeIdsByEventId(eventId);
-    }
-
-    private EventDto toDto(Event event) {
-        return new EventDto(
-                event.getId(),
-                event.getName(),
-                event.getStartDate(),
-                event.getEndDate(),
-                event.getGraceMinutesBefore(),
-                event.getGraceMinutesAfter(),
-                event.getCreatedAt(),
-                event.calculateStatus(Instant.now()), // Uses entity logic
-                event.getSessions().stream().map(this::toSessionDto).collect(Collectors.toList())
-        );
-    }
-
-    private SessionDto toSessionDto(Session session) {
-        return new SessionDto(
-                session.getId(),
-                session.getActivityName(),
-                session.getTargetTime(),
-                session.getIntent()
-        );
-    }
 }
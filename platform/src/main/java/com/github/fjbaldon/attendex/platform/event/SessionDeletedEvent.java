@@ -3,6 +3,7 @@ package com.github.fjbaldon.attendex.platform.event;
 import java.util.List;
 
 public record SessionDeletedEvent(
+        Long eventId,
         Long deletedSessionId,
         List<SessionDetailsDto> remainingSessions
 ) {
@@ -3,6 +3,7 @@ package com.github.fjbaldon.attendex.platform.event;
 import java.time.Instant;
 
 public record SessionUpdatedEvent(
+        Long eventId,
         Long sessionId,
         Instant targetTime,
         int graceMinutesBefore,
@@ -2,10 +2,13 @@ package com.github.fjbaldon.attendex.platform.identity;
 
 import com.github.fjbaldon.attendex.platform.admin.AdminFacade;
 import com.github.fjbaldon.attendex.platform.admin.UserAuthDto;
+import com.github.fjbaldon.attendex.platform.common.resilience.DatabaseCircuit;
 import com.github.fjbaldon.attendex.platform.common.security.CustomUserDetails;
 import com.github.fjbaldon.attendex.platform.organization.OrganizationFacade;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,20 +16,78 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
-@RequiredArgsConstructor
 class AppUserDetailsService implements UserDetailsService {
 
+    private static final int MAX_REMEMBERED_USERS = 10_000;
+    // Scanners only sync entries; organizers and stewards can change data and are never served from memory
+    private static final String FALLBACK_ROLE = "ROLE_SCANNER";
+
     private final AdminFacade adminFacade;
     private final OrganizationFacade organizationFacade;
+    private final DatabaseCircuit databaseCircuit;
+    private final Duration fallbackTtl;
+
+    // Last successful scanner lookups, served only while the database is unreachable so signed-in scanners keep
+    // syncing. Entries older than the TTL are not served, so a disabled scanner loses access within that bound.
+    private final Map<String, RememberedUser> lastKnownUsers = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RememberedUser> eldest) {
+            return size() > MAX_REMEMBERED_USERS;
+        }
+    });
+
+    AppUserDetailsService(
+            AdminFacade adminFacade,
+            OrganizationFacade organizationFacade,
+            DatabaseCircuit databaseCircuit,
+            @Value("${app.identity.fallback-ttl-seconds:900}") long fallbackTtlSeconds
+    ) {
+        this.adminFacade = adminFacade;
+        this.organizationFacade = organizationFacade;
+        this.databaseCircuit = databaseCircuit;
+        this.fallbackTtl = Duration.ofSeconds(fallbackTtlSeconds);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        if (databaseCircuit.isOpen()) {
+            return lastKnownUser(email, new DataAccessResourceFailureException("Database unavailable"));
+        }
+
+        try {
+            UserDetails userDetails = loadFromDatabase(email);
+            if (userDetails.getAuthorities().contains(new SimpleGrantedAuthority(FALLBACK_ROLE))) {
+                lastKnownUsers.put(email, new RememberedUser(userDetails, Instant.now()));
+            } else {
+                lastKnownUsers.remove(email);
+            }
+            return userDetails;
+        } catch (AuthenticationException e) {
+            lastKnownUsers.remove(email);
+            throw e;
+        } catch (RuntimeException e) {
+            if (!DatabaseCircuit.isConnectivityFailure(e)) {
+                throw e;
+            }
+            databaseCircuit.trip(e);
+            return lastKnownUser(email, e);
+        }
+    }
+
+    private UserDetails lastKnownUser(String email, RuntimeException unavailable) {
+        RememberedUser remembered = lastKnownUsers.get(email);
+        if (remembered == null || remembered.loadedAt().plus(fallbackTtl).isBefore(Instant.now())) {
+            throw unavailable;
+        }
+        return remembered.userDetails();
+    }
+
+    private UserDetails loadFromDatabase(String email) {
         Optional<UserAuthDto> stewardAuth = adminFacade.findStewardAuthByEmail(email);
         if (stewardAuth.isPresent()) {
             var authDto = stewardAuth.get();
@@ -86,4 +147,7 @@ class AppUserDetailsService implements UserDetailsService {
 
         throw new UsernameNotFoundException("User not found with email: " + email);
     }
+
+    private record RememberedUser(UserDetails userDetails, Instant loadedAt) {
+    }
 }
@@ -0,0 +1,3 @@
+-- Attribute filters compile to one containment predicate (attributes @> '{"Course":"BSCS","Year":"2"}').
+-- jsonb_path_ops indexes only support @>, and are smaller and faster for it than the default jsonb_ops.
+CREATE INDEX idx_attendee_attributes ON attendee_attendee USING gin (attributes jsonb_path_ops);
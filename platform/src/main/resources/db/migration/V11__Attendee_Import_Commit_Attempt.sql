@@ -0,0 +1,3 @@
+-- Numbers each commit of a session; a job keeps writing only while its attempt is the session's current one,
+-- so a job whose session was failed by the stall sweep and committed again stops instead of running twice.
+ALTER TABLE attendee_import_session ADD COLUMN commit_attempt INT NOT NULL DEFAULT 0;
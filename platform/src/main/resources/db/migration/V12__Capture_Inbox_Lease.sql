@@ -0,0 +1,8 @@
+-- Drainers commit their claim before ingesting: claimed rows move to PROCESSING until the lease runs out,
+-- after which another drainer may take them over. Outcomes stay PENDING, FINALIZED, QUARANTINED and FAILED.
+ALTER TABLE capture_inbox ADD COLUMN lease_expires_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX idx_capture_inbox_processing ON capture_inbox (lease_expires_at) WHERE status = 'PROCESSING';
+
+-- Retried scans are checked against the quarantine before they are quarantined again
+CREATE INDEX idx_capture_orphaned_entry_scan_uuid ON capture_orphaned_entry (scan_uuid);
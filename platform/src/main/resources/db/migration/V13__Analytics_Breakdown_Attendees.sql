@@ -0,0 +1,25 @@
+-- Attendees already counted in an event's attribute breakdown, with the attributes they were counted under
+-- (the capture-time snapshot of their first stored entry). Inserting the row is what claims the count:
+-- concurrent batches race on the primary key, and only the insert that wins increments the breakdown.
+CREATE TABLE analytics_breakdown_attendee
+(
+    event_id    BIGINT NOT NULL,
+    attendee_id BIGINT NOT NULL,
+    attributes  JSONB,
+    PRIMARY KEY (event_id, attendee_id)
+);
+
+INSERT INTO analytics_breakdown_attendee (event_id, attendee_id, attributes)
+SELECT DISTINCT ON (event_id, attendee_id) event_id, attendee_id, snapshot_attributes
+FROM capture_entry
+ORDER BY event_id, attendee_id, id;
+
+-- The breakdowns were counted from the attendees' current attributes; recount them from the snapshots
+TRUNCATE analytics_attribute_breakdown;
+
+INSERT INTO analytics_attribute_breakdown (event_id, attribute_name, attribute_value, attendee_count)
+SELECT m.event_id, kv.key, kv.value, COUNT(*)
+FROM analytics_breakdown_attendee m
+         CROSS JOIN LATERAL jsonb_each_text(m.attributes) kv
+WHERE kv.value IS NOT NULL
+GROUP BY m.event_id, kv.key, kv.value;
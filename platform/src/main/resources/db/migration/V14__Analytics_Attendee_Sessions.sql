@@ -0,0 +1,32 @@
+-- One row per session of each event an attendee is rostered for, kept alongside analytics_attendee_summary,
+-- so the attendee history reads one attendee's rows instead of loading their events, sessions and entries.
+-- closes_at is the end of the session's relevance window; an unattended session is absent once it has passed.
+CREATE TABLE analytics_attendee_session
+(
+    attendee_id   BIGINT                   NOT NULL,
+    session_id    BIGINT                   NOT NULL,
+    event_id      BIGINT                   NOT NULL,
+    activity_name VARCHAR(255)             NOT NULL,
+    intent        VARCHAR(50)              NOT NULL,
+    target_time   TIMESTAMP WITH TIME ZONE NOT NULL,
+    closes_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    punctuality   VARCHAR(50),
+    scan_time     TIMESTAMP WITH TIME ZONE,
+    PRIMARY KEY (attendee_id, session_id)
+);
+
+INSERT INTO analytics_attendee_session (attendee_id, session_id, event_id, activity_name, intent, target_time,
+                                        closes_at, punctuality, scan_time)
+SELECT r.attendee_id,
+       s.id,
+       r.event_id,
+       s.activity_name,
+       s.intent,
+       s.target_time,
+       LEAST(s.target_time + INTERVAL '4 hours', ev.end_date),
+       c.punctuality,
+       c.scan_timestamp
+FROM event_roster_entry r
+         JOIN event_event ev ON ev.id = r.event_id AND ev.deleted_at IS NULL
+         JOIN event_session s ON s.event_id = r.event_id
+         LEFT JOIN capture_entry c ON c.session_id = s.id AND c.attendee_id = r.attendee_id;
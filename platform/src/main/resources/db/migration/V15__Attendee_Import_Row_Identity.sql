@@ -0,0 +1,3 @@
+-- Duplicate identities within a file are caught here as rows are staged, instead of in a set held for the
+-- whole analysis; the first line of an identity is kept and later ones are reported invalid.
+CREATE UNIQUE INDEX uq_attendee_import_row_identity ON attendee_import_row (session_id, identity);
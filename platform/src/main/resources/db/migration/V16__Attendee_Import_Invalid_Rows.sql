@@ -0,0 +1,12 @@
+-- Every invalid row of an analyzed import, so the error file covers the whole file rather than the sample
+-- sent with the session. Values are kept in file order and labelled by the session's header row.
+ALTER TABLE attendee_import_session ADD COLUMN headers JSONB NOT NULL DEFAULT '[]';
+
+CREATE TABLE attendee_import_invalid_row
+(
+    session_id UUID   NOT NULL REFERENCES attendee_import_session (id) ON DELETE CASCADE,
+    line       BIGINT NOT NULL,
+    row_values TEXT[] NOT NULL,
+    error      TEXT   NOT NULL,
+    PRIMARY KEY (session_id, line)
+);
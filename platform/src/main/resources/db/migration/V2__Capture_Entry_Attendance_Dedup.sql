@@ -0,0 +1,26 @@
+-- ============================================================================
+-- Attendance dedup enforced by the database instead of check-then-insert.
+-- One entry per attendee per session; unscheduled scans, one per attendee per event.
+-- ============================================================================
+
+-- Concurrent scanners could race past the old existence checks; keep the earliest scan of each slot
+DELETE FROM capture_entry e
+    USING capture_entry keep
+WHERE e.session_id IS NOT NULL
+  AND keep.session_id = e.session_id
+  AND keep.attendee_id = e.attendee_id
+  AND (keep.scan_timestamp, keep.id) < (e.scan_timestamp, e.id);
+
+DELETE FROM capture_entry e
+    USING capture_entry keep
+WHERE e.session_id IS NULL
+  AND keep.session_id IS NULL
+  AND keep.event_id = e.event_id
+  AND keep.attendee_id = e.attendee_id
+  AND (keep.scan_timestamp, keep.id) < (e.scan_timestamp, e.id);
+
+CREATE UNIQUE INDEX uq_capture_entry_attendee_session
+    ON capture_entry (attendee_id, session_id) WHERE session_id IS NOT NULL;
+
+CREATE UNIQUE INDEX uq_capture_entry_attendee_event_unscheduled
+    ON capture_entry (attendee_id, event_id) WHERE session_id IS NULL;
@@ -0,0 +1,27 @@
+-- ============================================================================
+-- Pooled sequences for bulk-written tables.
+-- IDENTITY forces Hibernate to insert row by row to learn each key, which disables
+-- JDBC batching. Each sequence hands out blocks of 50 (matching allocationSize), and
+-- starts one block past the current maximum because the pooled optimizer treats the
+-- value it reads as the top of its block. The column default keeps native inserts working.
+-- ============================================================================
+
+ALTER TABLE attendee_attendee ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE attendee_attendee_id_seq INCREMENT BY 50 OWNED BY attendee_attendee.id;
+SELECT setval('attendee_attendee_id_seq', COALESCE((SELECT MAX(id) FROM attendee_attendee), 0) + 50, false);
+ALTER TABLE attendee_attendee ALTER COLUMN id SET DEFAULT nextval('attendee_attendee_id_seq');
+
+ALTER TABLE capture_orphaned_entry ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE capture_orphaned_entry_id_seq INCREMENT BY 50 OWNED BY capture_orphaned_entry.id;
+SELECT setval('capture_orphaned_entry_id_seq', COALESCE((SELECT MAX(id) FROM capture_orphaned_entry), 0) + 50, false);
+ALTER TABLE capture_orphaned_entry ALTER COLUMN id SET DEFAULT nextval('capture_orphaned_entry_id_seq');
+
+ALTER TABLE audit_audit ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE audit_audit_id_seq INCREMENT BY 50 OWNED BY audit_audit.id;
+SELECT setval('audit_audit_id_seq', COALESCE((SELECT MAX(id) FROM audit_audit), 0) + 50, false);
+ALTER TABLE audit_audit ALTER COLUMN id SET DEFAULT nextval('audit_audit_id_seq');
+
+ALTER TABLE analytics_attribute_breakdown ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE analytics_attribute_breakdown_id_seq INCREMENT BY 50 OWNED BY analytics_attribute_breakdown.id;
+SELECT setval('analytics_attribute_breakdown_id_seq', COALESCE((SELECT MAX(id) FROM analytics_attribute_breakdown), 0) + 50, false);
+ALTER TABLE analytics_attribute_breakdown ALTER COLUMN id SET DEFAULT nextval('analytics_attribute_breakdown_id_seq');
@@ -0,0 +1,20 @@
+-- ============================================================================
+-- Staged ingest: /capture/sync appends raw records here and returns 202;
+-- background drainers claim PENDING rows with FOR UPDATE SKIP LOCKED.
+-- ============================================================================
+
+CREATE TABLE capture_inbox
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    scan_uuid       VARCHAR(36)              NOT NULL,
+    organization_id BIGINT                   NOT NULL,
+    scanner_id      BIGINT                   NOT NULL,
+    payload         JSONB                    NOT NULL,
+    status          VARCHAR(20)              NOT NULL, -- PENDING, FINALIZED, QUARANTINED, FAILED
+    received_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    processed_at    TIMESTAMP WITH TIME ZONE
+);
+
+CREATE UNIQUE INDEX idx_capture_inbox_scan_uuid ON capture_inbox (scan_uuid);
+CREATE INDEX idx_capture_inbox_pending ON capture_inbox (id) WHERE status = 'PENDING';
+CREATE INDEX idx_capture_inbox_processed_at ON capture_inbox (processed_at) WHERE processed_at IS NOT NULL;
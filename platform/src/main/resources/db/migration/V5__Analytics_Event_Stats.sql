@@ -0,0 +1,28 @@
+-- First and last scan per event, so event stats no longer aggregate capture_entry
+ALTER TABLE analytics_event_summary
+    ADD COLUMN first_scan_at TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN last_scan_at  TIMESTAMP WITH TIME ZONE;
+
+UPDATE analytics_event_summary s
+SET first_scan_at = e.first_scan_at,
+    last_scan_at  = e.last_scan_at
+FROM (SELECT event_id, MIN(scan_timestamp) AS first_scan_at, MAX(scan_timestamp) AS last_scan_at
+      FROM capture_entry
+      GROUP BY event_id) e
+WHERE s.event_id = e.event_id;
+
+-- Scanner counts are per event: a scanner used at several events kept one row whose event_id was
+-- whichever event it scanned first. Re-key and rebuild from the entries.
+ALTER TABLE analytics_scanner_summary DROP CONSTRAINT analytics_scanner_summary_pkey;
+DROP INDEX idx_analytics_scanner_event;
+TRUNCATE analytics_scanner_summary;
+ALTER TABLE analytics_scanner_summary ADD PRIMARY KEY (event_id, scanner_id);
+
+INSERT INTO analytics_scanner_summary (event_id, scanner_id, entry_count)
+SELECT event_id, scanner_id, COUNT(*)
+FROM capture_entry
+GROUP BY event_id, scanner_id;
+
+-- Roster removals were never counted
+UPDATE analytics_event_summary s
+SET roster_count = (SELECT COUNT(*) FROM event_roster_entry r WHERE r.event_id = s.event_id);
@@ -0,0 +1,14 @@
+-- Arrivals per minute for each event and session; unscheduled entries have a NULL session_id
+CREATE TABLE analytics_entry_timeseries
+(
+    event_id     BIGINT                   NOT NULL,
+    session_id   BIGINT,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    entry_count  BIGINT                   NOT NULL DEFAULT 0,
+    CONSTRAINT uq_analytics_entry_timeseries UNIQUE NULLS NOT DISTINCT (event_id, session_id, bucket_start)
+);
+
+INSERT INTO analytics_entry_timeseries (event_id, session_id, bucket_start, entry_count)
+SELECT event_id, session_id, date_trunc('minute', scan_timestamp), COUNT(*)
+FROM capture_entry
+GROUP BY event_id, session_id, date_trunc('minute', scan_timestamp);
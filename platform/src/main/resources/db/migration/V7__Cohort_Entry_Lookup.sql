@@ -0,0 +1,3 @@
+-- First entry of an attendee within an event, read by the cohort list's lateral join without touching the heap
+CREATE INDEX idx_capture_entry_event_attendee_scan
+    ON capture_entry (event_id, attendee_id, scan_timestamp) INCLUDE (session_id);
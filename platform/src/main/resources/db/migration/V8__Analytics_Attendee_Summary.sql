@@ -0,0 +1,67 @@
+-- Session attendance of each rostered attendee per event. A session counts as absent once its
+-- relevance window (target time + 4 hours, capped at the event's end) has passed without an entry.
+CREATE TABLE analytics_attendee_summary
+(
+    attendee_id       BIGINT NOT NULL,
+    event_id          BIGINT NOT NULL,
+    organization_id   BIGINT NOT NULL,
+    sessions_total    INT    NOT NULL DEFAULT 0,
+    sessions_attended INT    NOT NULL DEFAULT 0,
+    sessions_late     INT    NOT NULL DEFAULT 0,
+    sessions_absent   INT    NOT NULL DEFAULT 0,
+    PRIMARY KEY (attendee_id, event_id)
+);
+CREATE INDEX idx_analytics_attendee_summary_event ON analytics_attendee_summary (event_id);
+
+-- The same counts summed over all of an attendee's events. The rate only covers decided sessions
+-- (attended or absent), so upcoming events do not drag it down.
+CREATE TABLE analytics_attendee_totals
+(
+    attendee_id       BIGINT PRIMARY KEY,
+    organization_id   BIGINT NOT NULL,
+    events_total      INT    NOT NULL DEFAULT 0,
+    sessions_total    INT    NOT NULL DEFAULT 0,
+    sessions_attended INT    NOT NULL DEFAULT 0,
+    sessions_late     INT    NOT NULL DEFAULT 0,
+    sessions_absent   INT    NOT NULL DEFAULT 0,
+    attendance_rate   DOUBLE PRECISION GENERATED ALWAYS AS (
+        CASE
+            WHEN sessions_attended + sessions_absent = 0 THEN NULL
+            ELSE sessions_attended * 100.0 / (sessions_attended + sessions_absent)
+            END) STORED
+);
+
+-- Leaderboards walk these in order and stop at the limit
+CREATE INDEX idx_analytics_attendee_totals_rate
+    ON analytics_attendee_totals (organization_id, attendance_rate, attendee_id)
+    WHERE attendance_rate IS NOT NULL;
+CREATE INDEX idx_analytics_attendee_totals_late
+    ON analytics_attendee_totals (organization_id, sessions_late DESC, attendee_id)
+    WHERE sessions_late > 0;
+
+INSERT INTO analytics_attendee_summary (attendee_id, event_id, organization_id, sessions_total,
+                                        sessions_attended, sessions_late, sessions_absent)
+SELECT r.attendee_id,
+       r.event_id,
+       ev.organization_id,
+       COUNT(s.id),
+       COUNT(c.id),
+       COUNT(c.id) FILTER (WHERE c.punctuality = 'LATE'),
+       COUNT(s.id) FILTER (WHERE c.id IS NULL AND LEAST(s.target_time + INTERVAL '4 hours', ev.end_date) < now())
+FROM event_roster_entry r
+         JOIN event_event ev ON ev.id = r.event_id AND ev.deleted_at IS NULL
+         LEFT JOIN event_session s ON s.event_id = r.event_id
+         LEFT JOIN capture_entry c ON c.session_id = s.id AND c.attendee_id = r.attendee_id
+GROUP BY r.attendee_id, r.event_id, ev.organization_id;
+
+INSERT INTO analytics_attendee_totals (attendee_id, organization_id, events_total, sessions_total,
+                                       sessions_attended, sessions_late, sessions_absent)
+SELECT attendee_id,
+       MIN(organization_id),
+       COUNT(*),
+       SUM(sessions_total),
+       SUM(sessions_attended),
+       SUM(sessions_late),
+       SUM(sessions_absent)
+FROM analytics_attendee_summary
+GROUP BY attendee_id;
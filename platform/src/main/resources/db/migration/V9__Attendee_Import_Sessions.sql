@@ -0,0 +1,35 @@
+-- An analyzed CSV import. Its valid rows stay server-side until a background job commits them;
+-- only counts, a preview and a sample of the invalid rows are sent to the client.
+CREATE TABLE attendee_import_session
+(
+    id                    UUID PRIMARY KEY,
+    organization_id       BIGINT                   NOT NULL,
+    status                VARCHAR(20)              NOT NULL,
+    update_existing       BOOLEAN                  NOT NULL,
+    new_attributes        JSONB                    NOT NULL,
+    rows_to_create        INT                      NOT NULL DEFAULT 0,
+    rows_to_update        INT                      NOT NULL DEFAULT 0,
+    rows_invalid          INT                      NOT NULL DEFAULT 0,
+    invalid_sample        JSONB                    NOT NULL,
+    rows_processed        INT                      NOT NULL DEFAULT 0,
+    attendees_created     INT                      NOT NULL DEFAULT 0,
+    attendees_reactivated INT                      NOT NULL DEFAULT 0,
+    attendees_updated     INT                      NOT NULL DEFAULT 0,
+    error                 TEXT,
+    created_at            TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at            TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX idx_attendee_import_session_updated ON attendee_import_session (updated_at);
+
+-- Rows are deleted as the commit job writes them, so what is left is what remains to be done
+CREATE TABLE attendee_import_row
+(
+    session_id UUID         NOT NULL REFERENCES attendee_import_session (id) ON DELETE CASCADE,
+    line       BIGINT       NOT NULL,
+    identity   VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name  VARCHAR(255) NOT NULL,
+    attributes JSONB,
+    existing   BOOLEAN      NOT NULL,
+    PRIMARY KEY (session_id, line)
+);
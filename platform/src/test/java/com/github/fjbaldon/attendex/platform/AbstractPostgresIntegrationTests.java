@@ -0,0 +1,95 @@
+package com.github.fjbaldon.attendex.platform;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Base for tests that run against a real PostgreSQL with the Flyway schema. One container is started
+ * for the whole test run and shared by every subclass; rows are seeded per test under a fresh organization,
+ * so tests do not clean up after each other.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestPropertySource(properties = {
+        "jwt.secret=integration-test-secret-integration-test-secret-integration-test",
+        "spring.mail.username=test",
+        "spring.mail.password=test",
+        "app.frontend.url=http://localhost:3000"
+})
+public abstract class AbstractPostgresIntegrationTests {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        // Only reached once Docker is known to be available; a no-op after the first context
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    protected Long createOrganization() {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO organization_organization (name, lifecycle, subscription_type, created_at)
+                VALUES (?, 'ACTIVE', 'TRIAL', now()) RETURNING id
+                """, Long.class, "Org " + UUID.randomUUID());
+    }
+
+    protected Long createScanner(Long organizationId, String email) {
+        jdbcTemplate.update("DELETE FROM organization_scanner WHERE email = ?", email);
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO organization_scanner (organization_id, email, password) VALUES (?, ?, 'x') RETURNING id
+                """, Long.class, organizationId, email);
+    }
+
+    /**
+     * An event running from now for a day, without sessions.
+     */
+    protected Long createEvent(Long organizationId) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO event_event (organization_id, name, start_date, end_date, grace_minutes_before,
+                                         grace_minutes_after, created_at)
+                VALUES (?, 'Event', now(), now() + interval '1 day', 10, 10, now()) RETURNING id
+                """, Long.class, organizationId);
+    }
+
+    protected Long createSession(Long eventId, String activityName, Instant targetTime) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO event_session (event_id, activity_name, target_time, intent)
+                VALUES (?, ?, ?, 'ARRIVAL') RETURNING id
+                """, Long.class, eventId, activityName, Timestamp.from(targetTime));
+    }
+
+    /**
+     * Attendees identified ID-1 to ID-{@code count}, all with the same {@code attributes} JSON.
+     */
+    protected List<Long> createAttendees(Long organizationId, int count, String attributes) {
+        return jdbcTemplate.queryForList("""
+                INSERT INTO attendee_attendee (id, organization_id, identity, first_name, last_name, attributes, created_at)
+                SELECT nextval('attendee_attendee_id_seq'), ?, 'ID-' || n, 'First', 'Last', CAST(? AS jsonb), now()
+                FROM generate_series(1, ?) n
+                ORDER BY n
+                RETURNING id
+                """, Long.class, organizationId, attributes, count);
+    }
+
+    protected void addToRoster(Long eventId, List<Long> attendeeIds) {
+        jdbcTemplate.update("""
+                INSERT INTO event_roster_entry (event_id, attendee_id)
+                SELECT ?, unnest(CAST(? AS bigint[]))
+                """, eventId, attendeeIds.toArray(Long[]::new));
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.attendee.AttendeesImportedEvent;
+import com.github.fjbaldon.attendex.platform.event.RosterEntryAddedEvent;
+import com.github.fjbaldon.attendex.platform.event.RosterEntryRemovedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttendancePivotCacheTests {
+
+    private static final Long ORGANIZATION = 1L;
+    private static final Long OTHER_ORGANIZATION = 2L;
+    private static final Long EVENT = 10L;
+    private static final Long OTHER_EVENT = 20L;
+    private static final List<AttendancePivotRequest.Dimension> BY_SESSION =
+            List.of(new AttendancePivotRequest.Dimension(AttendancePivotRequest.DimensionType.SESSION, null));
+    private static final AttendancePivotCache.Watermark WATERMARK =
+            new AttendancePivotCache.Watermark(40, 100, Instant.parse("2025-03-03T08:00:00Z"));
+
+    private final AttendancePivotCache cache = new AttendancePivotCache(500);
+    private final AnalyticsEventListener listener = new AnalyticsEventListener(
+            null, noOpEventSummaries(), null, null, new NoOpCohortIndex(), new NoOpAttendeeSummaryUpdater(), cache, null);
+
+    @Test
+    void rosterSwapEvictsTheEventsPivotsThoughTheWatermarkIsUnchanged() {
+        cache.put(ORGANIZATION, WATERMARK, pivot(EVENT));
+        cache.put(ORGANIZATION, WATERMARK, pivot(OTHER_EVENT));
+
+        // One attendee out and another in: the roster count, and so the watermark, ends where it started
+        listener.onRosterEntryRemoved(new RosterEntryRemovedEvent(EVENT, 100L));
+        listener.onRosterEntryAdded(new RosterEntryAddedEvent(EVENT, ORGANIZATION, 101L));
+
+        assertThat(cache.find(EVENT, BY_SESSION, WATERMARK)).isEmpty();
+        assertThat(cache.find(OTHER_EVENT, BY_SESSION, WATERMARK)).isPresent();
+    }
+
+    @Test
+    void rosterAdditionAloneEvictsTheEventsPivots() {
+        cache.put(ORGANIZATION, WATERMARK, pivot(EVENT));
+
+        listener.onRosterEntryAdded(new RosterEntryAddedEvent(EVENT, ORGANIZATION, 101L));
+
+        assertThat(cache.find(EVENT, BY_SESSION, WATERMARK)).isEmpty();
+    }
+
+    @Test
+    void importEvictsEveryPivotOfTheOrganizationOnly() {
+        cache.put(ORGANIZATION, WATERMARK, pivot(EVENT));
+        cache.put(OTHER_ORGANIZATION, WATERMARK, pivot(OTHER_EVENT));
+        AnalyticsEventListener importListener = new AnalyticsEventListener(
+                noOpOrganizationSummaries(), null, null, null, new NoOpCohortIndex(), null, cache, null);
+
+        importListener.onAttendeesImported(new AttendeesImportedEvent(ORGANIZATION, 0, 0, 5));
+
+        assertThat(cache.find(EVENT, BY_SESSION, WATERMARK)).isEmpty();
+        assertThat(cache.find(OTHER_EVENT, BY_SESSION, WATERMARK)).isPresent();
+    }
+
+    @Test
+    void newEntriesInvalidateThroughTheWatermark() {
+        cache.put(ORGANIZATION, WATERMARK, pivot(EVENT));
+
+        AttendancePivotCache.Watermark afterScan = new AttendancePivotCache.Watermark(
+                WATERMARK.entryCount() + 1, WATERMARK.rosterCount(), WATERMARK.lastScanAt().plusSeconds(5));
+
+        assertThat(cache.find(EVENT, BY_SESSION, WATERMARK)).isPresent();
+        assertThat(cache.find(EVENT, BY_SESSION, afterScan)).isEmpty();
+    }
+
+    @Test
+    void leastRecentlyReadPivotGoesFirstOnceFull() {
+        AttendancePivotCache small = new AttendancePivotCache(2);
+        small.put(ORGANIZATION, WATERMARK, pivot(1L));
+        small.put(ORGANIZATION, WATERMARK, pivot(2L));
+        small.find(1L, BY_SESSION, WATERMARK);
+
+        small.put(ORGANIZATION, WATERMARK, pivot(3L));
+
+        assertThat(small.find(1L, BY_SESSION, WATERMARK)).isPresent();
+        assertThat(small.find(2L, BY_SESSION, WATERMARK)).isEmpty();
+        assertThat(small.find(3L, BY_SESSION, WATERMARK)).isPresent();
+    }
+
+    private static AttendancePivotDto pivot(Long eventId) {
+        return new AttendancePivotDto(eventId, BY_SESSION,
+                List.of(new AttendancePivotDto.Cell(List.of(), 100L, 40, 40)));
+    }
+
+    private static EventSummaryRepository noOpEventSummaries() {
+        return noOp(EventSummaryRepository.class, "incrementRosterCount", "decrementRosterCount");
+    }
+
+    private static OrganizationSummaryRepository noOpOrganizationSummaries() {
+        return noOp(OrganizationSummaryRepository.class, "insertIfNotExists", "incrementAttendeeCountBy");
+    }
+
+    // Accepts the named writes and fails on anything else, so an unexpected call shows up
+    @SuppressWarnings("unchecked")
+    private static <T> T noOp(Class<T> type, String... methods) {
+        List<String> allowed = List.of(methods);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+            if (allowed.contains(m.getName())) {
+                return null;
+            }
+            throw new UnsupportedOperationException(m.getName());
+        });
+    }
+
+    private static final class NoOpCohortIndex extends CohortIndex {
+        NoOpCohortIndex() {
+            super(null, 300, 10, 10);
+        }
+
+        @Override
+        void onRosterEntryAdded(Long eventId, Long attendeeId) {
+        }
+
+        @Override
+        void onRosterEntryRemoved(Long eventId, Long attendeeId) {
+        }
+
+        @Override
+        void onEntriesCaptured(Long eventId, List<Long> attendeeIds, Map<Long, List<Long>> attendeeIdsBySessionId) {
+        }
+
+        @Override
+        void invalidateOrganization(Long organizationId) {
+        }
+    }
+
+    private static final class NoOpAttendeeSummaryUpdater extends AttendeeSummaryUpdater {
+        NoOpAttendeeSummaryUpdater() {
+            super(null, null);
+        }
+
+        @Override
+        void refreshAttendees(Long eventId, Collection<Long> attendeeIds) {
+        }
+    }
+}
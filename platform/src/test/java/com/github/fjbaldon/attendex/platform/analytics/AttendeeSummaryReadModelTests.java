@@ -0,0 +1,133 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.AbstractPostgresIntegrationTests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class AttendeeSummaryReadModelTests extends AbstractPostgresIntegrationTests {
+
+    @Autowired
+    private AttendeeSummaryUpdater updater;
+
+    @Autowired
+    private AttendeeSummaryRepository repository;
+
+    private Long organizationId;
+    private Long scannerId;
+    private Long eventId;
+    private Long attendeeId;
+    private Long presentId;
+    private Long lateId;
+    private Long absentId;
+    private Long pendingId;
+
+    @BeforeEach
+    void seed() {
+        Instant now = Instant.now();
+        organizationId = createOrganization();
+        scannerId = createScanner(organizationId, "scanner@summary.test");
+        eventId = createEvent(organizationId);
+        // Windows close four hours after the target time; the first three have closed
+        presentId = createSession(eventId, "Registration", now.minus(Duration.ofHours(7)));
+        lateId = createSession(eventId, "Keynote", now.minus(Duration.ofHours(6)));
+        absentId = createSession(eventId, "Workshop", now.minus(Duration.ofHours(5)));
+        pendingId = createSession(eventId, "Closing", now.plus(Duration.ofHours(1)));
+        attendeeId = createAttendees(organizationId, 1, "{}").getFirst();
+        addToRoster(eventId, List.of(attendeeId));
+        insertEntry(presentId, "PUNCTUAL");
+        insertEntry(lateId, "LATE");
+    }
+
+    @Test
+    void historyShowsEachSessionStatusFromTheReadModel() {
+        updater.refreshAttendees(eventId, List.of(attendeeId));
+
+        List<AttendeeHistoryItemDto> history = repository.findHistory(attendeeId, Instant.now());
+
+        assertThat(history).singleElement().satisfies(event -> {
+            assertThat(event.eventId()).isEqualTo(eventId);
+            assertThat(event.sessionsCompleted()).isEqualTo(2);
+            assertThat(event.totalSessions()).isEqualTo(4);
+            assertThat(event.sessions())
+                    .extracting(SessionHistoryItemDto::sessionId, SessionHistoryItemDto::status)
+                    .containsExactly(
+                            tuple(presentId, "PRESENT"),
+                            tuple(lateId, "LATE"),
+                            tuple(absentId, "ABSENT"),
+                            tuple(pendingId, "PENDING"));
+        });
+        assertThat(repository.findTotals(attendeeId)).hasValueSatisfying(totals -> {
+            assertThat(totals.sessionsAttended()).isEqualTo(2);
+            assertThat(totals.sessionsLate()).isEqualTo(1);
+            assertThat(totals.sessionsAbsent()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void pendingSessionTurnsAbsentOnceItsWindowCloses() {
+        updater.refreshAttendees(eventId, List.of(attendeeId));
+
+        List<AttendeeHistoryItemDto> history = repository.findHistory(attendeeId, Instant.now().plus(Duration.ofHours(6)));
+
+        assertThat(history.getFirst().sessions())
+                .filteredOn(session -> session.sessionId().equals(pendingId))
+                .extracting(SessionHistoryItemDto::status)
+                .containsExactly("ABSENT");
+    }
+
+    @Test
+    void eventRefreshDropsDeletedSessionsAndEntriesMovedAway() {
+        updater.refreshAttendees(eventId, List.of(attendeeId));
+
+        jdbcTemplate.update("DELETE FROM event_session WHERE id = ?", absentId);
+        jdbcTemplate.update("UPDATE capture_entry SET punctuality = 'PUNCTUAL' WHERE session_id = ?", lateId);
+        updater.refreshEvents(List.of(eventId));
+
+        assertThat(repository.findHistory(attendeeId, Instant.now()).getFirst().sessions())
+                .extracting(SessionHistoryItemDto::sessionId, SessionHistoryItemDto::status)
+                .containsExactly(
+                        tuple(presentId, "PRESENT"),
+                        tuple(lateId, "PRESENT"),
+                        tuple(pendingId, "PENDING"));
+    }
+
+    @Test
+    void rosterRemovalAndEventDeletionClearTheHistory() {
+        Long otherEventId = createEvent(organizationId);
+        createSession(otherEventId, "Only", Instant.now());
+        addToRoster(otherEventId, List.of(attendeeId));
+        updater.refreshAttendees(eventId, List.of(attendeeId));
+        updater.refreshAttendees(otherEventId, List.of(attendeeId));
+        assertThat(repository.findHistory(attendeeId, Instant.now())).hasSize(2);
+
+        jdbcTemplate.update("DELETE FROM event_roster_entry WHERE event_id = ? AND attendee_id = ?", otherEventId, attendeeId);
+        updater.refreshAttendees(otherEventId, List.of(attendeeId));
+        jdbcTemplate.update("UPDATE event_event SET deleted_at = now() WHERE id = ?", eventId);
+        updater.refreshEvents(List.of(eventId));
+
+        assertThat(repository.findHistory(attendeeId, Instant.now())).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM analytics_attendee_session WHERE attendee_id = ?", Long.class, attendeeId)).isZero();
+        assertThat(repository.findTotals(attendeeId)).isEmpty();
+    }
+
+    private void insertEntry(Long sessionId, String punctuality) {
+        jdbcTemplate.update("""
+                INSERT INTO capture_entry (scan_uuid, organization_id, event_id, session_id, attendee_id, scanner_id,
+                                           scan_timestamp, punctuality, sync_timestamp, snapshot_attributes)
+                SELECT gen_random_uuid()::text, ?, ?, s.id, ?, ?, s.target_time, ?, now(), '{}'
+                FROM event_session s
+                WHERE s.id = ?
+                """, organizationId, eventId, attendeeId, scannerId, punctuality, sessionId);
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.AbstractPostgresIntegrationTests;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AttributeBreakdownIncrementTests extends AbstractPostgresIntegrationTests {
+
+    @Autowired
+    private AttributeBreakdownRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService executor;
+    private Long organizationId;
+    private Long eventId;
+    private Long morningId;
+    private Long afternoonId;
+    private Long scannerId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = Executors.newFixedThreadPool(2);
+        organizationId = createOrganization();
+        scannerId = createScanner(organizationId, "scanner@breakdown.test");
+        eventId = createEvent(organizationId);
+        morningId = createSession(eventId, "Morning", Instant.now());
+        afternoonId = createSession(eventId, "Afternoon", Instant.now().plusSeconds(4 * 3600));
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void laterIdCommittedFirstDoesNotCountTheAttendeeTwice() throws Exception {
+        Long attendeeId = createAttendees(organizationId, 1, "{\"Course\": \"BSCS\"}").getFirst();
+        CountDownLatch lowerIdInserted = new CountDownLatch(1);
+        CountDownLatch higherIdCounted = new CountDownLatch(1);
+
+        // The lower entry id commits last, as two chunks syncing side by side can
+        Future<?> slowChunk = executor.submit(() -> {
+            Long entryId = transactionTemplate.execute(status -> {
+                Long id = insertEntry(attendeeId, morningId);
+                lowerIdInserted.countDown();
+                await(higherIdCounted);
+                return id;
+            });
+            increment(List.of(entryId));
+        });
+
+        lowerIdInserted.await(10, TimeUnit.SECONDS);
+        Long laterEntryId = transactionTemplate.execute(status -> insertEntry(attendeeId, afternoonId));
+        increment(List.of(laterEntryId));
+        higherIdCounted.countDown();
+        slowChunk.get(10, TimeUnit.SECONDS);
+
+        assertThat(countOf("Course", "BSCS")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentChunksCountEachAttendeeOnce() throws Exception {
+        List<Long> attendeeIds = createAttendees(organizationId, 20, "{\"Course\": \"BSCS\"}");
+        List<Long> morningEntries = transactionTemplate.execute(status ->
+                attendeeIds.stream().map(id -> insertEntry(id, morningId)).toList());
+        List<Long> afternoonEntries = transactionTemplate.execute(status ->
+                attendeeIds.stream().map(id -> insertEntry(id, afternoonId)).toList());
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        Future<?> first = executor.submit(() -> {
+            await(start);
+            increment(morningEntries);
+        });
+        Future<?> second = executor.submit(() -> {
+            await(start);
+            increment(afternoonEntries);
+        });
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        assertThat(countOf("Course", "BSCS")).isEqualTo(20);
+    }
+
+    @Test
+    void countsTheAttributesCapturedWithTheEntry() {
+        Long attendeeId = createAttendees(organizationId, 1, "{\"Course\": \"BSCS\"}").getFirst();
+        Long entryId = transactionTemplate.execute(status -> insertEntry(attendeeId, morningId));
+
+        // Edited after the scan, before the listener ran
+        jdbcTemplate.update("UPDATE attendee_attendee SET attributes = '{\"Course\": \"BSIT\"}' WHERE id = ?", attendeeId);
+        increment(List.of(entryId));
+
+        assertThat(countOf("Course", "BSCS")).isEqualTo(1);
+        assertThat(countOf("Course", "BSIT")).isZero();
+    }
+
+    // Copies the attendee's current attributes into the snapshot, as ingest does
+    private Long insertEntry(Long attendeeId, Long sessionId) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO capture_entry (scan_uuid, organization_id, event_id, session_id, attendee_id, scanner_id,
+                                           scan_timestamp, punctuality, sync_timestamp, snapshot_attributes)
+                SELECT gen_random_uuid()::text, a.organization_id, ?, ?, a.id, ?, now(), 'PUNCTUAL', now(), a.attributes
+                FROM attendee_attendee a
+                WHERE a.id = ?
+                RETURNING id
+                """, Long.class, eventId, sessionId, scannerId, attendeeId);
+    }
+
+    private void increment(List<Long> entryIds) {
+        transactionTemplate.executeWithoutResult(status -> repository.incrementForFirstEntries(entryIds.toArray(Long[]::new)));
+    }
+
+    private long countOf(String attribute, String value) {
+        return repository.findAllByEventIdAndAttributeName(eventId, attribute).stream()
+                .filter(breakdown -> breakdown.getAttributeValue().equals(value))
+                .mapToLong(AttributeBreakdown::getAttendeeCount)
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CohortIndexTests {
+
+    private static final Long ORG = 1L;
+    private static final Long EVENT = 10L;
+    private static final Long SESSION = 100L;
+
+    @Test
+    void cohortIsActiveAttendeesOnTheRosterMatchingEveryFilter() {
+        FakeRepository repository = new FakeRepository();
+        repository.attendee(1, Map.of("course", "BSCS", "year", "1"));
+        repository.attendee(2, Map.of("course", "BSCS", "year", "2"));
+        repository.attendee(3, Map.of("course", "BSIT", "year", "1"));
+        repository.attendee(4, Map.of());
+        repository.roster.addAll(List.of(1L, 2L, 3L, 4L));
+        CohortIndex index = new CohortIndex(repository, 300, 10, 10);
+
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", "BSCS")))).containsExactly(1L, 2L);
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", "BSCS", "year", "1")))).containsExactly(1L);
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", " ")))).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", "BSEE")))).isEmpty();
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("unknown", "x")))).isEmpty();
+    }
+
+    @Test
+    void countsPresenceForTheEventAndForOneSession() {
+        FakeRepository repository = new FakeRepository();
+        for (long id = 1; id <= 5; id++) {
+            repository.attendee(id, Map.of());
+            repository.roster.add(id);
+        }
+        repository.presence.add(new Long[]{1L, SESSION});
+        repository.presence.add(new Long[]{2L, null});
+        CohortIndex index = new CohortIndex(repository, 300, 10, 10);
+
+        Roaring64Bitmap cohort = index.findCohort(ORG, EVENT, Map.of());
+        assertThat(index.countPresent(EVENT, null, cohort)).isEqualTo(2);
+        assertThat(index.countPresent(EVENT, SESSION, cohort)).isEqualTo(1);
+        assertThat(index.countPresent(EVENT, 999L, cohort)).isZero();
+    }
+
+    @Test
+    void appliesRosterAndEntryUpdatesInPlace() {
+        FakeRepository repository = new FakeRepository();
+        repository.attendee(1, Map.of());
+        repository.attendee(2, Map.of());
+        repository.roster.add(1L);
+        CohortIndex index = new CohortIndex(repository, 300, 10, 10);
+        index.findCohort(ORG, EVENT, Map.of());
+
+        index.onRosterEntryAdded(EVENT, 2L);
+        index.onRosterEntryRemoved(EVENT, 1L);
+        index.onEntriesCaptured(EVENT, List.of(2L), Map.of(SESSION, List.of(2L)));
+
+        Roaring64Bitmap cohort = index.findCohort(ORG, EVENT, Map.of());
+        assertThat(ids(cohort)).containsExactly(2L);
+        assertThat(index.countPresent(EVENT, SESSION, cohort)).isEqualTo(1);
+        assertThat(repository.eventLoads).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatedOrganizationIsRebuilt() {
+        FakeRepository repository = new FakeRepository();
+        repository.attendee(1, Map.of("course", "BSCS"));
+        repository.roster.addAll(List.of(1L, 2L));
+        CohortIndex index = new CohortIndex(repository, 300, 10, 10);
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", "BSCS")))).containsExactly(1L);
+
+        repository.attendee(2, Map.of("course", "BSCS"));
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", "BSCS")))).containsExactly(1L);
+
+        index.invalidateOrganization(ORG);
+        assertThat(ids(index.findCohort(ORG, EVENT, Map.of("course", "BSCS")))).containsExactly(1L, 2L);
+        assertThat(repository.organizationLoads).isEqualTo(2);
+    }
+
+    @Test
+    void indexBuiltWhileAnUpdateArrivesIsNotCached() {
+        FakeRepository repository = new FakeRepository();
+        repository.attendee(1, Map.of());
+        repository.roster.add(1L);
+        CohortIndex index = new CohortIndex(repository, 300, 10, 10);
+        repository.duringEventLoad = () -> index.onRosterEntryAdded(EVENT, 2L);
+
+        index.findCohort(ORG, EVENT, Map.of());
+        repository.duringEventLoad = null;
+        index.findCohort(ORG, EVENT, Map.of());
+
+        assertThat(repository.eventLoads).isEqualTo(2);
+    }
+
+    private static List<Long> ids(Roaring64Bitmap bitmap) {
+        List<Long> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+
+    private static final class FakeRepository extends CohortIndexRepository {
+        final Map<Long, Map<String, String>> attendees = new TreeMap<>();
+        final List<Long> roster = new ArrayList<>();
+        final List<Long[]> presence = new ArrayList<>();
+        Runnable duringEventLoad;
+        int organizationLoads;
+        int eventLoads;
+
+        FakeRepository() {
+            super(null, null);
+        }
+
+        void attendee(long id, Map<String, String> attributes) {
+            attendees.put(id, attributes);
+        }
+
+        @Override
+        void streamAttributes(Long organizationId, AttributeRowHandler handler) {
+            organizationLoads++;
+            attendees.forEach((id, attributes) -> {
+                if (attributes.isEmpty()) {
+                    handler.accept(id, null, null);
+                }
+                attributes.forEach((name, value) -> handler.accept(id, name, value));
+            });
+        }
+
+        @Override
+        void streamRoster(Long eventId, IdHandler handler) {
+            eventLoads++;
+            if (duringEventLoad != null) {
+                duringEventLoad.run();
+            }
+            roster.forEach(handler::accept);
+        }
+
+        @Override
+        void streamPresence(Long eventId, PresenceRowHandler handler) {
+            presence.forEach(row -> handler.accept(row[0], row[1]));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.fjbaldon.attendex.platform.analytics;
+
+import com.github.fjbaldon.attendex.platform.capture.EntriesCapturedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SummaryCounterBufferTests {
+
+    private static final Long EVENT = 10L;
+    private static final Long SESSION = 100L;
+    private static final Long SCANNER = 7L;
+    private static final Instant SCAN = Instant.parse("2025-03-03T08:00:00Z");
+
+    @Test
+    void failedFlushKeepsItsDeltasForTheNextOne() {
+        FakeSummaries summaries = new FakeSummaries();
+        SummaryCounterBuffer buffer = summaries.buffer(5000);
+
+        buffer.addEntries(delta(3));
+        summaries.failing = true;
+        buffer.flush();
+        assertThat(summaries.entries).isEmpty();
+
+        // Added while the failed deltas were waiting; both go out together
+        buffer.addEntries(delta(2));
+        summaries.failing = false;
+        buffer.flush();
+        assertThat(summaries.entries).containsExactly(Map.entry(EVENT, 5L));
+        assertThat(summaries.sessionEntries).containsExactly(Map.entry(SESSION, 5L));
+        assertThat(summaries.scannerEntries).containsExactly(Map.entry(SCANNER, 5L));
+
+        // Nothing is written twice
+        buffer.flush();
+        assertThat(summaries.entries).containsExactly(Map.entry(EVENT, 5L));
+    }
+
+    @Test
+    void countingListenerCompletesWhenTheFlushItTriggersFails() {
+        FakeSummaries summaries = new FakeSummaries();
+        // Every delta crosses the threshold, so the listener flushes inline
+        SummaryCounterBuffer buffer = summaries.buffer(1);
+        AnalyticsEventListener listener = new AnalyticsEventListener(
+                null, null, null, buffer, null, null, null, null);
+        EntriesCapturedEvent event = new EntriesCapturedEvent(1L, List.of(delta(4)));
+
+        summaries.failing = true;
+        // A failure here would leave the publication incomplete, and its republication would count it again
+        assertThatCode(() -> listener.onEntriesCapturedCount(event)).doesNotThrowAnyException();
+
+        summaries.failing = false;
+        buffer.flush();
+        assertThat(summaries.entries).containsExactly(Map.entry(EVENT, 4L));
+    }
+
+    @Test
+    void republishedCohortUpdateDoesNotCountEntriesAgain() {
+        FakeSummaries summaries = new FakeSummaries();
+        SummaryCounterBuffer buffer = summaries.buffer(5000);
+        CohortIndex failingIndex = new CohortIndex(null, 300, 10, 10) {
+            @Override
+            void onEntriesCaptured(Long eventId, List<Long> attendeeIds, Map<Long, List<Long>> attendeeIdsBySessionId) {
+                throw new IllegalStateException("cohort index unavailable");
+            }
+        };
+        AnalyticsEventListener listener = new AnalyticsEventListener(
+                null, null, null, buffer, failingIndex, null, null, null);
+        EntriesCapturedEvent event = new EntriesCapturedEvent(1L, List.of(delta(4)));
+
+        listener.onEntriesCapturedCount(event);
+        // The cohort listener fails and its publication is replayed twice; only that listener runs again
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThatThrownBy(() -> listener.onEntriesCaptured(event)).isInstanceOf(IllegalStateException.class);
+        }
+
+        buffer.flush();
+        assertThat(summaries.entries).containsExactly(Map.entry(EVENT, 4L));
+    }
+
+    private static EntriesCapturedEvent.EventDelta delta(long entries) {
+        return new EntriesCapturedEvent.EventDelta(
+                EVENT,
+                entries,
+                Map.of(SESSION, entries),
+                Map.of(SCANNER, entries),
+                Map.of("PUNCTUAL", entries),
+                SCAN,
+                SCAN.plusSeconds(60),
+                List.of(new EntriesCapturedEvent.ArrivalBucket(SESSION, SCAN, entries)),
+                List.of(1L),
+                Map.of(SESSION, List.of(1L))
+        );
+    }
+
+    // Records what each flush wrote; while failing, every write throws and nothing is recorded
+    private static final class FakeSummaries {
+        final Map<Long, Long> entries = new HashMap<>();
+        final Map<Long, Long> sessionEntries = new HashMap<>();
+        final Map<Long, Long> scannerEntries = new HashMap<>();
+        boolean failing;
+
+        SummaryCounterBuffer buffer(int flushThreshold) {
+            EventSummaryRepository events = repository(EventSummaryRepository.class, "incrementEntryCounts",
+                    args -> add(entries, (Long[]) args[0], (Long[]) args[1]));
+            SessionSummaryRepository sessions = repository(SessionSummaryRepository.class, "incrementCounts",
+                    args -> add(sessionEntries, (Long[]) args[0], (Long[]) args[2]));
+            ScannerSummaryRepository scanners = repository(ScannerSummaryRepository.class, "incrementCounts",
+                    args -> add(scannerEntries, (Long[]) args[1], (Long[]) args[2]));
+            EntryTimeseriesRepository timeseries = new EntryTimeseriesRepository(null) {
+                @Override
+                void incrementCounts(Long[] eventIds, Long[] sessionIds, Long[] minuteEpochSeconds, Long[] counts) {
+                    throwIfFailing();
+                }
+            };
+            return new SummaryCounterBuffer(events, sessions, scanners, timeseries, new NoOpTransactionManager(), flushThreshold);
+        }
+
+        private void add(Map<Long, Long> totals, Long[] ids, Long[] counts) {
+            throwIfFailing();
+            for (int i = 0; i < ids.length; i++) {
+                totals.merge(ids[i], counts[i], Long::sum);
+            }
+        }
+
+        private void throwIfFailing() {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T repository(Class<T> type, String method, Consumer<Object[]> write) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+                if (m.getName().equals(method)) {
+                    write.accept(args);
+                    return null;
+                }
+                throw new UnsupportedOperationException(m.getName());
+            });
+        }
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import com.github.fjbaldon.attendex.platform.AbstractPostgresIntegrationTests;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AttendeeBatchInsertTests extends AbstractPostgresIntegrationTests {
+
+    @Autowired
+    private AttendeeRepository attendeeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Long organizationId;
+
+    @BeforeEach
+    void resetStatistics() {
+        organizationId = createOrganization();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void saveAllGroupsInsertsIntoJdbcBatches() {
+        List<Attendee> attendees = IntStream.range(0, 120)
+                .mapToObj(i -> Attendee.create(organizationId, "ID-" + i, "First" + i, "Last" + i, Map.of("Course", "BSCS")))
+                .toList();
+
+        attendeeRepository.saveAll(attendees);
+        entityManager.flush();
+
+        // 120 rows at batch_size=50: three batches, plus one sequence call per block of 50 IDs.
+        // With IDENTITY this was one INSERT per row.
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+    }
+}
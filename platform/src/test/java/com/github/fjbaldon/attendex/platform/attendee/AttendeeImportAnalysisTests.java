@@ -0,0 +1,132 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import com.github.fjbaldon.attendex.platform.AbstractPostgresIntegrationTests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class AttendeeImportAnalysisTests extends AbstractPostgresIntegrationTests {
+
+    private static final Map<String, String> MAPPING = Map.of(
+            "id", "identity", "first", "firstName", "last", "lastName", "course", "Course");
+
+    @Autowired
+    private AttendeeImportService importService;
+
+    private Long organizationId;
+
+    @BeforeEach
+    void seed() {
+        organizationId = createOrganization();
+    }
+
+    @Test
+    void repeatedIdentitiesAreFoundWithinAndAcrossChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("id,first,last,course\n");
+        for (int i = 1; i <= 2500; i++) {
+            csv.append("S-").append(i).append(",First,Last,bscs\n");
+        }
+        // One repeat inside the first chunk and one that only the staged rows of an earlier chunk can catch
+        csv.append("S-7,Again,Within,bscs\n");
+        csv.append("S-1500,Again,Across,bscs\n");
+
+        AttendeeImportSessionDto session = analyze(csv, ImportConfigurationDto.ImportMode.SKIP);
+
+        assertThat(session.rowsToCreate()).isEqualTo(2500);
+        assertThat(session.rowsInvalid()).isEqualTo(2);
+        assertThat(session.invalidRows())
+                .extracting(row -> row.rowData().get("last"), AttendeeImportSessionDto.InvalidRow::error)
+                .containsExactlyInAnyOrder(
+                        tuple("Within", "Duplicate identity in file."),
+                        tuple("Across", "Duplicate identity in file."));
+        assertThat(stagedRows(session)).isEqualTo(2500);
+        // The first line of an identity is the one kept
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT first_name FROM attendee_import_row WHERE session_id = ? AND identity = 'S-1500'",
+                String.class, session.id())).isEqualTo("First");
+    }
+
+    @Test
+    void existingIdentitiesFollowTheImportMode() throws Exception {
+        createAttendees(organizationId, 2, "{}");
+        String csv = """
+                id,first,last,course
+                ID-1,Ana,Cruz,bscs
+                ID-3,Ben,Reyes,bsit
+                ID-1,Ana,Again,bscs
+                """;
+
+        AttendeeImportSessionDto update = analyze(csv, ImportConfigurationDto.ImportMode.UPDATE);
+        assertThat(update.rowsToUpdate()).isEqualTo(1);
+        assertThat(update.rowsToCreate()).isEqualTo(1);
+        assertThat(update.invalidRows()).singleElement()
+                .extracting(AttendeeImportSessionDto.InvalidRow::error).isEqualTo("Duplicate identity in file.");
+
+        AttendeeImportSessionDto fail = analyze(csv, ImportConfigurationDto.ImportMode.FAIL);
+        assertThat(fail.rowsToCreate()).isEqualTo(1);
+        assertThat(fail.invalidRows())
+                .extracting(AttendeeImportSessionDto.InvalidRow::error)
+                .containsOnly("Identity already exists.");
+        assertThat(stagedRows(fail)).isEqualTo(1);
+    }
+
+    @Test
+    void rowsMissingRequiredFieldsAreNotStaged() throws Exception {
+        String csv = """
+                id,first,last,course
+                S-1,Ana,Cruz,bscs
+                ,Ben,Reyes,bsit
+                S-3,,Santos,bsit
+                """;
+
+        AttendeeImportSessionDto session = analyze(csv, ImportConfigurationDto.ImportMode.SKIP);
+
+        assertThat(session.rowsToCreate()).isEqualTo(1);
+        assertThat(session.invalidRows())
+                .extracting(AttendeeImportSessionDto.InvalidRow::error)
+                .containsExactly("Row missing Identity.", "Row missing First Name.");
+        assertThat(session.newAttributesToCreate()).containsExactly("Course");
+        assertThat(stagedRows(session)).isEqualTo(1);
+    }
+
+    @Test
+    void errorFileHasEveryInvalidRowBeyondTheSample() throws Exception {
+        StringBuilder csv = new StringBuilder("last,first,id,course\n");
+        for (int i = 1; i <= 1200; i++) {
+            csv.append("Cruz,Ana,,bscs\n");
+        }
+        csv.append("Reyes,Ben,S-1,bsit\n");
+        csv.append("Santos\n");
+
+        AttendeeImportSessionDto session = analyze(csv, ImportConfigurationDto.ImportMode.SKIP);
+        String[] lines = importService.exportInvalidRows(organizationId, session.id()).split("\r\n");
+
+        assertThat(session.rowsInvalid()).isEqualTo(1201);
+        assertThat(session.invalidRows()).hasSize(100);
+        // Columns in file order, one line per invalid row, short rows padded so the error stays last
+        assertThat(lines).hasSize(1202);
+        assertThat(lines[0]).isEqualTo("Row Number,last,first,id,course,Error Message");
+        assertThat(lines[1]).isEqualTo("1,Cruz,Ana,,bscs,Row missing Identity.");
+        assertThat(lines[1201]).isEqualTo("1202,Santos,,,,Row missing Identity.");
+    }
+
+    private AttendeeImportSessionDto analyze(CharSequence csv, ImportConfigurationDto.ImportMode mode) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "attendees.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+        return importService.analyzeAttendeeImport(organizationId, file, new ImportConfigurationDto(mode, true, MAPPING));
+    }
+
+    private long stagedRows(AttendeeImportSessionDto session) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM attendee_import_row WHERE session_id = ?", Long.class, session.id());
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.fjbaldon.attendex.platform.attendee;
+
+import com.github.fjbaldon.attendex.platform.AbstractPostgresIntegrationTests;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AttendeeImportCommitTests extends AbstractPostgresIntegrationTests {
+
+    @Autowired
+    private AttendeeImportRepository importRepository;
+
+    @Autowired
+    private AttendeeImportSessionRepository sessionRepository;
+
+    @Autowired
+    private AttendeeRepository attendeeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long organizationId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        organizationId = createOrganization();
+    }
+
+    @Test
+    void sequenceStepsByTheEntitysAllocationSize() throws Exception {
+        SequenceGenerator generator = Attendee.class.getDeclaredField("id").getAnnotation(SequenceGenerator.class);
+
+        Long increment = jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE sequencename = ?", Long.class, generator.sequenceName());
+
+        // Imported rows rely on it: a smaller step would hand them ids inside the blocks Hibernate allocates
+        assertThat(increment).isEqualTo(generator.allocationSize());
+    }
+
+    @Test
+    void importedAndSavedAttendeesNeverShareAnId() {
+        // The first save reserves a block that the later saves keep drawing from while the import runs in between
+        save("JPA-", 0, 1);
+        int created = importRows("CSV-", 120);
+        save("JPA-", 1, 60);
+
+        assertThat(created).isEqualTo(120);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM attendee_attendee WHERE organization_id = ?", Long.class, organizationId);
+        assertThat(ids).hasSize(181).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void chunksResumeWhereTheLastOneStopped() {
+        UUID sessionId = stage("CSV-", 130);
+
+        int created = 0;
+        int chunks = 0;
+        while (true) {
+            var chunk = transactionTemplate.execute(status ->
+                    importRepository.importNextChunk(sessionId, organizationId, false, 50));
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            created += chunk.get().result().created();
+            chunks++;
+        }
+
+        assertThat(chunks).isEqualTo(3);
+        assertThat(created).isEqualTo(130);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM attendee_import_row WHERE session_id = ?", Long.class, sessionId)).isZero();
+    }
+
+    // The whole session in one chunk; returns how many attendees it created
+    private int importRows(String prefix, int count) {
+        UUID sessionId = stage(prefix, count);
+        Integer created = transactionTemplate.execute(status -> importRepository
+                .importNextChunk(sessionId, organizationId, false, count).orElseThrow().result().created());
+        return created != null ? created : 0;
+    }
+
+    private UUID stage(String prefix, int count) {
+        return transactionTemplate.execute(status -> {
+            UUID sessionId = sessionRepository.saveAndFlush(AttendeeImportSession.start(organizationId, false)).getId();
+            importRepository.stageRows(sessionId, IntStream.rangeClosed(1, count)
+                    .mapToObj(i -> new AttendeeImportRepository.StagedRow(i,
+                            new CreateAttendeeDto(prefix + i, "First", "Last", Map.of()), false))
+                    .toList());
+            return sessionId;
+        });
+    }
+
+    private void save(String prefix, int from, int count) {
+        transactionTemplate.executeWithoutResult(status -> attendeeRepository.saveAll(IntStream.range(from, from + count)
+                .mapToObj(i -> Attendee.create(organizationId, prefix + i, "First", "Last", Map.of()))
+                .toList()));
+    }
+}
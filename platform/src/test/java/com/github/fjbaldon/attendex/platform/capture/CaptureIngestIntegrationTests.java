@@ -0,0 +1,144 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.github.fjbaldon.attendex.platform.AbstractPostgresIntegrationTests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The test drains the inbox itself
+@SpringBootTest(properties = "app.capture.inbox.drain-delay-ms=3600000")
+class CaptureIngestIntegrationTests extends AbstractPostgresIntegrationTests {
+
+    private static final String SCANNER_EMAIL = "scanner@ingest.test";
+
+    @Autowired
+    private CaptureIngestService ingestService;
+
+    @Autowired
+    private CaptureInboxService inboxService;
+
+    private Long organizationId;
+    private Long eventId;
+    private List<Long> attendeeIds;
+
+    @BeforeEach
+    void seed() {
+        organizationId = createOrganization();
+        createScanner(organizationId, SCANNER_EMAIL);
+        // No sessions, so every scan is an unscheduled entry of the event
+        eventId = createEvent(organizationId);
+        attendeeIds = createAttendees(organizationId, 4, null);
+    }
+
+    @Test
+    void failingRecordIsIsolatedAndTheRestOfTheChunkCommits() {
+        List<EntrySyncRequestDto.EntryRecord> valid = attendeeIds.subList(0, 3).stream().map(this::scanOf).toList();
+        // Longer than capture_entry.scan_uuid allows, so the bulk insert of the chunk fails
+        EntrySyncRequestDto.EntryRecord failing = new EntrySyncRequestDto.EntryRecord(
+                "x".repeat(40), eventId, attendeeIds.get(3), Instant.now(), "ID-4", "First", "Last");
+
+        List<EntrySyncRequestDto.EntryRecord> records = new ArrayList<>(valid);
+        records.add(1, failing);
+        BatchSyncResponse response = ingestService.syncEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(records));
+
+        assertThat(response.successCount()).isEqualTo(3);
+        assertThat(response.failedUuids()).containsExactly(failing.scanUuid());
+        assertThat(storedScanUuids()).containsExactlyInAnyOrderElementsOf(
+                valid.stream().map(EntrySyncRequestDto.EntryRecord::scanUuid).toList());
+
+        // A retry of the same batch is idempotent for the records that made it
+        BatchSyncResponse retry = ingestService.syncEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(valid));
+        assertThat(retry.successCount()).isEqualTo(3);
+        assertThat(retry.failedUuids()).isEmpty();
+        assertThat(storedScanUuids()).hasSize(3);
+    }
+
+    @Test
+    void drainStoresStagedRecordsAndRecordsEachOutcome() {
+        List<EntrySyncRequestDto.EntryRecord> valid = attendeeIds.subList(0, 3).stream().map(this::scanOf).toList();
+        // An event that does not exist, so the record is quarantined
+        EntrySyncRequestDto.EntryRecord orphan = new EntrySyncRequestDto.EntryRecord(
+                UUID.randomUUID().toString(), -1L, attendeeIds.get(3), Instant.now(), "ID-4", "First", "Last");
+
+        List<EntrySyncRequestDto.EntryRecord> records = new ArrayList<>(valid);
+        records.add(orphan);
+        inboxService.stageEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(records));
+        // Synced once already through the direct path
+        ingestService.syncEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(valid.subList(0, 1)));
+
+        while (inboxService.drainBatch(2) > 0) {
+            // Several batches, each in its own transaction
+        }
+
+        SyncStatusResponse status = inboxService.findSyncStatus(organizationId,
+                records.stream().map(EntrySyncRequestDto.EntryRecord::scanUuid).toList());
+        assertThat(status.finalizedUuids()).containsExactlyInAnyOrderElementsOf(
+                valid.stream().map(EntrySyncRequestDto.EntryRecord::scanUuid).toList());
+        assertThat(status.quarantinedUuids()).containsExactly(orphan.scanUuid());
+        assertThat(status.failedUuids()).isEmpty();
+        assertThat(status.pendingUuids()).isEmpty();
+        assertThat(storedScanUuids()).hasSize(3);
+    }
+
+    @Test
+    void resentOrphanKeepsItsQuarantineWithoutASecondCopy() {
+        EntrySyncRequestDto.EntryRecord orphan = new EntrySyncRequestDto.EntryRecord(
+                UUID.randomUUID().toString(), -1L, attendeeIds.getFirst(), Instant.now(), "ID-1", "First", "Last");
+
+        // Quarantined through the direct path, then resent twice: once directly, once through the inbox
+        ingestService.syncEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(List.of(orphan)));
+        ingestService.syncEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(List.of(orphan)));
+        inboxService.stageEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(List.of(orphan)));
+        while (inboxService.drainBatch(10) > 0) {
+            // Drain everything staged
+        }
+
+        SyncStatusResponse status = inboxService.findSyncStatus(organizationId, List.of(orphan.scanUuid()));
+        assertThat(status.quarantinedUuids()).containsExactly(orphan.scanUuid());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM capture_orphaned_entry WHERE scan_uuid = ?", Long.class, orphan.scanUuid()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void claimCommitsBeforeIngestAndExpiredLeasesAreReclaimed() {
+        EntrySyncRequestDto.EntryRecord record = scanOf(attendeeIds.getFirst());
+        inboxService.stageEntries(organizationId, SCANNER_EMAIL, new EntrySyncRequestDto(List.of(record)));
+
+        // A drainer that claimed the record and died before recording an outcome
+        jdbcTemplate.update("""
+                UPDATE capture_inbox SET status = 'PROCESSING', lease_expires_at = now() + interval '1 hour'
+                WHERE scan_uuid = ?
+                """, record.scanUuid());
+        assertThat(inboxService.drainBatch(10)).isZero();
+        assertThat(inboxService.findSyncStatus(organizationId, List.of(record.scanUuid())).pendingUuids())
+                .containsExactly(record.scanUuid());
+
+        jdbcTemplate.update("UPDATE capture_inbox SET lease_expires_at = now() - interval '1 second' WHERE scan_uuid = ?",
+                record.scanUuid());
+        while (inboxService.drainBatch(10) > 0) {
+            // The expired claim is taken over
+        }
+
+        assertThat(inboxService.findSyncStatus(organizationId, List.of(record.scanUuid())).finalizedUuids())
+                .containsExactly(record.scanUuid());
+        assertThat(storedScanUuids()).containsExactly(record.scanUuid());
+    }
+
+    private EntrySyncRequestDto.EntryRecord scanOf(Long attendeeId) {
+        return new EntrySyncRequestDto.EntryRecord(
+                UUID.randomUUID().toString(), eventId, attendeeId, Instant.now(), "ID", "First", "Last");
+    }
+
+    private List<String> storedScanUuids() {
+        return jdbcTemplate.queryForList("SELECT scan_uuid FROM capture_entry WHERE event_id = ?", String.class, eventId);
+    }
+}
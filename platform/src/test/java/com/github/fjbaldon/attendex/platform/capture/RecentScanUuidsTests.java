@@ -0,0 +1,85 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentScanUuidsTests {
+
+    @Test
+    void remembersAddedUuidsAndNothingElse() {
+        RecentScanUuids recent = new RecentScanUuids(1_000, new SimpleMeterRegistry());
+        List<String> added = randomUuids(400);
+        recent.addAll(added);
+
+        assertThat(added).allMatch(recent::contains);
+        assertThat(randomUuids(10_000)).noneMatch(recent::contains);
+    }
+
+    @Test
+    void acceptsNonUuidScanIds() {
+        RecentScanUuids recent = new RecentScanUuids(1_000, new SimpleMeterRegistry());
+        recent.addAll(List.of("legacy-scan-1", "00000000-0000-0000-0000-000000000000"));
+
+        assertThat(recent.contains("legacy-scan-1")).isTrue();
+        assertThat(recent.contains("legacy-scan-2")).isFalse();
+        assertThat(recent.contains("00000000-0000-0000-0000-000000000000")).isTrue();
+    }
+
+    @Test
+    void differentSpellingsOfOneUuidAreDifferentScanIds() {
+        RecentScanUuids recent = new RecentScanUuids(1_000, new SimpleMeterRegistry());
+        String uuid = "0f8fad5b-d9cb-469f-a165-70867728950e";
+        recent.addAll(List.of(uuid, "1-2-3-4-5"));
+
+        assertThat(recent.contains(uuid)).isTrue();
+        assertThat(recent.contains(uuid.toUpperCase())).isFalse();
+        assertThat(recent.contains("1-2-3-4-5")).isTrue();
+        assertThat(recent.contains("00000001-0002-0003-0004-000000000005")).isFalse();
+    }
+
+    @Test
+    void oldestGenerationIsDroppedWhenFull() {
+        RecentScanUuids recent = new RecentScanUuids(100, new SimpleMeterRegistry());
+        List<String> oldest = randomUuids(50);
+        List<String> middle = randomUuids(50);
+        List<String> newest = randomUuids(10);
+
+        recent.addAll(oldest);
+        recent.addAll(middle);
+        recent.addAll(newest);
+
+        assertThat(oldest).noneMatch(recent::contains);
+        assertThat(middle).allMatch(recent::contains);
+        assertThat(newest).allMatch(recent::contains);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecentScanUuids recent = new RecentScanUuids(1_000, registry);
+        recent.addAll(List.of("a"));
+
+        recent.contains("a");
+        recent.contains("b");
+        recent.contains("c");
+        recent.recordStaleMisses(1);
+
+        assertThat(registry.get("attendex.capture.recent_uuids.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("attendex.capture.recent_uuids.lookups").tag("result", "miss").counter().count()).isEqualTo(2);
+        assertThat(registry.get("attendex.capture.recent_uuids.stale_misses").counter().count()).isEqualTo(1);
+    }
+
+    private static List<String> randomUuids(int count) {
+        List<String> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(UUID.randomUUID().toString());
+        }
+        return uuids;
+    }
+}
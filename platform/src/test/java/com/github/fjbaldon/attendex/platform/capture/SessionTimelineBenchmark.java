@@ -0,0 +1,76 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.github.fjbaldon.attendex.platform.event.SessionDetailsDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session matching for one scan: the linear scan ingest used before {@link SessionTimeline}, against the
+ * timeline's binary search. Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.fjbaldon.attendex.platform.capture.SessionTimelineBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionTimelineBenchmark {
+
+    private static final Instant CONFERENCE_START = Instant.parse("2025-03-03T08:00:00Z");
+    private static final int SCANS = 1_024;
+
+    // Sessions of a multi-day conference, roughly every 20 minutes
+    @Param({"5", "50", "500"})
+    public int sessionCount;
+
+    private List<SessionDetailsDto> sessions;
+    private SessionTimeline timeline;
+    private Instant[] scans;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(new SessionDetailsDto((long) i, CONFERENCE_START.plus(i * 20L, ChronoUnit.MINUTES), 15, 15));
+        }
+        timeline = SessionTimeline.of(sessions);
+
+        long spanSeconds = sessionCount * 20L * 60;
+        scans = new Instant[SCANS];
+        for (int i = 0; i < SCANS; i++) {
+            scans[i] = CONFERENCE_START.plusSeconds((long) (random.nextDouble() * spanSeconds));
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (Instant scan : scans) {
+            blackhole.consume(SessionTimelineTests.linearScan(sessions, scan));
+        }
+    }
+
+    @Benchmark
+    public void timeline(Blackhole blackhole) {
+        for (Instant scan : scans) {
+            blackhole.consume(timeline.findBestSession(scan));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SessionTimelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import com.github.fjbaldon.attendex.platform.event.SessionDetailsDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionTimelineTests {
+
+    private static final Instant DAY_START = Instant.parse("2025-03-03T08:00:00Z");
+
+    @Test
+    void matchesLinearScanOnRandomSchedules() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 200; round++) {
+            List<SessionDetailsDto> sessions = new ArrayList<>();
+            int count = random.nextInt(40);
+            for (int i = 0; i < count; i++) {
+                // Whole minutes across three days, with repeats to exercise ties
+                Instant target = DAY_START.plus(random.nextInt(3 * 24 * 12) * 5L, ChronoUnit.MINUTES);
+                sessions.add(new SessionDetailsDto((long) i, target, 15, 15));
+            }
+            sessions.sort(Comparator.comparing(SessionDetailsDto::targetTime));
+            SessionTimeline timeline = SessionTimeline.of(sessions);
+
+            for (int scan = 0; scan < 200; scan++) {
+                Instant scanTime = DAY_START.plusSeconds(random.nextLong(-6 * 3600, 78 * 3600))
+                        .plusMillis(random.nextInt(1000));
+                assertThat(timeline.findBestSession(scanTime))
+                        .isEqualTo(linearScan(sessions, scanTime));
+            }
+        }
+    }
+
+    @Test
+    void earlyScanLeansTowardSessionAlreadyStarted() {
+        SessionDetailsDto morning = new SessionDetailsDto(1L, DAY_START, 15, 15);
+        SessionDetailsDto noon = new SessionDetailsDto(2L, DAY_START.plus(4, ChronoUnit.HOURS), 15, 15);
+        SessionTimeline timeline = SessionTimeline.of(List.of(noon, morning));
+
+        // 110 minutes after one, 130 minutes before the other: 110 < 130 * 1.5
+        assertThat(timeline.findBestSession(DAY_START.plus(110, ChronoUnit.MINUTES))).isEqualTo(morning);
+        // 150 minutes after one, 90 minutes before the other: 90 * 1.5 < 150
+        assertThat(timeline.findBestSession(DAY_START.plus(150, ChronoUnit.MINUTES))).isEqualTo(noon);
+    }
+
+    @Test
+    void scansOutsideTheWindowAreUnscheduled() {
+        SessionTimeline timeline = SessionTimeline.of(List.of(new SessionDetailsDto(1L, DAY_START, 15, 15)));
+
+        assertThat(timeline.findBestSession(DAY_START.plus(4, ChronoUnit.HOURS))).isNotNull();
+        assertThat(timeline.findBestSession(DAY_START.plus(4, ChronoUnit.HOURS).plusSeconds(1))).isNull();
+        assertThat(timeline.findBestSession(DAY_START.minus(5, ChronoUnit.HOURS))).isNull();
+        assertThat(SessionTimeline.EMPTY.findBestSession(DAY_START)).isNull();
+    }
+
+    // The matching CaptureIngestService.findBestSessionInMemory did, kept here as the reference behaviour
+    static SessionDetailsDto linearScan(List<SessionDetailsDto> sessions, Instant scanTime) {
+        SessionDetailsDto bestMatch = null;
+        double minWeightedDiff = Double.MAX_VALUE;
+        for (SessionDetailsDto session : sessions) {
+            long diff = Duration.between(session.targetTime(), scanTime).getSeconds();
+            long absDiff = Math.abs(diff);
+
+            if (absDiff <= 14400) {
+                double weightedDiff = (diff >= 0) ? absDiff : (absDiff * 1.5);
+                if (weightedDiff < minWeightedDiff) {
+                    minWeightedDiff = weightedDiff;
+                    bestMatch = session;
+                }
+            }
+        }
+        return bestMatch;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.fjbaldon.attendex.platform.capture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncSpillLogTests {
+
+    private static final int CAPACITY = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void framesSurviveReopenUntilReplayed() throws Exception {
+        SyncSpillLog log = new SyncSpillLog(directory, CAPACITY);
+        assertThat(log.append(bytes("first"))).isTrue();
+        assertThat(log.append(bytes("second"))).isTrue();
+        log.advance();
+        log.close();
+
+        SyncSpillLog reopened = new SyncSpillLog(directory, CAPACITY);
+        assertThat(reopened.peek()).hasValueSatisfying(payload -> assertThat(text(payload)).isEqualTo("second"));
+        reopened.advance();
+        assertThat(reopened.isEmpty()).isTrue();
+        reopened.close();
+    }
+
+    @Test
+    void tornTailIsIgnoredOnReopen() throws Exception {
+        SyncSpillLog log = new SyncSpillLog(directory, CAPACITY);
+        log.append(bytes("complete"));
+        log.append(bytes("torn"));
+        log.close();
+
+        // Corrupt one payload byte of the second frame: header(16) + frame(8 + 8) + frame header(8)
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("sync-spill.log").toFile(), "rw")) {
+            file.seek(16 + 8 + 8 + 8);
+            file.write('X');
+        }
+
+        SyncSpillLog reopened = new SyncSpillLog(directory, CAPACITY);
+        assertThat(reopened.peek()).hasValueSatisfying(payload -> assertThat(text(payload)).isEqualTo("complete"));
+        reopened.advance();
+        assertThat(reopened.isEmpty()).isTrue();
+        reopened.close();
+    }
+
+    @Test
+    void fullLogRejectsUntilDrained() throws Exception {
+        SyncSpillLog log = new SyncSpillLog(directory, 64);
+        assertThat(log.append(new byte[30])).isTrue();
+        assertThat(log.append(new byte[30])).isFalse();
+
+        log.advance();
+        assertThat(log.append(new byte[30])).isTrue();
+        log.close();
+    }
+
+    @Test
+    void deadLettersAppendOneLineEach() throws Exception {
+        SyncSpillLog log = new SyncSpillLog(directory, CAPACITY);
+        log.deadLetter(bytes("{\"first\":1}"));
+        log.deadLetter(bytes("{\"second\":2}"));
+        log.close();
+
+        assertThat(Files.readAllLines(directory.resolve("sync-spill.dead"))).containsExactly("{\"first\":1}", "{\"second\":2}");
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
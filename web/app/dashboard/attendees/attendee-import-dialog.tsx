@@ -1,7 +1,7 @@
 "use client";
 import * as React from "react";
 import {Dialog, DialogContent, DialogHeader, DialogTitle} from "@/components/ui/dialog";
-import {AttendeeImportAnalysis, ImportConfiguration} from "@/types";
+import {AttendeeImportSession, ImportConfiguration} from "@/types";
 import {useAttendees} from "@/hooks/use-attendees";
 import {UploadStep} from "./upload-step";
 import {MappingStep} from "./mapping-step";
@@ -27,7 +27,7 @@ export function AttendeeImportDialog({open, onOpenChange}: AttendeeImportDialogP
     // ... keep existing state ...
     const [file, setFile] = React.useState<File | null>(null);
     const [csvHeaders, setCsvHeaders] = React.useState<string[]>([]);
-    const [analysisResult, setAnalysisResult] = React.useState<AttendeeImportAnalysis | null>(null);
+    const [analysisResult, setAnalysisResult] = React.useState<AttendeeImportSession | null>(null);
     const [importedCount, setImportedCount] = React.useState(0);
 
     const {extractHeaders, isExtractingHeaders, analyzeAttendees, isAnalyzingAttendees} = useAttendees();
@@ -1,28 +1,28 @@
 "use client";
 
-import React, {useMemo} from "react"; // Added useMemo
-import {AttendeeImportAnalysis, AttendeeRequest, InvalidRow} from "@/types";
+import React from "react";
+import {AttendeeImportSession, ImportPreviewRow, InvalidRow} from "@/types";
 import {Tabs, TabsContent, TabsList, TabsTrigger} from "@/components/ui/tabs";
 import {Button} from "@/components/ui/button";
-import {useAttendees} from "@/hooks/use-attendees";
+import {useAttendees, useImportSession} from "@/hooks/use-attendees";
 import {ColumnDef, flexRender, getCoreRowModel, getPaginationRowModel, useReactTable} from "@tanstack/react-table";
 import {Table, TableBody, TableCell, TableHead, TableHeader, TableRow} from "@/components/ui/table";
 import {DataTablePagination} from "@/components/shared/data-table-pagination";
 import {IconAlertTriangle, IconCheck, IconDownload, IconRefresh} from "@tabler/icons-react";
 import {Badge} from "@/components/ui/badge";
+import {toast} from "sonner";
 
 interface ReviewStepProps {
-    analysisResult: AttendeeImportAnalysis;
+    analysisResult: AttendeeImportSession;
     onCommitSuccess: (count: number) => void;
     onStartOver: () => void;
 }
 
-// ... keep columns definitions (validColumns, invalidColumns) as is ...
-const validColumns: ColumnDef<AttendeeRequest & { isUpdate: boolean }>[] = [
+const validColumns: ColumnDef<ImportPreviewRow>[] = [
     {
         accessorKey: "status",
         header: "Action",
-        cell: ({row}) => row.original.isUpdate ? (
+        cell: ({row}) => row.original.update ? (
             <Badge variant="secondary" className="text-blue-600 bg-blue-50 hover:bg-blue-100">Update</Badge>
         ) : (
             <Badge variant="outline" className="text-green-600 bg-green-50 hover:bg-green-100">New</Badge>
@@ -43,21 +43,29 @@ const invalidColumns: ColumnDef<InvalidRow>[] = [
 ];
 
 export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: ReviewStepProps) {
-    const {attendeesToCreate, attendeesToUpdate, invalidRows, newAttributesToCreate} = analysisResult;
-    const {commitAttendees, isCommittingAttendees} = useAttendees();
+    // Only a preview of the valid rows and a sample of the invalid ones are sent; the counts are complete
+    const {id, rowsToCreate, rowsToUpdate, rowsInvalid, preview, invalidRows, newAttributesToCreate} = analysisResult;
+    const {commitAttendees, isCommittingAttendees, downloadImportErrors, isDownloadingImportErrors} = useAttendees();
+    const [committingId, setCommittingId] = React.useState<string | null>(null);
+    const {importSession} = useImportSession(committingId);
 
-    // FIXED: Memoize this heavy operation.
-    // Without this, every time the dialog tries to close (triggering a re-render),
-    // this array runs .map() spread (...) logic, freezing the thread if N > 1000.
-    const combinedList = useMemo(() => [
-        ...attendeesToCreate.map(a => ({...a, isUpdate: false})),
-        ...attendeesToUpdate.map(a => ({...a, isUpdate: true}))
-    ], [attendeesToCreate, attendeesToUpdate]);
+    const totalValid = rowsToCreate + rowsToUpdate;
+    const isImporting = isCommittingAttendees || importSession?.status === "COMMITTING";
 
-    const totalValid = combinedList.length;
+    // Reacts once per status change; the dialog re-creates onCommitSuccess on every render
+    const handledStatus = React.useRef<string | undefined>(undefined);
+    React.useEffect(() => {
+        if (!importSession || handledStatus.current === importSession.status) return;
+        handledStatus.current = importSession.status;
+        if (importSession.status === "COMMITTED") {
+            onCommitSuccess(importSession.attendeesCreated + importSession.attendeesReactivated + importSession.attendeesUpdated);
+        } else if (importSession.status === "FAILED") {
+            toast.error("Import Failed", {description: importSession.error ?? "The import stopped before it finished."});
+        }
+    }, [importSession, onCommitSuccess]);
 
     const validTable = useReactTable({
-        data: combinedList,
+        data: preview,
         columns: validColumns,
         getCoreRowModel: getCoreRowModel(),
         getPaginationRowModel: getPaginationRowModel(),
@@ -80,52 +88,36 @@ export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: Revie
         },
     });
 
-    // ... keep handleImport and handleDownloadErrors logic as is ...
+    // A failed import keeps its remaining rows, so importing again resumes it
     const handleImport = async () => {
         try {
-            await commitAttendees({
-                attendees: [...attendeesToCreate, ...attendeesToUpdate],
-                updateExisting: attendeesToUpdate.length > 0,
-                newAttributes: newAttributesToCreate
-            });
-            onCommitSuccess(totalValid);
+            await commitAttendees(id);
+            setCommittingId(id);
         } catch {
             // Error toast handled by hook
         }
     };
 
-    const handleDownloadErrors = () => {
-        if (invalidRows.length === 0) return;
-
-        const dataHeaders = Object.keys(invalidRows[0].rowData);
-        const headers = ["Row Number", ...dataHeaders, "Error Message"];
-
-        const csvRows = [
-            headers.join(','),
-            ...invalidRows.map(row => {
-                const rowDataValues = dataHeaders.map(header =>
-                    `"${(row.rowData[header] || '').replace(/"/g, '""')}"`
-                );
-                const error = `"${row.error.replace(/"/g, '""')}"`;
-                return [row.rowNumber, ...rowDataValues, error].join(',');
-            })
-        ];
-
-        const csvContent = csvRows.join('\n');
-        const blob = new Blob([csvContent], {type: 'text/csv;charset=utf-8;'});
-        const link = document.createElement('a');
-        const url = URL.createObjectURL(blob);
-        link.setAttribute('href', url);
-        link.setAttribute('download', 'import_errors.csv');
-        link.style.visibility = 'hidden';
-        document.body.appendChild(link);
-        link.click();
-        document.body.removeChild(link);
+    // The file comes from the server, so it has every invalid row and not just the sample shown here
+    const handleDownloadErrors = async () => {
+        try {
+            const blob = await downloadImportErrors(id);
+            const link = document.createElement('a');
+            const url = URL.createObjectURL(blob);
+            link.setAttribute('href', url);
+            link.setAttribute('download', 'import_errors.csv');
+            link.style.visibility = 'hidden';
+            document.body.appendChild(link);
+            link.click();
+            document.body.removeChild(link);
+            URL.revokeObjectURL(url);
+        } catch {
+            // Error toast handled by hook
+        }
     };
 
     return (
         <div className="space-y-4 h-full flex flex-col">
-            {/* ... keep UI structure exactly the same ... */}
             {/* Compact Stats Row */}
             <div className="grid grid-cols-3 gap-3 shrink-0">
                 <div className="flex flex-col sm:flex-row sm:items-center sm:justify-between rounded-md border bg-green-50/50 p-3">
@@ -133,21 +125,21 @@ export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: Revie
                         <IconCheck className="h-4 w-4 text-green-600"/>
                         <span className="text-xs font-medium text-green-700 uppercase">New</span>
                     </div>
-                    <span className="text-xl font-bold text-green-700">{attendeesToCreate.length}</span>
+                    <span className="text-xl font-bold text-green-700">{rowsToCreate}</span>
                 </div>
                 <div className="flex flex-col sm:flex-row sm:items-center sm:justify-between rounded-md border bg-blue-50/50 p-3">
                     <div className="flex items-center gap-2 mb-1 sm:mb-0">
                         <IconRefresh className="h-4 w-4 text-blue-600"/>
                         <span className="text-xs font-medium text-blue-700 uppercase">Update</span>
                     </div>
-                    <span className="text-xl font-bold text-blue-700">{attendeesToUpdate.length}</span>
+                    <span className="text-xl font-bold text-blue-700">{rowsToUpdate}</span>
                 </div>
                 <div className="flex flex-col sm:flex-row sm:items-center sm:justify-between rounded-md border bg-red-50/50 p-3">
                     <div className="flex items-center gap-2 mb-1 sm:mb-0">
                         <IconAlertTriangle className="h-4 w-4 text-red-600"/>
                         <span className="text-xs font-medium text-red-700 uppercase">Error</span>
                     </div>
-                    <span className="text-xl font-bold text-red-700">{invalidRows.length}</span>
+                    <span className="text-xl font-bold text-red-700">{rowsInvalid}</span>
                 </div>
             </div>
 
@@ -164,7 +156,7 @@ export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: Revie
             <Tabs defaultValue="valid" className="flex-1 flex flex-col min-h-0">
                 <TabsList className="grid w-full grid-cols-2 shrink-0">
                     <TabsTrigger value="valid">Ready to Import ({totalValid})</TabsTrigger>
-                    <TabsTrigger value="errors">Errors ({invalidRows.length})</TabsTrigger>
+                    <TabsTrigger value="errors">Errors ({rowsInvalid})</TabsTrigger>
                 </TabsList>
 
                 {/* Valid Tab Content */}
@@ -197,7 +189,7 @@ export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: Revie
                                     ) : (
                                         <TableRow>
                                             <TableCell colSpan={validColumns.length} className="h-24 text-center">
-                                                No valid records found.
+                                                {totalValid > 0 ? "No preview available." : "No valid records found."}
                                             </TableCell>
                                         </TableRow>
                                     )}
@@ -206,6 +198,11 @@ export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: Revie
                         </div>
                     </div>
                     <div className="shrink-0">
+                        {totalValid > preview.length && (
+                            <p className="text-xs text-muted-foreground mb-1">
+                                Showing the first {preview.length} of {totalValid} records.
+                            </p>
+                        )}
                         <DataTablePagination table={validTable}/>
                     </div>
                 </TabsContent>
@@ -249,24 +246,33 @@ export function ReviewStep({analysisResult, onCommitSuccess, onStartOver}: Revie
                         </div>
                     </div>
                     <div className="shrink-0">
+                        {rowsInvalid > invalidRows.length && (
+                            <p className="text-xs text-muted-foreground mb-1">
+                                Showing the first {invalidRows.length} of {rowsInvalid} errors.
+                            </p>
+                        )}
                         <DataTablePagination table={invalidTable}/>
                     </div>
                 </TabsContent>
             </Tabs>
 
             <div className="flex justify-between items-center pt-2 mt-auto border-t shrink-0">
-                <Button variant="outline" onClick={onStartOver} disabled={isCommittingAttendees}>
+                <Button variant="outline" onClick={onStartOver} disabled={isImporting}>
                     Start Over
                 </Button>
                 <div className="flex items-center gap-2">
-                    {invalidRows.length > 0 && (
-                        <Button variant="secondary" onClick={handleDownloadErrors}>
+                    {rowsInvalid > 0 && (
+                        <Button variant="secondary" onClick={handleDownloadErrors} disabled={isDownloadingImportErrors}>
                             <IconDownload className="mr-2 h-4 w-4"/>
-                            Download Errors
+                            Download Errors ({rowsInvalid})
                         </Button>
                     )}
-                    <Button onClick={handleImport} disabled={totalValid === 0 || isCommittingAttendees}>
-                        {isCommittingAttendees ? "Importing..." : `Import ${totalValid} Records`}
+                    <Button onClick={handleImport} disabled={totalValid === 0 || isImporting}>
+                        {isImporting
+                            ? `Importing ${importSession?.rowsProcessed ?? 0} of ${totalValid}...`
+                            : importSession?.status === "FAILED"
+                                ? `Resume Import (${totalValid - importSession.rowsProcessed} left)`
+                                : `Import ${totalValid} Records`}
                     </Button>
                 </div>
             </div>
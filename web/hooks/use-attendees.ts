@@ -1,9 +1,9 @@
+import * as React from "react";
 import {keepPreviousData, useMutation, useQuery, useQueryClient} from "@tanstack/react-query";
 import api from "@/lib/api";
 import {
     ApiErrorResponse,
-    AttendeeImportAnalysis,
-    AttendeeImportCommitRequest,
+    AttendeeImportSession,
     AttendeeRequest,
     AttendeeResponse,
     ImportConfiguration,
@@ -135,7 +135,7 @@ export const useAttendees = (
     });
 
     const analyzeAttendeesMutation = useMutation<
-        AttendeeImportAnalysis,
+        AttendeeImportSession,
         AxiosError<ApiErrorResponse>,
         { file: File; config: ImportConfiguration }
     >({
@@ -155,21 +155,37 @@ export const useAttendees = (
         },
     });
 
+    // The commit runs in the background; follow it with useImportSession
     const commitAttendeesMutation = useMutation<
-        void,
+        AttendeeImportSession,
         AxiosError<ApiErrorResponse>,
-        AttendeeImportCommitRequest
+        string
     >({
-        mutationFn: (data) => api.post("/api/v1/attendees/import/commit", data),
-        onSuccess: async () => {
-            await queryClient.invalidateQueries({queryKey: ["attendees"]});
-            await queryClient.invalidateQueries({queryKey: ["attributes"]});
+        mutationFn: async (sessionId) => {
+            const response = await api.post(`/api/v1/attendees/import/sessions/${sessionId}/commit`);
+            return response.data;
         },
+        onSuccess: (session) => queryClient.setQueryData(["importSession", session.id], session),
         onError: (error) => {
             toast.error("Import Failed", {description: getErrorMessage(error, "An unexpected error occurred while saving the attendees.")});
         },
     });
 
+    // Every invalid row of the session, which the analysis only samples
+    const downloadImportErrorsMutation = useMutation<
+        Blob,
+        AxiosError<ApiErrorResponse>,
+        string
+    >({
+        mutationFn: async (sessionId) => {
+            const response = await api.get(`/api/v1/attendees/import/sessions/${sessionId}/errors`, {responseType: "blob"});
+            return response.data;
+        },
+        onError: (error) => {
+            toast.error("Download Failed", {description: getErrorMessage(error, "The error file could not be downloaded.")});
+        },
+    });
+
     return {
         attendeesData: data,
         isLoadingAttendees,
@@ -195,5 +211,32 @@ export const useAttendees = (
 
         commitAttendees: commitAttendeesMutation.mutateAsync,
         isCommittingAttendees: commitAttendeesMutation.isPending,
+
+        downloadImportErrors: downloadImportErrorsMutation.mutateAsync,
+        isDownloadingImportErrors: downloadImportErrorsMutation.isPending,
     };
 };
+
+export const useImportSession = (sessionId: string | null) => {
+    const queryClient = useQueryClient();
+
+    const {data: session} = useQuery<AttendeeImportSession>({
+        queryKey: ["importSession", sessionId],
+        queryFn: async () => {
+            const response = await api.get(`/api/v1/attendees/import/sessions/${sessionId}`);
+            return response.data;
+        },
+        enabled: !!sessionId,
+        refetchInterval: (query) => query.state.data?.status === "COMMITTING" ? 1000 : false,
+    });
+
+    const status = session?.status;
+    React.useEffect(() => {
+        if (status === "COMMITTED") {
+            queryClient.invalidateQueries({queryKey: ["attendees"]});
+            queryClient.invalidateQueries({queryKey: ["attributes"]});
+        }
+    }, [status, queryClient]);
+
+    return {importSession: session};
+};
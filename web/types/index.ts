@@ -204,18 +204,32 @@ export interface ImportConfiguration {
     columnMapping: Record<string, string>;
 }
 
-export interface AttendeeImportAnalysis {
-    attendeesToCreate: AttendeeRequest[];
-    attendeesToUpdate: AttendeeRequest[];
-    invalidRows: InvalidRow[];
-    newAttributesToCreate: string[];
+export type ImportSessionStatus = 'ANALYZED' | 'COMMITTING' | 'COMMITTED' | 'FAILED';
+
+export interface ImportPreviewRow {
+    identity: string;
+    firstName: string;
+    lastName: string;
+    update: boolean;
 }
 
-export interface AttendeeImportCommitRequest {
-    attendees: AttendeeRequest[];
-    updateExisting: boolean;
-    newAttributes: string[];
+// Analyzed rows stay on the server; only counts, a preview and a sample of the invalid rows are returned
+export interface AttendeeImportSession {
+    id: string;
+    status: ImportSessionStatus;
+    rowsToCreate: number;
+    rowsToUpdate: number;
+    rowsInvalid: number;
+    newAttributesToCreate: string[];
+    preview: ImportPreviewRow[];
+    invalidRows: InvalidRow[];
+    rowsProcessed: number;
+    attendeesCreated: number;
+    attendeesReactivated: number;
+    attendeesUpdated: number;
+    error: string | null;
 }
+
 export interface AdminDashboardStats {
     totalOrganizations: number;
     activeOrganizations: number;